@@ -0,0 +1,292 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.code.InstructionSequence;
+import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
+import org.jetbrains.java.decompiler.main.ClassesProcessor;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.Fernflower;
+import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.collectors.VarNamesCollector;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+import org.jetbrains.java.decompiler.main.rels.MethodProcessorRunnable;
+import org.jetbrains.java.decompiler.modules.code.DeadCodeHelper;
+import org.jetbrains.java.decompiler.modules.decompiler.*;
+import org.jetbrains.java.decompiler.modules.decompiler.deobfuscator.ExceptionDeobfuscator;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.SSAConstructorSparseEx;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.SSAUConstructorSparseEx;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
+import org.jetbrains.java.decompiler.modules.decompiler.vars.VarProcessor;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.jetbrains.java.decompiler.struct.StructContext;
+import org.jetbrains.java.decompiler.struct.StructMethod;
+import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
+import org.jetbrains.java.decompiler.struct.attr.StructLocalVariableTableAttribute;
+import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Manifest;
+
+/**
+ * Test data and decompiler context shared by the benchmarks. Everything is read from the bundled testData directory,
+ * which is looked up relative to the working directory unless the "testData" system property points elsewhere.
+ */
+public class BenchmarkSupport {
+
+  public static File getTestDataDir() {
+    File dir = new File(System.getProperty("testData", "testData"));
+    if (!new File(dir, "classes").isDirectory()) {
+      throw new IllegalStateException("test data not found in " + dir.getAbsolutePath());
+    }
+    return dir;
+  }
+
+  // the options of the golden file tests
+  public static Map<String, Object> getOptions() {
+    Map<String, Object> options = new HashMap<String, Object>();
+    options.put(IFernflowerPreferences.LOG_LEVEL, "error");
+    options.put(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES, "1");
+    options.put(IFernflowerPreferences.REMOVE_SYNTHETIC, "1");
+    options.put(IFernflowerPreferences.REMOVE_BRIDGE, "1");
+    options.put(IFernflowerPreferences.LITERALS_AS_IS, "1");
+    options.put(IFernflowerPreferences.UNIT_TEST_MODE, "1");
+    return options;
+  }
+
+  public static List<File> listClassFiles(File dir) {
+    List<File> files = new ArrayList<File>();
+    collectClassFiles(dir, files);
+    Collections.sort(files);
+    return files;
+  }
+
+  private static void collectClassFiles(File dir, List<File> files) {
+    File[] children = dir.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        if (child.isDirectory()) {
+          collectClassFiles(child, files);
+        }
+        else if (child.getName().endsWith(".class")) {
+          files.add(child);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sets up a decompiler context on the current thread the way Fernflower.decompileContext() does, without
+   * decompiling anything yet.
+   */
+  public static StructContext createContext(File source) {
+    Fernflower fernflower = new Fernflower(BYTECODE_PROVIDER, NULL_SAVER, getOptions(), new PrintStreamLogger(System.out));
+
+    StructContext context = fernflower.getStructContext();
+    context.addSpace(source, true);
+
+    DecompilerContext.setClassProcessor(new ClassesProcessor(context));
+    DecompilerContext.setStructContext(context);
+
+    return context;
+  }
+
+  public static LazyLoader createLoader() {
+    return new LazyLoader(BYTECODE_PROVIDER);
+  }
+
+  public static void clearContext() {
+    DecompilerContext.setCurrentContext(null);
+  }
+
+  public static List<StructClass> getOwnClasses(StructContext context) {
+    List<StructClass> classes = context.getOwnClasses();
+    Collections.sort(classes, new Comparator<StructClass>() {
+      @Override
+      public int compare(StructClass c1, StructClass c2) {
+        return c1.qualifiedName.compareTo(c2.qualifiedName);
+      }
+    });
+    return classes;
+  }
+
+  /**
+   * Methods with code of all own classes, in a stable order. Methods that cannot be brought through the stages
+   * measured by the benchmarks are left out and reported, so that a change in the measured set shows up in the
+   * setup output.
+   */
+  public static List<MethodData> getMethods(StructContext context) {
+    List<MethodData> methods = new ArrayList<MethodData>();
+    int dropped = 0;
+    for (StructClass cl : getOwnClasses(context)) {
+      for (StructMethod mt : cl.getMethods()) {
+        if (mt.containsCode()) {
+          MethodData method = new MethodData(mt);
+          try {
+            new SSAConstructorSparseEx().splitVariables(method.buildExprents(), mt);
+            new SSAUConstructorSparseEx().splitVariables(method.buildExprents(), mt);
+            methods.add(method);
+          }
+          catch (Throwable t) {
+            dropped++;
+            System.out.println("left out " + cl.qualifiedName + "." + mt.getName() + mt.getDescriptor() + ": " + t);
+          }
+        }
+      }
+    }
+    System.out.println(methods.size() + " methods measured, " + dropped + " left out");
+    return methods;
+  }
+
+  /**
+   * Replays the first stages of MethodProcessorRunnable.processCode() for a single method, so that a benchmark can
+   * prepare the input of the stage it measures.
+   */
+  public static class MethodData {
+    public final StructMethod mt;
+    public final StructClass cl;
+
+    private VarProcessor varProc;
+    private VarNamesCollector varNames;
+    private CounterContainer counter;
+
+    public MethodData(StructMethod mt) {
+      this.mt = mt;
+      this.cl = mt.getClassStruct();
+    }
+
+    // starts over with fresh per-method state
+    public void reset() {
+      varProc = new VarProcessor();
+      varNames = new VarNamesCollector();
+      counter = new CounterContainer();
+
+      if (DecompilerContext.getOption(IFernflowerPreferences.USE_DEBUG_VAR_NAMES)) {
+        StructLocalVariableTableAttribute attr = (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(
+          StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
+        if (attr != null) {
+          varProc.setLVT(attr.getLVT());
+        }
+      }
+
+      enter();
+    }
+
+    public void enter() {
+      DecompilerContext.setProperty(DecompilerContext.CURRENT_CLASS, cl);
+      MethodProcessorRunnable.setMethodContext(mt, varProc, varNames, counter);
+    }
+
+    public InstructionSequence loadCode() throws IOException {
+      reset();
+      mt.releaseResources();
+      mt.expandData();
+      return mt.getInstructionSequence();
+    }
+
+    public ControlFlowGraph buildGraph() throws IOException {
+      ControlFlowGraph graph = new ControlFlowGraph(loadCode());
+
+      DeadCodeHelper.removeDeadBlocks(graph);
+      graph.inlineJsr(mt);
+      DeadCodeHelper.connectDummyExitBlock(graph);
+      DeadCodeHelper.removeGotos(graph);
+      ExceptionDeobfuscator.removeCircularRanges(graph);
+      ExceptionDeobfuscator.restorePopRanges(graph);
+      if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_EMPTY_RANGES)) {
+        ExceptionDeobfuscator.removeEmptyRanges(graph);
+      }
+      if (DecompilerContext.getOption(IFernflowerPreferences.NO_EXCEPTIONS_RETURN)) {
+        DeadCodeHelper.incorporateValueReturns(graph);
+      }
+      ExceptionDeobfuscator.insertEmptyExceptionHandlerBlocks(graph);
+      DeadCodeHelper.mergeBasicBlocks(graph);
+
+      counter.setCounter(CounterContainer.VAR_COUNTER, mt.getLocalVariables());
+
+      return graph;
+    }
+
+    public RootStatement buildStatements() throws IOException {
+      ControlFlowGraph graph = buildGraph();
+
+      RootStatement root = DomHelper.parseGraph(graph, mt);
+      FinallyProcessor fProc = new FinallyProcessor(varProc);
+      while (fProc.iterateGraph(mt, root, graph)) {
+        root = DomHelper.parseGraph(graph, mt);
+      }
+
+      DomHelper.removeSynchronizedHandler(root);
+      SequenceHelper.condenseSequences(root);
+      ClearStructHelper.clearStatements(root);
+
+      return root;
+    }
+
+    public RootStatement buildExprents() throws IOException {
+      RootStatement root = buildStatements();
+
+      new ExprProcessor().processStatement(root, cl);
+      SequenceHelper.condenseSequences(root);
+
+      return root;
+    }
+  }
+
+  private static final IBytecodeProvider BYTECODE_PROVIDER = new IBytecodeProvider() {
+    @Override
+    public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
+      return InterpreterUtil.getBytes(new File(externalPath));
+    }
+  };
+
+  private static final IResultSaver NULL_SAVER = new IResultSaver() {
+    @Override
+    public void saveFolder(String path) { }
+
+    @Override
+    public void copyFile(String source, String path, String entryName) { }
+
+    @Override
+    public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) { }
+
+    @Override
+    public void createArchive(String path, String archiveName, Manifest manifest) { }
+
+    @Override
+    public void saveDirEntry(String path, String archiveName, String entryName) { }
+
+    @Override
+    public void copyEntry(String source, String path, String archiveName, String entry) { }
+
+    @Override
+    public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) { }
+
+    @Override
+    public void closeArchive(String path, String archiveName) { }
+  };
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads all class files of testData/classes into StructClass instances, constant pools included. Library classes
+ * ("own" = false) decode their constant pools lazily.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassParsingBenchmark {
+  @Param({"true", "false"})
+  public boolean own;
+
+  private byte[][] classes;
+  private LazyLoader loader;
+
+  @Setup(Level.Trial)
+  public void readClasses() throws IOException {
+    File dir = new File(BenchmarkSupport.getTestDataDir(), "classes");
+    BenchmarkSupport.createContext(dir);
+    loader = BenchmarkSupport.createLoader();
+
+    List<File> files = BenchmarkSupport.listClassFiles(dir);
+    classes = new byte[files.size()][];
+    for (int i = 0; i < classes.length; i++) {
+      classes[i] = InterpreterUtil.getBytes(files.get(i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownContext() {
+    BenchmarkSupport.clearContext();
+  }
+
+  @Benchmark
+  public void parseClasses(Blackhole blackhole) throws IOException {
+    for (byte[] bytes : classes) {
+      blackhole.consume(new StructClass(bytes, own, loader));
+    }
+  }
+}
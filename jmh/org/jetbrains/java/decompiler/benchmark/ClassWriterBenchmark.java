@@ -0,0 +1,104 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.main.ClassWriter;
+import org.jetbrains.java.decompiler.main.ClassesProcessor;
+import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.TextBuffer;
+import org.jetbrains.java.decompiler.main.collectors.BytecodeSourceMapper;
+import org.jetbrains.java.decompiler.main.collectors.ImportCollector;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.jetbrains.java.decompiler.struct.StructContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text generation of the classes of testData/classes. The classes are processed up to the point where
+ * ClassesProcessor.writeClass() hands them to the ClassWriter before each operation, see prepareClass().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassWriterBenchmark {
+  private StructContext context;
+  private List<ClassNode> nodes;
+  private List<ImportCollector> importCollectors;
+  private List<BytecodeSourceMapper> sourceMappers;
+
+  @Setup(Level.Trial)
+  public void setUpContext() {
+    context = BenchmarkSupport.createContext(new File(BenchmarkSupport.getTestDataDir(), "classes"));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownContext() {
+    BenchmarkSupport.clearContext();
+  }
+
+  @Setup(Level.Invocation)
+  public void processClasses() throws IOException {
+    // lambda processing changes the class tree, so it is rebuilt every time
+    ClassesProcessor processor = new ClassesProcessor(context);
+    DecompilerContext.setClassProcessor(processor);
+
+    nodes = new ArrayList<ClassNode>();
+    importCollectors = new ArrayList<ImportCollector>();
+    sourceMappers = new ArrayList<BytecodeSourceMapper>();
+
+    for (StructClass cl : BenchmarkSupport.getOwnClasses(context)) {
+      ClassNode root = processor.getMapRootClasses().get(cl.qualifiedName);
+      if (root.type != ClassNode.CLASS_ROOT) {
+        continue;
+      }
+
+      ClassesProcessor.prepareClass(root);
+
+      nodes.add(root);
+      importCollectors.add(DecompilerContext.getImportCollector());
+      sourceMappers.add(DecompilerContext.getBytecodeSourceMapper());
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void releaseClasses() {
+    for (ClassNode root : nodes) {
+      ClassesProcessor.releaseClass(root);
+    }
+  }
+
+  @Benchmark
+  public void classToJava(Blackhole blackhole) {
+    for (int i = 0; i < nodes.size(); i++) {
+      DecompilerContext.setImportCollector(importCollectors.get(i));
+      DecompilerContext.setBytecodeSourceMapper(sourceMappers.get(i));
+
+      TextBuffer buffer = new TextBuffer(ClassesProcessor.AVERAGE_CLASS_SIZE);
+      new ClassWriter().classToJava(nodes.get(i), buffer, 0, null);
+      blackhole.consume(buffer);
+    }
+  }
+}
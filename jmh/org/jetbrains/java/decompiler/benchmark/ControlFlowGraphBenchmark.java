@@ -0,0 +1,44 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.code.InstructionSequence;
+import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+public class ControlFlowGraphBenchmark extends MethodBenchmarkBase {
+  private InstructionSequence[] sequences;
+
+  @Setup(Level.Invocation)
+  public void loadCode() throws IOException {
+    sequences = new InstructionSequence[methods.size()];
+    for (int i = 0; i < sequences.length; i++) {
+      sequences[i] = methods.get(i).loadCode();
+    }
+  }
+
+  @Benchmark
+  public void buildGraph(Blackhole blackhole) {
+    for (InstructionSequence seq : sequences) {
+      blackhole.consume(new ControlFlowGraph(seq));
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decompiles the bundled test data end to end, the way the golden file tests do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DecompilerBenchmark {
+  @Param({"bulk.jar", "classes"})
+  public String source;
+
+  private File sourceFile;
+  private File targetDir;
+
+  @Setup(Level.Trial)
+  public void createTargetDir() throws IOException {
+    sourceFile = new File(BenchmarkSupport.getTestDataDir(), source);
+
+    targetDir = File.createTempFile("decompiler_benchmark_", "_dir");
+    if (!targetDir.delete() || !targetDir.mkdirs()) {
+      throw new IOException("cannot create " + targetDir);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteTargetDir() {
+    delete(targetDir);
+  }
+
+  @Benchmark
+  public void decompile() {
+    ConsoleDecompiler decompiler = new ConsoleDecompiler(targetDir, BenchmarkSupport.getOptions());
+    decompiler.addSpace(sourceFile, true);
+    decompiler.decompileContext();
+  }
+
+  private static void delete(File file) {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        delete(f);
+      }
+    }
+    //noinspection ResultOfMethodCallIgnored
+    file.delete();
+  }
+}
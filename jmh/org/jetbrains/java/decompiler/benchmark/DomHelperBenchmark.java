@@ -0,0 +1,47 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.benchmark.BenchmarkSupport.MethodData;
+import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
+import org.jetbrains.java.decompiler.modules.decompiler.DomHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+public class DomHelperBenchmark extends MethodBenchmarkBase {
+  private ControlFlowGraph[] graphs;
+
+  @Setup(Level.Invocation)
+  public void buildGraphs() throws IOException {
+    graphs = new ControlFlowGraph[methods.size()];
+    for (int i = 0; i < graphs.length; i++) {
+      graphs[i] = methods.get(i).buildGraph();
+    }
+  }
+
+  @Benchmark
+  public void parseGraph(Blackhole blackhole) {
+    for (int i = 0; i < graphs.length; i++) {
+      MethodData method = methods.get(i);
+      method.enter();
+      blackhole.consume(DomHelper.parseGraph(graphs[i], method.mt));
+    }
+  }
+}
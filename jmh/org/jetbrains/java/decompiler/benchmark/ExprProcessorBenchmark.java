@@ -0,0 +1,47 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.benchmark.BenchmarkSupport.MethodData;
+import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+
+public class ExprProcessorBenchmark extends MethodBenchmarkBase {
+  private RootStatement[] roots;
+
+  @Setup(Level.Invocation)
+  public void buildStatements() throws IOException {
+    roots = new RootStatement[methods.size()];
+    for (int i = 0; i < roots.length; i++) {
+      roots[i] = methods.get(i).buildStatements();
+    }
+  }
+
+  @Benchmark
+  public RootStatement[] processStatement() {
+    for (int i = 0; i < roots.length; i++) {
+      MethodData method = methods.get(i);
+      method.enter();
+      new ExprProcessor().processStatement(roots[i], method.cl);
+    }
+    return roots;
+  }
+}
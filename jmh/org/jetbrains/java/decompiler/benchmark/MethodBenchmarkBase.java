@@ -0,0 +1,47 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.benchmark.BenchmarkSupport.MethodData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base of the benchmarks of single method processing stages. One operation runs the measured stage over all methods
+ * of testData/classes, the input of the stage is rebuilt before each operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public abstract class MethodBenchmarkBase {
+  protected List<MethodData> methods;
+
+  @Setup(Level.Trial)
+  public void setUpContext() {
+    methods = BenchmarkSupport.getMethods(BenchmarkSupport.createContext(new File(BenchmarkSupport.getTestDataDir(), "classes")));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownContext() {
+    BenchmarkSupport.clearContext();
+  }
+}
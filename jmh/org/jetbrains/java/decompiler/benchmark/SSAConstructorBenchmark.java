@@ -0,0 +1,61 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.benchmark.BenchmarkSupport.MethodData;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.SSAConstructorSparseEx;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.SSAUConstructorSparseEx;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+public class SSAConstructorBenchmark extends MethodBenchmarkBase {
+  private RootStatement[] roots;
+
+  @Setup(Level.Invocation)
+  public void buildExprents() throws IOException {
+    roots = new RootStatement[methods.size()];
+    for (int i = 0; i < roots.length; i++) {
+      roots[i] = methods.get(i).buildExprents();
+    }
+  }
+
+  @Benchmark
+  public void ssa(Blackhole blackhole) {
+    for (int i = 0; i < roots.length; i++) {
+      MethodData method = methods.get(i);
+      method.enter();
+      SSAConstructorSparseEx ssa = new SSAConstructorSparseEx();
+      ssa.splitVariables(roots[i], method.mt);
+      blackhole.consume(ssa);
+    }
+  }
+
+  @Benchmark
+  public void ssau(Blackhole blackhole) {
+    for (int i = 0; i < roots.length; i++) {
+      MethodData method = methods.get(i);
+      method.enter();
+      SSAUConstructorSparseEx ssau = new SSAUConstructorSparseEx();
+      ssau.splitVariables(roots[i], method.mt);
+      blackhole.consume(ssau);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.benchmark;
+
+import org.jetbrains.java.decompiler.benchmark.BenchmarkSupport.MethodData;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.SSAUConstructorSparseEx;
+import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionNode;
+import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPair;
+import org.jetbrains.java.decompiler.util.LongHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Version maps of the shape SSAUConstructorSparseEx builds: for each method, the variable versions it creates are
+ * put into a fresh map and looked up again, followed by as many misses. LongHashMap with packed keys is compared
+ * against a HashMap with a VarVersionPair allocated per access, as the maps were used before.
+ */
+public class VarVersionMapBenchmark extends MethodBenchmarkBase {
+  private int[][] vars;
+  private int[][] versions;
+
+  @Setup(Level.Trial)
+  public void collectVersions() throws IOException {
+    vars = new int[methods.size()][];
+    versions = new int[methods.size()][];
+
+    for (int i = 0; i < vars.length; i++) {
+      MethodData method = methods.get(i);
+      SSAUConstructorSparseEx ssau = new SSAUConstructorSparseEx();
+      ssau.splitVariables(method.buildExprents(), method.mt);
+
+      List<VarVersionNode> nodes = ssau.getSsuversions().nodes;
+      vars[i] = new int[nodes.size()];
+      versions[i] = new int[nodes.size()];
+      for (int j = 0; j < nodes.size(); j++) {
+        vars[i][j] = nodes.get(j).var;
+        versions[i][j] = nodes.get(j).version;
+      }
+    }
+  }
+
+  @Benchmark
+  public void longHashMap(Blackhole blackhole) {
+    for (int i = 0; i < vars.length; i++) {
+      int[] var = vars[i];
+      int[] version = versions[i];
+
+      LongHashMap<Integer> map = new LongHashMap<Integer>();
+      for (int j = 0; j < var.length; j++) {
+        map.put(VarVersionPair.toLong(var[j], version[j]), j);
+      }
+      for (int j = 0; j < var.length; j++) {
+        blackhole.consume(map.get(VarVersionPair.toLong(var[j], version[j])));
+        blackhole.consume(map.get(VarVersionPair.toLong(var[j], -version[j] - 1)));
+      }
+    }
+  }
+
+  @Benchmark
+  public void boxedHashMap(Blackhole blackhole) {
+    for (int i = 0; i < vars.length; i++) {
+      int[] var = vars[i];
+      int[] version = versions[i];
+
+      HashMap<VarVersionPair, Integer> map = new HashMap<VarVersionPair, Integer>();
+      for (int j = 0; j < var.length; j++) {
+        map.put(new VarVersionPair(var[j], version[j]), j);
+      }
+      for (int j = 0; j < var.length; j++) {
+        blackhole.consume(map.get(new VarVersionPair(var[j], version[j])));
+        blackhole.consume(map.get(new VarVersionPair(var[j], -version[j] - 1)));
+      }
+    }
+  }
+}
@@ -24,47 +24,120 @@ public class ConstantsUtil {
   }
 
   public static Instruction getInstructionInstance(int opcode, boolean wide, int group, int bytecode_version, int[] operands) {
+    return getInstructionInstance(opcode, wide, group, bytecode_version, operands, 0, operands == null ? 0 : operands.length);
+  }
+
+  public static Instruction getInstructionInstance(int opcode, boolean wide, int group, int bytecode_version,
+                                                   int[] operands, int operandStart, int operandCount) {
 
-    Instruction instr = getInstructionInstance(opcode, bytecode_version);
+    Instruction instr = createInstruction(opcode, bytecode_version);
+    instr.opcode = opcode;
     instr.wide = wide;
     instr.group = group;
     instr.bytecode_version = bytecode_version;
-    instr.setOperands(operands);
+    instr.setOperands(operands, operandStart, operandCount);
 
     return instr;
   }
 
-  private static Instruction getInstructionInstance(int opcode, int bytecode_version) {
-    try {
-      Instruction instr;
-
-      if ((opcode >= CodeConstants.opc_ifeq &&
-           opcode <= CodeConstants.opc_if_acmpne) ||
-          opcode == CodeConstants.opc_ifnull ||
-          opcode == CodeConstants.opc_ifnonnull) {
-        instr = new IfInstruction();
-      }
-      else {
-
-        Class cl = opcodeClasses[opcode];
-
-        if (opcode == CodeConstants.opc_invokedynamic && bytecode_version < CodeConstants.BYTECODE_JAVA_7) {
-          cl = null; // instruction unused in Java 6 and before
-        }
-
-        if (cl == null) {
-          instr = new Instruction();
-        }
-        else {
-          instr = (Instruction)cl.newInstance();
-        }
-      }
-
-      instr.opcode = opcode;
-      return instr;
-    }
-    catch (Exception ex) {
-      return null;
+  private static Instruction createInstruction(int opcode, int bytecode_version) {
+    switch (opcode) {
+      case CodeConstants.opc_ifeq:
+      case CodeConstants.opc_ifne:
+      case CodeConstants.opc_iflt:
+      case CodeConstants.opc_ifge:
+      case CodeConstants.opc_ifgt:
+      case CodeConstants.opc_ifle:
+      case CodeConstants.opc_if_icmpeq:
+      case CodeConstants.opc_if_icmpne:
+      case CodeConstants.opc_if_icmplt:
+      case CodeConstants.opc_if_icmpge:
+      case CodeConstants.opc_if_icmpgt:
+      case CodeConstants.opc_if_icmple:
+      case CodeConstants.opc_if_acmpeq:
+      case CodeConstants.opc_if_acmpne:
+      case CodeConstants.opc_ifnull:
+      case CodeConstants.opc_ifnonnull:
+        return new IfInstruction();
+      case CodeConstants.opc_bipush:
+        return new BIPUSH();
+      case CodeConstants.opc_sipush:
+        return new SIPUSH();
+      case CodeConstants.opc_ldc:
+        return new LDC();
+      case CodeConstants.opc_ldc_w:
+        return new LDC_W();
+      case CodeConstants.opc_ldc2_w:
+        return new LDC2_W();
+      case CodeConstants.opc_iload:
+        return new ILOAD();
+      case CodeConstants.opc_lload:
+        return new LLOAD();
+      case CodeConstants.opc_fload:
+        return new FLOAD();
+      case CodeConstants.opc_dload:
+        return new DLOAD();
+      case CodeConstants.opc_aload:
+        return new ALOAD();
+      case CodeConstants.opc_istore:
+        return new ISTORE();
+      case CodeConstants.opc_lstore:
+        return new LSTORE();
+      case CodeConstants.opc_fstore:
+        return new FSTORE();
+      case CodeConstants.opc_dstore:
+        return new DSTORE();
+      case CodeConstants.opc_astore:
+        return new ASTORE();
+      case CodeConstants.opc_iinc:
+        return new IINC();
+      case CodeConstants.opc_goto:
+        return new GOTO();
+      case CodeConstants.opc_jsr:
+        return new JSR();
+      case CodeConstants.opc_ret:
+        return new RET();
+      case CodeConstants.opc_tableswitch:
+        return new TABLESWITCH();
+      case CodeConstants.opc_lookupswitch:
+        return new LOOKUPSWITCH();
+      case CodeConstants.opc_getstatic:
+        return new GETSTATIC();
+      case CodeConstants.opc_putstatic:
+        return new PUTSTATIC();
+      case CodeConstants.opc_getfield:
+        return new GETFIELD();
+      case CodeConstants.opc_putfield:
+        return new PUTFIELD();
+      case CodeConstants.opc_invokevirtual:
+        return new INVOKEVIRTUAL();
+      case CodeConstants.opc_invokespecial:
+        return new INVOKESPECIAL();
+      case CodeConstants.opc_invokestatic:
+        return new INVOKESTATIC();
+      case CodeConstants.opc_invokeinterface:
+        return new INVOKEINTERFACE();
+      case CodeConstants.opc_invokedynamic:
+        // instruction unused in Java 6 and before
+        return bytecode_version < CodeConstants.BYTECODE_JAVA_7 ? new Instruction() : new INVOKEDYNAMIC();
+      case CodeConstants.opc_new:
+        return new NEW();
+      case CodeConstants.opc_newarray:
+        return new NEWARRAY();
+      case CodeConstants.opc_anewarray:
+        return new ANEWARRAY();
+      case CodeConstants.opc_checkcast:
+        return new CHECKCAST();
+      case CodeConstants.opc_instanceof:
+        return new INSTANCEOF();
+      case CodeConstants.opc_multianewarray:
+        return new MULTIANEWARRAY();
+      case CodeConstants.opc_goto_w:
+        return new GOTO_W();
+      case CodeConstants.opc_jsr_w:
+        return new JSR_W();
+      default:
+        return new Instruction();
     }
   }
 
@@ -274,209 +347,4 @@ public class ConstantsUtil {
     "goto_w",                        //    "goto_w",
     "jsr_w"                        //    "jsr_w"
   };
-
-  private static final Class[] opcodeClasses = {
-    null,                                //    "nop",
-    null,                        //    "aconst_null",
-    null,                        //    "iconst_m1",
-    null,                        //    "iconst_0",
-    null,                        //    "iconst_1",
-    null,                        //    "iconst_2",
-    null,                        //    "iconst_3",
-    null,                        //    "iconst_4",
-    null,                        //    "iconst_5",
-    null,                        //    "lconst_0",
-    null,                        //    "lconst_1",
-    null,                                //    "fconst_0",
-    null,                                //    "fconst_1",
-    null,                                //    "fconst_2",
-    null,                                //    "dconst_0",
-    null,                                //    "dconst_1",
-    BIPUSH.class,                        //    "bipush",
-    SIPUSH.class,                        //    "sipush",
-    LDC.class,                        //    "ldc",
-    LDC_W.class,                        //    "ldc_w",
-    LDC2_W.class,                        //    "ldc2_w",
-    ILOAD.class,                        //    "iload",
-    LLOAD.class,                        //    "lload",
-    FLOAD.class,                        //    "fload",
-    DLOAD.class,                        //    "dload",
-    ALOAD.class,                        //    "aload",
-    null,                        //    "iload_0",
-    null,                        //    "iload_1",
-    null,                        //    "iload_2",
-    null,                        //    "iload_3",
-    null,                        //    "lload_0",
-    null,                        //    "lload_1",
-    null,                        //    "lload_2",
-    null,                        //    "lload_3",
-    null,                        //    "fload_0",
-    null,                        //    "fload_1",
-    null,                        //    "fload_2",
-    null,                        //    "fload_3",
-    null,                        //    "dload_0",
-    null,                        //    "dload_1",
-    null,                        //    "dload_2",
-    null,                        //    "dload_3",
-    null,                        //    "aload_0",
-    null,                        //    "aload_1",
-    null,                        //    "aload_2",
-    null,                        //    "aload_3",
-    null,                        //    "iaload",
-    null,                        //    "laload",
-    null,                                //    "faload",
-    null,                                //    "daload",
-    null,                                //    "aaload",
-    null,                                //    "baload",
-    null,                                //    "caload",
-    null,                                //    "saload",
-    ISTORE.class,                        //    "istore",
-    LSTORE.class,                        //    "lstore",
-    FSTORE.class,                        //    "fstore",
-    DSTORE.class,                        //    "dstore",
-    ASTORE.class,                        //    "astore",
-    null,                        //    "istore_0",
-    null,                        //    "istore_1",
-    null,                        //    "istore_2",
-    null,                        //    "istore_3",
-    null,                        //    "lstore_0",
-    null,                        //    "lstore_1",
-    null,                        //    "lstore_2",
-    null,                        //    "lstore_3",
-    null,                        //    "fstore_0",
-    null,                        //    "fstore_1",
-    null,                        //    "fstore_2",
-    null,                        //    "fstore_3",
-    null,                        //    "dstore_0",
-    null,                        //    "dstore_1",
-    null,                        //    "dstore_2",
-    null,                        //    "dstore_3",
-    null,                        //    "astore_0",
-    null,                        //    "astore_1",
-    null,                        //    "astore_2",
-    null,                        //    "astore_3",
-    null,                        //    "iastore",
-    null,                        //    "lastore",
-    null,                                //    "fastore",
-    null,                                //    "dastore",
-    null,                                //    "aastore",
-    null,                                //    "bastore",
-    null,                                //    "castore",
-    null,                        //    "sastore",
-    null,                        //    "pop",
-    null,                        //    "pop2",
-    null,                        //    "dup",
-    null,                        //    "dup_x1",
-    null,                        //    "dup_x2",
-    null,                        //    "dup2",
-    null,                        //    "dup2_x1",
-    null,                        //    "dup2_x2",
-    null,                        //    "swap",
-    null,                        //    "iadd",
-    null,                        //    "ladd",
-    null,                        //    "fadd",
-    null,                        //    "dadd",
-    null,                        //    "isub",
-    null,                        //    "lsub",
-    null,                        //    "fsub",
-    null,                        //    "dsub",
-    null,                        //    "imul",
-    null,                        //    "lmul",
-    null,                        //    "fmul",
-    null,                        //    "dmul",
-    null,                        //    "idiv",
-    null,                        //    "ldiv",
-    null,                        //    "fdiv",
-    null,                        //    "ddiv",
-    null,                        //    "irem",
-    null,                        //    "lrem",
-    null,                        //    "frem",
-    null,                        //    "drem",
-    null,                        //    "ineg",
-    null,                        //    "lneg",
-    null,                        //    "fneg",
-    null,                        //    "dneg",
-    null,                        //    "ishl",
-    null,                        //    "lshl",
-    null,                        //    "ishr",
-    null,                        //    "lshr",
-    null,                        //    "iushr",
-    null,                        //    "lushr",
-    null,                        //    "iand",
-    null,                        //    "land",
-    null,                        //    "ior",
-    null,                        //    "lor",
-    null,                        //    "ixor",
-    null,                        //    "lxor",
-    IINC.class,                        //    "iinc",
-    null,                        //    "i2l",
-    null,                        //    "i2f",
-    null,                        //    "i2d",
-    null,                        //    "l2i",
-    null,                        //    "l2f",
-    null,                        //    "l2d",
-    null,                        //    "f2i",
-    null,                        //    "f2l",
-    null,                        //    "f2d",
-    null,                        //    "d2i",
-    null,                        //    "d2l",
-    null,                        //    "d2f",
-    null,                        //    "i2b",
-    null,                        //    "i2c",
-    null,                        //    "i2s",
-    null,                        //    "lcmp",
-    null,                        //    "fcmpl",
-    null,                        //    "fcmpg",
-    null,                        //    "dcmpl",
-    null,                        //    "dcmpg",
-    null,                        //    "ifeq",
-    null,                        //    "ifne",
-    null,                        //    "iflt",
-    null,                        //    "ifge",
-    null,                        //    "ifgt",
-    null,                        //    "ifle",
-    null,                //    "if_icmpeq",
-    null,                //    "if_icmpne",
-    null,                //    "if_icmplt",
-    null,                //    "if_icmpge",
-    null,                //    "if_icmpgt",
-    null,                //    "if_icmple",
-    null,                //    "if_acmpeq",
-    null,                //    "if_acmpne",
-    GOTO.class,                        //    "goto",
-    JSR.class,                        //    "jsr",
-    RET.class,                        //    "ret",
-    TABLESWITCH.class,                        //    "tableswitch",
-    LOOKUPSWITCH.class,                        //    "lookupswitch",
-    null,                        //    "ireturn",
-    null,                        //    "lreturn",
-    null,                                //    "freturn",
-    null,                                //    "dreturn",
-    null,                                //    "areturn",
-    null,                                //    "return",
-    GETSTATIC.class,                //    "getstatic",
-    PUTSTATIC.class,                //    "putstatic",
-    GETFIELD.class,                //    "getfield",
-    PUTFIELD.class,                //    "putfield",
-    INVOKEVIRTUAL.class,                //    "invokevirtual",
-    INVOKESPECIAL.class,                //    "invokespecial",
-    INVOKESTATIC.class,                //    "invokestatic",
-    INVOKEINTERFACE.class,                //    "invokeinterface",
-    INVOKEDYNAMIC.class,                //    "xxxunusedxxx" Java 6 and before, "invokedynamic" Java 7 and later
-    NEW.class,                                //    "new",
-    NEWARRAY.class,                //    "newarray",
-    ANEWARRAY.class,                //    "anewarray",
-    null,                                //    "arraylength",
-    null,                                //    "athrow",
-    CHECKCAST.class,                //    "checkcast",
-    INSTANCEOF.class,                //    "instanceof",
-    null,                                //    "monitorenter",
-    null,                                //    "monitorexit",
-    null,                                //    "wide",
-    MULTIANEWARRAY.class,                //    "multianewarray",
-    null,                        //    "ifnull",
-    null,                //    "ifnonnull",
-    GOTO_W.class,                        //    "goto_w",
-    JSR_W.class                                //    "jsr_w"
-  };
 }
@@ -15,17 +15,36 @@
  */
 package org.jetbrains.java.decompiler.code;
 
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
-
+import java.util.Arrays;
 
+// The code of a method as read from the class file. Instructions are kept in packed arrays: an opcode, group and
+// wide flag per instruction and a shared operand array, which the decoder fills without allocating anything per
+// instruction. Instruction objects are created when first requested and stay the same afterwards.
 public class FullInstructionSequence extends InstructionSequence {
 
+  public static final int WIDE_FLAG = 0x10000;
+
+  // opcode | group << 8 | WIDE_FLAG, null once all instructions exist
+  private int[] codes;
+
+  // operands of instruction i are operands[operandStarts[i]] to operands[operandStarts[i + 1] - 1]
+  private int[] operandStarts;
+
+  private int[] operands;
+
+  private final int bytecodeVersion;
+
   // *****************************************************************************
   // constructors
   // *****************************************************************************
 
-  public FullInstructionSequence(VBStyleCollection<Instruction, Integer> collinstr, ExceptionTable extable) {
-    super(collinstr);
+  public FullInstructionSequence(int length, int[] offsets, int[] codes, int[] operandStarts, int[] operands, int bytecodeVersion,
+                                 ExceptionTable extable) {
+    super(new Instruction[length], offsets, length);
+    this.codes = codes;
+    this.operandStarts = operandStarts;
+    this.operands = operands;
+    this.bytecodeVersion = bytecodeVersion;
     this.exceptionTable = extable;
 
     // translate raw exception handlers to instr
@@ -35,4 +54,78 @@ public class FullInstructionSequence extends InstructionSequence {
       handler.handler_instr = this.getPointerByAbsOffset(handler.handler);
     }
   }
+
+  // *****************************************************************************
+  // public methods
+  // *****************************************************************************
+
+  @Override
+  public Instruction getInstr(int index) {
+    Instruction instr = super.getInstr(index);
+    if (instr == null) {
+      instr = createInstruction(index);
+    }
+    return instr;
+  }
+
+  @Override
+  public int getPointerByAbsOffset(int offset) {
+    if (codes == null) {
+      return super.getPointerByAbsOffset(offset);
+    }
+    // offsets of the decoded code are ascending
+    int index = Arrays.binarySearch(offsets, 0, size, offset);
+    return index < 0 ? -1 : index;
+  }
+
+  @Override
+  public void addInstruction(int index, Instruction inst, int offset) {
+    unpack();
+    super.addInstruction(index, inst, offset);
+  }
+
+  @Override
+  public void removeInstruction(int index) {
+    unpack();
+    super.removeInstruction(index);
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    codes = null;
+    operandStarts = null;
+    operands = null;
+  }
+
+  // *****************************************************************************
+  // private methods
+  // *****************************************************************************
+
+  private Instruction createInstruction(int index) {
+    int code = codes[index];
+    int start = operandStarts[index];
+
+    Instruction instr = ConstantsUtil.getInstructionInstance(code & 0xFF, (code & WIDE_FLAG) != 0, (code >> 8) & 0xFF, bytecodeVersion,
+                                                             operands, start, operandStarts[index + 1] - start);
+    instructions[index] = instr;
+
+    if (instr.group != CodeConstants.GROUP_GENERAL) {
+      instr.initInstruction(this, index);
+    }
+
+    return instr;
+  }
+
+  // instructions are about to move, so all of them must exist
+  private void unpack() {
+    if (codes != null) {
+      for (int i = 0; i < size; i++) {
+        getInstr(i);
+      }
+      codes = null;
+      operandStarts = null;
+      operands = null;
+    }
+  }
 }
@@ -17,6 +17,7 @@ package org.jetbrains.java.decompiler.code;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 public class Instruction implements CodeConstants {
 
@@ -36,8 +37,13 @@ public class Instruction implements CodeConstants {
   // private fields
   // *****************************************************************************
 
+  // operands are a slice of the array, which may be shared with other instructions of the same method
   private int[] operands = null;
 
+  private int operandStart = 0;
+
+  private int operandCount = 0;
+
   // *****************************************************************************
   // public methods
   // *****************************************************************************
@@ -50,15 +56,16 @@ public class Instruction implements CodeConstants {
   }
 
   public int operandsCount() {
-    return (operands == null) ? 0 : operands.length;
+    return operandCount;
   }
 
   public int getOperand(int index) {
-    return operands[index];
+    return operands[operandStart + index];
   }
 
   public Instruction clone() {
-    return ConstantsUtil.getInstructionInstance(opcode, wide, group, bytecode_version, operands == null ? null : operands.clone());
+    // operands are never modified in place, so the copy may share them
+    return ConstantsUtil.getInstructionInstance(opcode, wide, group, bytecode_version, operands, operandStart, operandCount);
   }
 
   public String toString() {
@@ -68,7 +75,7 @@ public class Instruction implements CodeConstants {
 
     int len = operandsCount();
     for (int i = 0; i < len; i++) {
-      int op = operands[i];
+      int op = getOperand(i);
       if (op < 0) {
         res += " -" + Integer.toHexString(-op);
       }
@@ -92,11 +99,9 @@ public class Instruction implements CodeConstants {
       return false;
     }
 
-    if (operands != null) {
-      for (int i = 0; i < operands.length; i++) {
-        if (operands[i] != instr.getOperand(i)) {
-          return false;
-        }
+    for (int i = 0; i < operandCount; i++) {
+      if (getOperand(i) != instr.getOperand(i)) {
+        return false;
       }
     }
 
@@ -104,7 +109,7 @@ public class Instruction implements CodeConstants {
   }
 
   // should be overwritten by subclasses
-  public void initInstruction(InstructionSequence seq) {
+  public void initInstruction(InstructionSequence seq, int index) {
   }
 
   // should be overwritten by subclasses
@@ -117,10 +122,19 @@ public class Instruction implements CodeConstants {
   // *****************************************************************************
 
   public int[] getOperands() {
-    return operands;
+    if (operands == null || (operandStart == 0 && operandCount == operands.length)) {
+      return operands;
+    }
+    return Arrays.copyOfRange(operands, operandStart, operandStart + operandCount);
   }
 
   public void setOperands(int[] operands) {
+    setOperands(operands, 0, operands == null ? 0 : operands.length);
+  }
+
+  public void setOperands(int[] operands, int start, int count) {
     this.operands = operands;
+    this.operandStart = start;
+    this.operandCount = count;
   }
 }
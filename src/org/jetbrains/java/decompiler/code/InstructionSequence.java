@@ -19,10 +19,10 @@ import org.jetbrains.java.decompiler.code.interpreter.Util;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.struct.StructContext;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -30,22 +30,32 @@ import java.util.List;
 
 public abstract class InstructionSequence {
 
+  private static final Instruction[] NO_INSTRUCTIONS = new Instruction[0];
+  private static final int[] NO_OFFSETS = new int[0];
+
   // *****************************************************************************
   // private fields
   // *****************************************************************************
 
-  protected final VBStyleCollection<Instruction, Integer> collinstr;
+  // instructions and their offsets, only the first 'size' entries are used
+  protected Instruction[] instructions;
+
+  protected int[] offsets;
+
+  protected int size;
 
   protected int pointer = 0;
 
   protected ExceptionTable exceptionTable = ExceptionTable.EMPTY;
 
   protected InstructionSequence() {
-    this(new VBStyleCollection<Instruction, Integer>());
+    this(NO_INSTRUCTIONS, NO_OFFSETS, 0);
   }
 
-  protected InstructionSequence(VBStyleCollection<Instruction, Integer> collinstr) {
-    this.collinstr = collinstr;
+  protected InstructionSequence(Instruction[] instructions, int[] offsets, int size) {
+    this.instructions = instructions;
+    this.offsets = offsets;
+    this.size = size;
   }
 
   // *****************************************************************************
@@ -58,17 +68,35 @@ public abstract class InstructionSequence {
   }
 
   public void clear() {
-    collinstr.clear();
+    Arrays.fill(instructions, 0, size, null);
+    size = 0;
     pointer = 0;
     exceptionTable = ExceptionTable.EMPTY;
   }
 
   public void addInstruction(Instruction inst, int offset) {
-    collinstr.addWithKey(inst, offset);
+    addInstruction(size, inst, offset);
   }
 
   public void addInstruction(int index, Instruction inst, int offset) {
-    collinstr.addWithKeyAndIndex(index, inst, offset);
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    if (size == instructions.length) {
+      int capacity = Math.max(8, size * 2);
+      instructions = Arrays.copyOf(instructions, capacity);
+      offsets = Arrays.copyOf(offsets, capacity);
+    }
+
+    if (index < size) {
+      System.arraycopy(instructions, index, instructions, index + 1, size - index);
+      System.arraycopy(offsets, index, offsets, index + 1, size - index);
+    }
+
+    instructions[index] = inst;
+    offsets[index] = offset;
+    size++;
   }
 
   public void addSequence(InstructionSequence seq) {
@@ -78,68 +106,70 @@ public abstract class InstructionSequence {
   }
 
   public void removeInstruction(int index) {
-    collinstr.remove(index);
+    checkIndex(index);
+
+    int moved = size - index - 1;
+    if (moved > 0) {
+      System.arraycopy(instructions, index + 1, instructions, index, moved);
+      System.arraycopy(offsets, index + 1, offsets, index, moved);
+    }
+    instructions[--size] = null;
   }
 
   public void removeLast() {
-    if (!collinstr.isEmpty()) {
-      collinstr.remove(collinstr.size() - 1);
+    if (size > 0) {
+      removeInstruction(size - 1);
     }
   }
 
   public Instruction getCurrentInstr() {
-    return collinstr.get(pointer);
+    return getInstr(pointer);
   }
 
   public Instruction getInstr(int index) {
-  return collinstr.get(index);
+    checkIndex(index);
+    return instructions[index];
   }
 
   public Instruction getLastInstr() {
-  return collinstr.getLast();
+    return getInstr(size - 1);
   }
 
   public int getCurrentOffset() {
-    return collinstr.getKey(pointer).intValue();
+    return getOffset(pointer);
   }
 
-public int getOffset(int index) {
-    return collinstr.getKey(index).intValue();
+  public int getOffset(int index) {
+    checkIndex(index);
+    return offsets[index];
   }
 
   public int getPointerByAbsOffset(int offset) {
-    Integer absoffset = new Integer(offset);
-    if (collinstr.containsKey(absoffset)) {
-      return collinstr.getIndexByKey(absoffset);
-    }
-    else {
-      return -1;
+    for (int i = 0; i < size; i++) {
+      if (offsets[i] == offset) {
+        return i;
+      }
     }
+    return -1;
   }
 
   public int getPointerByRelOffset(int offset) {
-    Integer absoffset = new Integer(collinstr.getKey(pointer).intValue() + offset);
-    if (collinstr.containsKey(absoffset)) {
-      return collinstr.getIndexByKey(absoffset);
-    }
-    else {
-      return -1;
-    }
+    return getPointerByAbsOffset(getOffset(pointer) + offset);
   }
 
   public void setPointerByAbsOffset(int offset) {
-    Integer absoffset = new Integer(collinstr.getKey(pointer).intValue() + offset);
-    if (collinstr.containsKey(absoffset)) {
-      pointer = collinstr.getIndexByKey(absoffset);
+    int index = getPointerByAbsOffset(getOffset(pointer) + offset);
+    if (index >= 0) {
+      pointer = index;
     }
   }
 
   public int length() {
-    return collinstr.size();
+    return size;
   }
 
   public boolean isEmpty() {
-    return collinstr.isEmpty();
+    return size == 0;
   }
 
   public void addToPointer(int diff) {
@@ -156,11 +186,11 @@ public int getOffset(int index) {
 
     StringBuilder buf = new StringBuilder();
 
-    for (int i = 0; i < collinstr.size(); i++) {
-    buf.append(InterpreterUtil.getIndentString(indent));
-      buf.append(collinstr.getKey(i).intValue());
+    for (int i = 0; i < size; i++) {
+      buf.append(InterpreterUtil.getIndentString(indent));
+      buf.append(offsets[i]);
       buf.append(": ");
-      buf.append(collinstr.get(i).toString());
+      buf.append(getInstr(i).toString());
       buf.append(new_line_separator);
     }
 
@@ -169,8 +199,8 @@ public int getOffset(int index) {
 
   public void writeCodeToStream(DataOutputStream out) throws IOException {
 
-    for (int i = 0; i < collinstr.size(); i++) {
-      collinstr.get(i).writeToStream(out, collinstr.getKey(i).intValue());
+    for (int i = 0; i < size; i++) {
+      getInstr(i).writeToStream(out, offsets[i]);
     }
   }
 
@@ -219,6 +249,12 @@ public int getOffset(int index) {
   }
 
 
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
   // *****************************************************************************
   // getter and setter methods
   // *****************************************************************************
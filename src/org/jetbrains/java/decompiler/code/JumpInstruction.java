@@ -29,8 +29,8 @@ public class JumpInstruction extends Instruction {
   public JumpInstruction() {
   }
 
-  public void initInstruction(InstructionSequence seq) {
-    destination = seq.getPointerByRelOffset(this.getOperand(0));
+  public void initInstruction(InstructionSequence seq, int index) {
+    destination = seq.getPointerByAbsOffset(seq.getOffset(index) + this.getOperand(0));
   }
 
   public JumpInstruction clone() {
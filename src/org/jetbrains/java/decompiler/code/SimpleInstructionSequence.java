@@ -15,25 +15,21 @@
  */
 package org.jetbrains.java.decompiler.code;
 
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
+import java.util.Arrays;
 
 public class SimpleInstructionSequence extends InstructionSequence {
 
   public SimpleInstructionSequence() {
   }
 
-  public SimpleInstructionSequence(VBStyleCollection<Instruction, Integer> collinstr) {
-    super(collinstr);
+  private SimpleInstructionSequence(Instruction[] instructions, int[] offsets, int size) {
+    super(instructions, offsets, size);
   }
 
   public SimpleInstructionSequence clone() {
-    SimpleInstructionSequence newseq = new SimpleInstructionSequence(collinstr.clone());
+    SimpleInstructionSequence newseq = new SimpleInstructionSequence(Arrays.copyOf(instructions, size), Arrays.copyOf(offsets, size), size);
     newseq.setPointer(this.getPointer());
 
     return newseq;
   }
-
-  public void removeInstruction(int index) {
-    collinstr.remove(index);
-  }
 }
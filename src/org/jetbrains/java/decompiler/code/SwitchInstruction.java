@@ -31,11 +31,12 @@ public class SwitchInstruction extends Instruction {
   }
 
 
-  public void initInstruction(InstructionSequence seq) {
+  public void initInstruction(InstructionSequence seq, int index) {
 
     int pref = (opcode == CodeConstants.opc_tableswitch ? 3 : 2);
-    int len = this.getOperands().length - pref;
-    defaultdest = seq.getPointerByRelOffset(this.getOperand(0));
+    int len = this.operandsCount() - pref;
+    int offset = seq.getOffset(index);
+    defaultdest = seq.getPointerByAbsOffset(offset + this.getOperand(0));
 
     int low = 0;
 
@@ -57,7 +58,7 @@ public class SwitchInstruction extends Instruction {
       else {
         values[i] = low + k;
       }
-      destinations[i] = seq.getPointerByRelOffset(this.getOperand(pref + k));
+      destinations[i] = seq.getPointerByAbsOffset(offset + this.getOperand(pref + k));
     }
   }
 
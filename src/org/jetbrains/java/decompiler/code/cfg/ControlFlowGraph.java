@@ -125,8 +125,10 @@ public class ControlFlowGraph implements CodeConstants {
   }
 
   public void inlineJsr(StructMethod mt) {
-    processJsr();
-    removeJsr(mt);
+    if (mt.hasCodeFeature(StructMethod.CODE_JSR)) {
+      processJsr();
+      removeJsr(mt);
+    }
 
     removeMarkers();
 
@@ -46,7 +46,8 @@ public class ClassesProcessor {
 
   public static final int AVERAGE_CLASS_SIZE = 16 * 1024;
 
-  private final Map<String, ClassNode> mapRootClasses = new HashMap<String, ClassNode>();
+  // lambda nodes are registered while classes are being written, possibly by several threads
+  private final Map<String, ClassNode> mapRootClasses = Collections.synchronizedMap(new HashMap<String, ClassNode>());
 
   public ClassesProcessor(StructContext context) {
 
@@ -58,8 +59,8 @@ public class ClassesProcessor {
     boolean bDecompileInner = DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_INNER);
 
     // create class nodes
-    for (StructClass cl : context.getClasses().values()) {
-      if (cl.isOwn() && !mapRootClasses.containsKey(cl.qualifiedName)) {
+    for (StructClass cl : context.getOwnClasses()) {
+      if (!mapRootClasses.containsKey(cl.qualifiedName)) {
 
         if (bDecompileInner) {
           StructInnerClassesAttribute inner = (StructInnerClassesAttribute)cl.getAttributes().getWithKey("InnerClasses");
@@ -124,7 +125,7 @@ public class ClassesProcessor {
               }
 
               if (!innerName.equals(enclClassName)) {  // self reference
-                StructClass enclosing_class = context.getClasses().get(enclClassName);
+                StructClass enclosing_class = context.getClass(enclClassName);
                 if (enclosing_class != null && enclosing_class.isOwn()) { // own classes only
 
                   Object[] arrOld = mapInnerClasses.get(innerName);
@@ -257,30 +258,17 @@ public class ClassesProcessor {
     }
   }
 
-  public void writeClass(StructClass cl, TextBuffer buffer) throws IOException {
+  // returns false if some method of the class or its nested classes couldn't be decompiled
+  public boolean writeClass(StructClass cl, TextBuffer buffer) throws IOException {
     ClassNode root = mapRootClasses.get(cl.qualifiedName);
     if (root.type != ClassNode.CLASS_ROOT) {
-      return;
+      return true;
     }
 
     DecompilerContext.getLogger().startReadingClass(cl.qualifiedName);
     try {
-      ImportCollector importCollector = new ImportCollector(root);
-      DecompilerContext.setImportCollector(importCollector);
-      DecompilerContext.setCounterContainer(new CounterContainer());
-      DecompilerContext.setBytecodeSourceMapper(new BytecodeSourceMapper());
-
-      new LambdaProcessor().processClass(root);
-
-      // add simple class names to implicit import
-      addClassnameToImport(root, importCollector);
-
-      // build wrappers for all nested classes (that's where actual processing takes place)
-      initWrappers(root);
-
-      new NestedClassProcessor().processClass(root, root);
-
-      new NestedMemberAccess().propagateMemberAccess(root);
+      prepareClass(root);
+      ImportCollector importCollector = DecompilerContext.getImportCollector();
 
       TextBuffer classBuffer = new TextBuffer(AVERAGE_CLASS_SIZE);
       new ClassWriter().classToJava(root, classBuffer, 0, null);
@@ -316,13 +304,44 @@ public class ClassesProcessor {
           mapper.dumpMapping(buffer, true);
         }
       }
+
+      return !hasMethodErrors(root);
     }
     finally {
-      destroyWrappers(root);
+      releaseClass(root);
       DecompilerContext.getLogger().endReadingClass();
     }
   }
 
+  /**
+   * Decompiles a root class and its nested classes up to the point where writeClass() hands them to the ClassWriter.
+   * The import collector and the bytecode mapper of the class are left in the DecompilerContext. Public for the
+   * benchmarks of the ClassWriter, releaseClass() must be called afterwards.
+   */
+  public static void prepareClass(ClassNode root) throws IOException {
+    ImportCollector importCollector = new ImportCollector(root);
+    DecompilerContext.setImportCollector(importCollector);
+    DecompilerContext.setCounterContainer(new CounterContainer());
+    DecompilerContext.setBytecodeSourceMapper(new BytecodeSourceMapper());
+
+    new LambdaProcessor().processClass(root);
+
+    // add simple class names to implicit import
+    addClassnameToImport(root, importCollector);
+
+    // build wrappers for all nested classes (that's where actual processing takes place)
+    initWrappers(root);
+
+    new NestedClassProcessor().processClass(root, root);
+
+    new NestedMemberAccess().propagateMemberAccess(root);
+  }
+
+  // drops what prepareClass() has built
+  public static void releaseClass(ClassNode root) {
+    destroyWrappers(root);
+  }
+
   private static void initWrappers(ClassNode node) throws IOException {
 
     if (node.type == ClassNode.CLASS_LAMBDA) {
@@ -350,6 +369,24 @@ public class ClassesProcessor {
     }
   }
 
+  private static boolean hasMethodErrors(ClassNode node) {
+    if (node.wrapper != null) {
+      for (MethodWrapper method : node.wrapper.getMethods()) {
+        if (method.decompiledWithErrors) {
+          return true;
+        }
+      }
+    }
+
+    for (ClassNode nd : node.nested) {
+      if (hasMethodErrors(nd)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
   private static void destroyWrappers(ClassNode node) {
 
     node.wrapper = null;
@@ -18,6 +18,7 @@ package org.jetbrains.java.decompiler.main;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeSourceMapper;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.main.collectors.ImportCollector;
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
 import org.jetbrains.java.decompiler.main.collectors.VarNamesCollector;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
@@ -38,6 +39,7 @@ public class DecompilerContext {
   public static final String CURRENT_METHOD_DESCRIPTOR = "CURRENT_METHOD_DESCRIPTOR";
   public static final String CURRENT_METHOD_WRAPPER = "CURRENT_METHOD_WRAPPER";
   public static final String CURRENT_VAR_PROCESSOR = "CURRENT_VAR_PROCESSOR";
+  public static final String CURRENT_METHOD_BUDGET = "CURRENT_METHOD_BUDGET";
   public static final String RENAMER_FACTORY = "RENAMER_FACTORY";
 
   private static final ThreadLocal<DecompilerContext> currentContext = new ThreadLocal<DecompilerContext>();
@@ -52,6 +54,7 @@ public class DecompilerContext {
   private IFernflowerLogger logger;
   private BytecodeSourceMapper bytecodeSourceMapper;
   private IVariableNamingFactory renamerFactory;
+  private PassStatistics passStatistics;
 
   private DecompilerContext(Map<String, Object> properties) {
     this.properties = properties;
@@ -81,6 +84,22 @@ public class DecompilerContext {
     }
   }
 
+  // context for a worker thread: properties are copied, so that per-class and per-method values stay thread-confined
+  public static DecompilerContext cloneContext(DecompilerContext parent) {
+    DecompilerContext context = new DecompilerContext(new HashMap<String, Object>(parent.properties));
+    context.structContext = parent.structContext;
+    context.importCollector = parent.importCollector;
+    context.varNamescollector = parent.varNamescollector;
+    context.counterContainer = parent.counterContainer;
+    context.classProcessor = parent.classProcessor;
+    context.poolInterceptor = parent.poolInterceptor;
+    context.logger = parent.logger;
+    context.bytecodeSourceMapper = parent.bytecodeSourceMapper;
+    context.renamerFactory = parent.renamerFactory;
+    context.passStatistics = parent.passStatistics;
+    return context;
+  }
+
   public static DecompilerContext getCurrentContext() {
     return currentContext.get();
   }
@@ -157,6 +176,14 @@ public class DecompilerContext {
     getCurrentContext().bytecodeSourceMapper = bytecodeSourceMapper;
   }
 
+  public static PassStatistics getPassStatistics() {
+    return getCurrentContext().passStatistics;
+  }
+
+  public static void setPassStatistics(PassStatistics passStatistics) {
+    getCurrentContext().passStatistics = passStatistics;
+  }
+
   public static IFernflowerLogger getLogger() {
     return getCurrentContext().logger;
   }
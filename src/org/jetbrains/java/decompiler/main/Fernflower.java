@@ -16,7 +16,9 @@
 package org.jetbrains.java.decompiler.main;
 
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
+import org.jetbrains.java.decompiler.main.collectors.BytecodeSourceMapper;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger.Severity;
@@ -30,6 +32,8 @@ import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 import org.jetbrains.java.decompiler.util.JADNameProvider;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -37,13 +41,41 @@ import java.util.Set;
 public class Fernflower implements IDecompiledData {
 
   private final StructContext structContext;
+  private final LazyLoader loader;
+  private final ResultCache resultCache;
   private ClassesProcessor classesProcessor;
 
   public Fernflower(IBytecodeProvider provider, IResultSaver saver, Map<String, Object> options, IFernflowerLogger logger) {
-    structContext = new StructContext(saver, this, new LazyLoader(provider));
+    loader = new LazyLoader(provider);
+    structContext = new StructContext(saver, this, loader);
     DecompilerContext.initContext(options,logger);
     DecompilerContext.setCounterContainer(new CounterContainer());
 
+    int cacheSize = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.CLASS_CACHE_SIZE).toString());
+    loader.setCacheSize(cacheSize * 1024L * 1024L);
+
+    Object cacheDir = DecompilerContext.getProperty(IFernflowerPreferences.RESULT_CACHE_DIR);
+    if (cacheDir != null && cacheDir.toString().length() > 0) {
+      Map<String, Object> properties = new HashMap<String, Object>(IFernflowerPreferences.DEFAULTS);
+      if (options != null) {
+        properties.putAll(options);
+      }
+      resultCache = new ResultCache(new File(cacheDir.toString()), properties);
+    }
+    else {
+      resultCache = null;
+    }
+
+    Object statisticsFile = DecompilerContext.getProperty(IFernflowerPreferences.PASS_STATISTICS_FILE);
+    if (statisticsFile != null && statisticsFile.toString().length() > 0) {
+      try {
+        DecompilerContext.setPassStatistics(new PassStatistics(new File(statisticsFile.toString())));
+      }
+      catch (IOException ex) {
+        DecompilerContext.getLogger().writeMessage("Cannot write pass statistics to " + statisticsFile, ex);
+      }
+    }
+
     if (DecompilerContext.getOption(IFernflowerPreferences.INCLUDE_ENTIRE_CLASSPATH)) {
       addAllClasspath();
     }
@@ -59,7 +91,27 @@ public class Fernflower implements IDecompiledData {
     DecompilerContext.setClassProcessor(classesProcessor);
     DecompilerContext.setStructContext(structContext);
 
+    if (resultCache != null) {
+      resultCache.init(structContext, DecompilerContext.getPoolInterceptor());
+    }
+
     structContext.saveContext();
+
+    if (resultCache != null) {
+      String message = "Result cache: " + resultCache.getHits() + " hits, " + resultCache.getMisses() + " misses";
+      DecompilerContext.getLogger().writeMessage(message, Severity.INFO);
+    }
+
+    PassStatistics statistics = DecompilerContext.getPassStatistics();
+    if (statistics != null) {
+      DecompilerContext.setPassStatistics(null);
+      try {
+        statistics.close();
+      }
+      catch (IOException ex) {
+        DecompilerContext.getLogger().writeMessage("Cannot write pass statistics", ex);
+      }
+    }
   }
 
   public void clearContext() {
@@ -70,6 +122,11 @@ public class Fernflower implements IDecompiledData {
     return structContext;
   }
 
+  // null unless a result cache directory is set
+  public ResultCache getResultCache() {
+    return resultCache;
+  }
+
   @Override
   public String getClassEntryName(StructClass cl, String entryName) {
     ClassNode node = classesProcessor.getMapRootClasses().get(cl.qualifiedName);
@@ -90,10 +147,34 @@ public class Fernflower implements IDecompiledData {
   @Override
   public String getClassContent(StructClass cl) {
     try {
+      String key = null;
+      if (resultCache != null) {
+        key = resultCache.getKey(classesProcessor.getMapRootClasses().get(cl.qualifiedName), loader);
+        ResultCache.Result result = key == null ? null : resultCache.load(key);
+        if (result != null) {
+          BytecodeSourceMapper mapper = new BytecodeSourceMapper();
+          if (result.mapping != null) {
+            mapper.addOriginalLinesMapping(result.mapping);
+          }
+          DecompilerContext.setBytecodeSourceMapper(mapper);
+          return result.content;
+        }
+      }
+
       TextBuffer buffer = new TextBuffer(ClassesProcessor.AVERAGE_CLASS_SIZE);
       buffer.append(DecompilerContext.getProperty(IFernflowerPreferences.BANNER).toString());
-      classesProcessor.writeClass(cl, buffer);
-      return buffer.toString();
+      boolean complete = classesProcessor.writeClass(cl, buffer);
+      String content = buffer.toString();
+
+      if (key != null && complete) { // classes with methods that failed to decompile are not cached
+        int[] mapping = null;
+        if (DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING)) {
+          mapping = DecompilerContext.getBytecodeSourceMapper().getOriginalLinesMapping();
+        }
+        resultCache.store(key, content, mapping);
+      }
+
+      return content;
     }
     catch (Throwable ex) {
       DecompilerContext.getLogger().writeMessage("Class " + cl.qualifiedName + " couldn't be fully decompiled.", ex);
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main;
+
+import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
+import org.jetbrains.java.decompiler.struct.StructContext;
+import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Decompiled sources stored on disk between runs. An entry is keyed by the bytes of a top-level class and all of
+ * its nested classes, together with a digest of everything else that shapes the output: option values, renamed
+ * identifiers and the names of all classes in the context. Changes to the members of other classes are not tracked.
+ */
+public class ResultCache {
+  private static final int FORMAT_VERSION = 1;
+
+  // options that do not change the decompiled text
+  private static final Set<String> IGNORED_OPTIONS = new HashSet<String>(Arrays.asList(
+    IFernflowerPreferences.LOG_LEVEL, IFernflowerPreferences.THREADS, IFernflowerPreferences.METHOD_THREADS,
+    IFernflowerPreferences.CLASS_CACHE_SIZE, IFernflowerPreferences.RESULT_CACHE_DIR,
+    IFernflowerPreferences.PASS_STATISTICS_FILE));
+
+  private final File directory;
+  private final Map<String, Object> options;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+  private byte[] contextDigest;
+
+  public ResultCache(File directory, Map<String, Object> options) {
+    this.directory = directory;
+    this.options = new TreeMap<String, Object>(options);
+  }
+
+  // to be called once all classes are added and renamed
+  public void init(StructContext context, PoolInterceptor interceptor) {
+    if (!(directory.mkdirs() || directory.isDirectory())) {
+      throw new RuntimeException("Cannot create directory " + directory);
+    }
+
+    MessageDigest digest = createDigest();
+    update(digest, String.valueOf(FORMAT_VERSION));
+
+    for (Map.Entry<String, Object> entry : options.entrySet()) {
+      if (!IGNORED_OPTIONS.contains(entry.getKey()) && entry.getValue() != null) {
+        update(digest, entry.getKey());
+        update(digest, entry.getValue().toString());
+      }
+    }
+
+    if (interceptor != null) {
+      for (Map.Entry<String, String> entry : new TreeMap<String, String>(interceptor.getNameMapping()).entrySet()) {
+        update(digest, entry.getKey());
+        update(digest, entry.getValue());
+      }
+    }
+
+    for (String name : context.getClassNames()) {
+      update(digest, name);
+    }
+
+    contextDigest = digest.digest();
+  }
+
+  public String getKey(ClassNode root, LazyLoader loader) throws IOException {
+    MessageDigest digest = createDigest();
+    digest.update(contextDigest);
+
+    LinkedList<ClassNode> stack = new LinkedList<ClassNode>();
+    stack.add(root);
+    while (!stack.isEmpty()) {
+      ClassNode node = stack.removeFirst();
+      if (node.type == ClassNode.CLASS_LAMBDA) {
+        continue;
+      }
+
+      byte[] bytes = loader.getClassBytes(node.classStruct.qualifiedName);
+      if (bytes == null) {
+        return null;
+      }
+      update(digest, node.classStruct.qualifiedName);
+      digest.update(bytes);
+
+      stack.addAll(0, node.nested);
+    }
+
+    StringBuilder key = new StringBuilder();
+    for (byte b : digest.digest()) {
+      key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return key.toString();
+  }
+
+  public Result load(String key) {
+    File file = new File(directory, key);
+    if (file.isFile()) {
+      try {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+          if (in.readInt() == FORMAT_VERSION) {
+            byte[] content = new byte[in.readInt()];
+            in.readFully(content);
+
+            int[] mapping = null;
+            int length = in.readInt();
+            if (length >= 0) {
+              mapping = new int[length];
+              for (int i = 0; i < length; i++) {
+                mapping[i] = in.readInt();
+              }
+            }
+
+            hits.incrementAndGet();
+            return new Result(new String(content, "UTF-8"), mapping);
+          }
+        }
+        finally {
+          in.close();
+        }
+      }
+      catch (IOException ex) {
+        DecompilerContext.getLogger().writeMessage("Cannot read cached result " + file, ex);
+      }
+    }
+
+    misses.incrementAndGet();
+    return null;
+  }
+
+  public void store(String key, String content, int[] mapping) {
+    File file = new File(directory, key);
+    try {
+      // write a temporary file first, so that an interrupted run does not leave a truncated entry behind
+      File temp = File.createTempFile(key, ".tmp", directory);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      try {
+        byte[] bytes = content.getBytes("UTF-8");
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeInt(mapping == null ? -1 : mapping.length);
+        if (mapping != null) {
+          for (int value : mapping) {
+            out.writeInt(value);
+          }
+        }
+      }
+      finally {
+        out.close();
+      }
+
+      if (!temp.renameTo(file)) {
+        file.delete();
+        if (!temp.renameTo(file)) {
+          temp.delete();
+        }
+      }
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot write cached result " + file, ex);
+    }
+  }
+
+  public int getHits() {
+    return hits.get();
+  }
+
+  public int getMisses() {
+    return misses.get();
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    try {
+      digest.update(value.getBytes("UTF-8"));
+      digest.update((byte)0);
+    }
+    catch (UnsupportedEncodingException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  public static class Result {
+    public final String content;
+    public final int[] mapping;
+
+    public Result(String content, int[] mapping) {
+      this.content = content;
+      this.mapping = mapping;
+    }
+  }
+}
@@ -57,6 +57,19 @@ public class BytecodeSourceMapper {
     unmappedLines.addAll(tracer.getUnmappedLines());
   }
 
+  // takes over what was collected by a separate mapper, e.g. while a method was processed on another thread
+  public void addMappings(BytecodeSourceMapper other) {
+    for (Entry<String, Map<String, Map<Integer, Integer>>> class_entry : other.mapping.entrySet()) {
+      for (Entry<String, Map<Integer, Integer>> method_entry : class_entry.getValue().entrySet()) {
+        for (Entry<Integer, Integer> line : method_entry.getValue().entrySet()) {
+          addMapping(class_entry.getKey(), method_entry.getKey(), line.getKey(), line.getValue());
+        }
+      }
+    }
+    linesMapping.putAll(other.linesMapping);
+    unmappedLines.addAll(other.unmappedLines);
+  }
+
   public void dumpMapping(TextBuffer buffer, boolean offsetsToHex) {
     if (mapping.isEmpty() && linesMapping.isEmpty()) {
       return;
@@ -124,6 +137,13 @@ public class BytecodeSourceMapper {
     this.offset_total += offset_total;
   }
 
+  // restores a mapping previously returned by getOriginalLinesMapping()
+  public void addOriginalLinesMapping(int[] mapping) {
+    for (int i = 0; i < mapping.length; i += 2) {
+      linesMapping.put(mapping[i], mapping[i + 1] - offset_total - 1);
+    }
+  }
+
   /**
    * Original to decompiled line mapping.
    */
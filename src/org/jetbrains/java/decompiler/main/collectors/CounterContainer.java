@@ -34,4 +34,8 @@ public class CounterContainer {
   public int getCounterAndIncrement(int counter) {
     return values[counter]++;
   }
+
+  public void setCounters(CounterContainer other) {
+    System.arraycopy(other.values, 0, values, 0, values.length);
+  }
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.collectors;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+// Wall time, allocated memory and number of calls of the method processing passes. Values are written per method as
+// soon as a method is done, and summed up per class and for the whole run when the collector is closed. The output is
+// JSON if the file name ends with ".json", CSV otherwise.
+public class PassStatistics {
+
+  private static final int CALLS = 0;
+  private static final int TIME = 1;
+  private static final int BYTES = 2;
+
+  private static final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+  private final Writer writer;
+  private final boolean json;
+  private final Map<String, Map<String, long[]>> classTotals = new LinkedHashMap<String, Map<String, long[]>>();
+  private final Map<String, long[]> runTotals = new LinkedHashMap<String, long[]>();
+  private boolean firstRecord = true;
+  private IOException failure;
+
+  public PassStatistics(File file) throws IOException {
+    writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    json = file.getName().endsWith(".json");
+
+    if (json) {
+      writer.write("{\n\"methods\": [");
+    }
+    else {
+      writer.write("scope,class,method,pass,calls,time_ns,allocated_bytes\n");
+    }
+  }
+
+  public Timer startMethod(String className, String method) {
+    return new Timer(this, className, method);
+  }
+
+  private synchronized void addMethod(String className, String method, Map<String, long[]> passes) {
+    Map<String, long[]> classPasses = classTotals.get(className);
+    if (classPasses == null) {
+      classTotals.put(className, classPasses = new LinkedHashMap<String, long[]>());
+    }
+
+    for (Entry<String, long[]> entry : passes.entrySet()) {
+      addValues(classPasses, entry.getKey(), entry.getValue());
+      addValues(runTotals, entry.getKey(), entry.getValue());
+      writeRecord("method", className, method, entry.getKey(), entry.getValue());
+    }
+  }
+
+  private static void addValues(Map<String, long[]> totals, String pass, long[] values) {
+    long[] total = totals.get(pass);
+    if (total == null) {
+      totals.put(pass, total = new long[3]);
+    }
+    for (int i = 0; i < total.length; i++) {
+      total[i] += values[i];
+    }
+  }
+
+  private void writeRecord(String scope, String className, String method, String pass, long[] values) {
+    if (failure != null) {
+      return;
+    }
+
+    try {
+      if (json) {
+        writer.write(firstRecord ? "\n  {" : ",\n  {");
+        if (className != null) {
+          writer.write("\"class\": " + quoteJson(className) + ", ");
+        }
+        if (method != null) {
+          writer.write("\"method\": " + quoteJson(method) + ", ");
+        }
+        writer.write("\"pass\": " + quoteJson(pass) + ", \"calls\": " + values[CALLS] + ", \"timeNs\": " + values[TIME] +
+                     ", \"allocatedBytes\": " + values[BYTES] + "}");
+      }
+      else {
+        writer.write(scope + "," + quoteCsv(className) + "," + quoteCsv(method) + "," + quoteCsv(pass) + "," +
+                     values[CALLS] + "," + values[TIME] + "," + values[BYTES] + "\n");
+      }
+      firstRecord = false;
+    }
+    catch (IOException ex) {
+      failure = ex;
+    }
+  }
+
+  private void startSection(String name) throws IOException {
+    if (json) {
+      writer.write("\n],\n\"" + name + "\": [");
+      firstRecord = true;
+    }
+  }
+
+  // writes the class and run totals
+  public synchronized void close() throws IOException {
+    try {
+      if (failure == null) {
+        startSection("classes");
+        for (Entry<String, Map<String, long[]>> classEntry : classTotals.entrySet()) {
+          for (Entry<String, long[]> entry : classEntry.getValue().entrySet()) {
+            writeRecord("class", classEntry.getKey(), null, entry.getKey(), entry.getValue());
+          }
+        }
+
+        startSection("run");
+        for (Entry<String, long[]> entry : runTotals.entrySet()) {
+          writeRecord("run", null, null, entry.getKey(), entry.getValue());
+        }
+
+        if (json && failure == null) {
+          writer.write("\n]\n}\n");
+        }
+      }
+    }
+    finally {
+      writer.close();
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private static String quoteJson(String value) {
+    StringBuilder buffer = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        buffer.append('\\').append(c);
+      }
+      else if (c < 0x20) {
+        buffer.append(String.format("\\u%04x", (int)c));
+      }
+      else {
+        buffer.append(c);
+      }
+    }
+    return buffer.append('"').toString();
+  }
+
+  private static String quoteCsv(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  // memory allocated by the current thread, 0 if the JVM cannot tell
+  public static long getAllocatedBytes() {
+    return threadBean == null ? 0 : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static com.sun.management.ThreadMXBean getThreadBean() {
+    try {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+        if (sunBean.isThreadAllocatedMemorySupported()) {
+          sunBean.setThreadAllocatedMemoryEnabled(true);
+          return sunBean;
+        }
+      }
+    }
+    catch (Throwable ignored) { }  // not a HotSpot-compatible JVM
+    return null;
+  }
+
+  // Measures the passes of one method on the calling thread. Each lap() charges the time and memory spent since the
+  // previous lap (or since the timer was created) to the given pass.
+  public static class Timer {
+    public static final Timer DISABLED = new Timer(null, null, null);
+
+    private final PassStatistics statistics;
+    private final String className;
+    private final String method;
+    private final Map<String, long[]> passes = new LinkedHashMap<String, long[]>();
+    private long lastTime;
+    private long lastBytes;
+
+    private Timer(PassStatistics statistics, String className, String method) {
+      this.statistics = statistics;
+      this.className = className;
+      this.method = method;
+
+      if (statistics != null) {
+        lastTime = System.nanoTime();
+        lastBytes = getAllocatedBytes();
+      }
+    }
+
+    public void lap(String pass) {
+      if (statistics == null) {
+        return;
+      }
+
+      long time = System.nanoTime();
+      long bytes = getAllocatedBytes();
+
+      long[] values = passes.get(pass);
+      if (values == null) {
+        passes.put(pass, values = new long[3]);
+      }
+      values[CALLS]++;
+      values[TIME] += time - lastTime;
+      values[BYTES] += bytes - lastBytes;
+
+      lastTime = time;
+      lastBytes = bytes;
+    }
+
+    // hands the collected values over to the statistics; the timer must not be used afterwards
+    public void finish() {
+      if (statistics != null && !passes.isEmpty()) {
+        statistics.addMethod(className, method, passes);
+      }
+    }
+  }
+}
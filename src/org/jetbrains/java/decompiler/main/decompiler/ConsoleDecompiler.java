@@ -21,6 +21,7 @@ import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.jetbrains.java.decompiler.util.ZipFileCache;
 
 import java.io.*;
 import java.util.*;
@@ -115,6 +116,7 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
   private final Fernflower fernflower;
   private final Map<String, ZipOutputStream> mapArchiveStreams = new HashMap<String, ZipOutputStream>();
   private final Map<String, Set<String>> mapArchiveEntries = new HashMap<String, Set<String>>();
+  private final ZipFileCache archiveCache = new ZipFileCache();
 
   @SuppressWarnings("UseOfSystemOutOrSystemErr")
   public ConsoleDecompiler(File destination, Map<String, Object> options) {
@@ -136,6 +138,7 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
     }
     finally {
       fernflower.clearContext();
+      archiveCache.close();
     }
   }
 
@@ -145,22 +148,11 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
   @Override
   public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
-    File file = new File(externalPath);
     if (internalPath == null) {
-      return InterpreterUtil.getBytes(file);
+      return InterpreterUtil.getBytes(new File(externalPath));
     }
     else {
-      ZipFile archive = new ZipFile(file);
-      try {
-        ZipEntry entry = archive.getEntry(internalPath);
-        if (entry == null) {
-          throw new IOException("Entry not found: " + internalPath);
-        }
-        return InterpreterUtil.getBytes(archive, entry);
-      }
-      finally {
-        archive.close();
-      }
+      return archiveCache.getBytes(externalPath, internalPath);
     }
   }
 
@@ -272,7 +264,10 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
       ZipOutputStream out = mapArchiveStreams.get(file);
       out.putNextEntry(new ZipEntry(entryName));
       if (content != null) {
-        out.write(content.getBytes("UTF-8"));
+        // encode in chunks straight into the archive instead of copying the whole class into a byte array
+        Writer writer = new OutputStreamWriter(out, "UTF-8");
+        writer.write(content);
+        writer.flush();
       }
     }
     catch (IOException ex) {
@@ -23,25 +23,33 @@ import java.io.PrintStream;
 public class PrintStreamLogger extends IFernflowerLogger {
 
   private final PrintStream stream;
-  private int indent;
+
+  // classes and methods may be processed on several threads, each of them nests its own messages
+  private final ThreadLocal<Integer> indent = new ThreadLocal<Integer>() {
+    @Override
+    protected Integer initialValue() {
+      return 0;
+    }
+  };
 
   public PrintStreamLogger(PrintStream printStream) {
     stream = printStream;
-    indent = 0;
   }
 
   @Override
   public void writeMessage(String message, Severity severity) {
     if (accepts(severity)) {
-      stream.println(severity.prefix + InterpreterUtil.getIndentString(indent) + message);
+      stream.println(severity.prefix + InterpreterUtil.getIndentString(indent.get()) + message);
     }
   }
 
   @Override
   public void writeMessage(String message, Throwable t) {
     if (accepts(Severity.ERROR)) {
-      writeMessage(message, Severity.ERROR);
-      t.printStackTrace(stream);
+      synchronized (stream) {
+        writeMessage(message, Severity.ERROR);
+        t.printStackTrace(stream);
+      }
     }
   }
 
@@ -49,14 +57,14 @@ public class PrintStreamLogger extends IFernflowerLogger {
   public void startReadingClass(String className) {
     if (accepts(Severity.INFO)) {
       writeMessage("Decompiling class " + className, Severity.INFO);
-      ++indent;
+      indent.set(indent.get() + 1);
     }
   }
 
   @Override
   public void endReadingClass() {
     if (accepts(Severity.INFO)) {
-      --indent;
+      indent.set(indent.get() - 1);
       writeMessage("... done", Severity.INFO);
     }
   }
@@ -65,14 +73,14 @@ public class PrintStreamLogger extends IFernflowerLogger {
   public void startClass(String className) {
     if (accepts(Severity.INFO)) {
       writeMessage("Processing class " + className, Severity.TRACE);
-      ++indent;
+      indent.set(indent.get() + 1);
     }
   }
 
   @Override
   public void endClass() {
     if (accepts(Severity.INFO)) {
-      --indent;
+      indent.set(indent.get() - 1);
       writeMessage("... proceeded", Severity.TRACE);
     }
   }
@@ -81,13 +89,13 @@ public class PrintStreamLogger extends IFernflowerLogger {
   public void startMethod(String methodName) {
     if (accepts(Severity.INFO)) {
       writeMessage("Processing method " + methodName, Severity.TRACE);
-      ++indent;
+      indent.set(indent.get() + 1);
     }
   }
 
   public void endMethod() {
     if (accepts(Severity.INFO)) {
-      --indent;
+      indent.set(indent.get() - 1);
       writeMessage("... proceeded", Severity.TRACE);
     }
   }
@@ -96,14 +104,14 @@ public class PrintStreamLogger extends IFernflowerLogger {
   public void startWriteClass(String className) {
     if (accepts(Severity.INFO)) {
       writeMessage("Writing class " + className, Severity.TRACE);
-      ++indent;
+      indent.set(indent.get() + 1);
     }
   }
 
   @Override
   public void endWriteClass() {
     if (accepts(Severity.INFO)) {
-      --indent;
+      indent.set(indent.get() - 1);
       writeMessage("... written", Severity.TRACE);
     }
   }
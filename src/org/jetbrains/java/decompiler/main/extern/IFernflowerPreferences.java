@@ -64,6 +64,15 @@ public interface IFernflowerPreferences {
 
   String USE_JAD_VARNAMING = "jvn";
 
+  String THREADS = "thr";
+  String METHOD_THREADS = "mth";
+  String CLASS_CACHE_SIZE = "ccs";
+  String RESULT_CACHE_DIR = "rcd";
+  String PASS_STATISTICS_FILE = "pst";
+  String METHOD_WORK_BUDGET = "mwb";
+  String METHOD_MEMORY_BUDGET = "mmb";
+  String IRREDUCIBLE_SPLIT_LIMIT = "isl";
+
   Map<String, Object> DEFAULTS = Collections.unmodifiableMap(new HashMap<String, Object>() {{
     put(REMOVE_BRIDGE, "1");
     put(REMOVE_SYNTHETIC, "0");
@@ -99,5 +108,11 @@ public interface IFernflowerPreferences {
     put(DUMP_ORIGINAL_LINES, "0");
     put(INCLUDE_ENTIRE_CLASSPATH, "0");
     put(USE_JAD_VARNAMING, "0");
+    put(THREADS, "1");
+    put(METHOD_THREADS, "1");
+    put(CLASS_CACHE_SIZE, "16");
+    put(METHOD_WORK_BUDGET, "0");
+    put(METHOD_MEMORY_BUDGET, "0");
+    put(IRREDUCIBLE_SPLIT_LIMIT, "100");
   }});
 }
@@ -31,17 +31,28 @@ import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
 import org.jetbrains.java.decompiler.struct.attr.StructLocalVariableTableAttribute;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
+import org.jetbrains.java.decompiler.util.DecompilerThreadFactory;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class ClassWrapper {
 
+  // Shared by all classes, threads are reused between methods. The pool is bounded: a method past its time limit
+  // stops at the next cancellation point, until then the pool has an extra thread in its place.
+  private static final ThreadPoolExecutor methodExecutor = createMethodExecutor();
+
   private final StructClass classStruct;
-  private final Set<String> hiddenMembers = new HashSet<String>();
+  private final Set<String> hiddenMembers = Collections.synchronizedSet(new HashSet<String>());
   private final VBStyleCollection<Exprent, String> staticFieldInitializers = new VBStyleCollection<Exprent, String>();
   private final VBStyleCollection<Exprent, String> dynamicFieldInitializers = new VBStyleCollection<Exprent, String>();
   private final VBStyleCollection<MethodWrapper, String> methods = new VBStyleCollection<MethodWrapper, String>();
@@ -64,136 +75,212 @@ public class ClassWrapper {
     int maxSec = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.MAX_PROCESSING_METHOD).toString());
     boolean testMode = DecompilerContext.getOption(IFernflowerPreferences.UNIT_TEST_MODE);
 
-    for (StructMethod mt : classStruct.getMethods()) {
-      DecompilerContext.getLogger().startMethod(mt.getName() + " " + mt.getDescriptor());
+    int threads = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.METHOD_THREADS).toString());
+    if (threads <= 0) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
 
-      VarNamesCollector vc = new VarNamesCollector();
-      DecompilerContext.setVarNamesCollector(vc);
+    VBStyleCollection<StructMethod, String> lstMethods = classStruct.getMethods();
 
-      CounterContainer counter = new CounterContainer();
-      DecompilerContext.setCounterContainer(counter);
+    VarNamesCollector[] varNames = new VarNamesCollector[lstMethods.size()];
+    CounterContainer[] counters = new CounterContainer[lstMethods.size()];
+    VarProcessor[] varProcessors = new VarProcessor[lstMethods.size()];
 
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD, mt);
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_DESCRIPTOR, MethodDescriptor.parseDescriptor(mt.getDescriptor()));
+    for (int i = 0; i < lstMethods.size(); i++) {
+      varNames[i] = new VarNamesCollector();
+      counters[i] = new CounterContainer();
+      varProcessors[i] = createVarProcessor(lstMethods.get(i));
+    }
 
-      VarProcessor varProc = new VarProcessor();
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_VAR_PROCESSOR, varProc);
+    // Method code is processed concurrently if requested. Statement structures are built by the pool at most
+    // 'threads' methods ahead, while the methods are completed and collected here in declaration order.
+    MethodProcessorRunnable[] processors = new MethodProcessorRunnable[lstMethods.size()];
+    Future<?>[] futures = new Future<?>[lstMethods.size()];
+    int submitted = 0;
 
-      RootStatement root = null;
+    if (threads > 1) {
+      classStruct.getPool(); // load the pool before it is shared among the processing threads
+    }
 
-      // if debug information present and should be used
-      if (DecompilerContext.getOption(IFernflowerPreferences.USE_DEBUG_VAR_NAMES)) {
-        StructLocalVariableTableAttribute attr = (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(
-          StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
+    try {
+      for (int index = 0; index < lstMethods.size(); index++) {
+        StructMethod mt = lstMethods.get(index);
+        DecompilerContext.getLogger().startMethod(mt.getName() + " " + mt.getDescriptor());
 
-        if (attr != null) {
-          varProc.setLVT(attr.getLVT());
-        }
-      }
+        VarNamesCollector vc = varNames[index];
+        CounterContainer counter = counters[index];
+        VarProcessor varProc = varProcessors[index];
 
-      boolean isError = false;
+        MethodProcessorRunnable.setMethodContext(mt, varProc, vc, counter);
 
-      try {
-        if (mt.containsCode()) {
-          if (maxSec == 0 || testMode) {
-            root = MethodProcessorRunnable.codeToJava(mt, varProc);
-          }
-          else {
-            MethodProcessorRunnable mtProc = new MethodProcessorRunnable(mt, varProc, DecompilerContext.getCurrentContext());
+        RootStatement root = null;
 
-            Thread mtThread = new Thread(mtProc, "Java decompiler");
-            long stopAt = System.currentTimeMillis() + maxSec * 1000;
+        boolean isError = false;
 
-            mtThread.start();
+        try {
+          if (mt.containsCode()) {
+            if (threads > 1) {
+              for (; submitted < lstMethods.size() && submitted < index + threads; submitted++) {
+                if (lstMethods.get(submitted).containsCode()) {
+                  processors[submitted] = createProcessor(lstMethods.get(submitted), varProcessors[submitted], varNames[submitted]);
+                  futures[submitted] = methodExecutor.submit(processors[submitted]);
+                }
+              }
+            }
+            else if (maxSec != 0 && !testMode) {
+              processors[index] = createProcessor(mt, varProc, vc);
+              futures[index] = methodExecutor.submit(processors[index]);
+            }
 
-            while (!mtProc.isFinished()) {
+            if (futures[index] == null) {
+              root = MethodProcessorRunnable.codeToJava(mt, varProc);
+            }
+            else {
               try {
-                synchronized (mtProc.lock) {
-                  mtProc.lock.wait(200);
+                if (maxSec == 0 || testMode) {
+                  futures[index].get();
+                }
+                else {
+                  // the limit counts from the moment the method is taken up by a thread, not from its time in the queue
+                  long remaining = processors[index].awaitStart() + TimeUnit.SECONDS.toNanos(maxSec) - System.nanoTime();
+                  futures[index].get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
                 }
               }
-              catch (InterruptedException e) {
-                killThread(mtThread);
-                throw e;
-              }
-
-              if (System.currentTimeMillis() >= stopAt) {
+              catch (TimeoutException e) {
                 String message = "Processing time limit exceeded for method " + mt.getName() + ", execution interrupted.";
                 DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.ERROR);
-                killThread(mtThread);
+                processors[index].abandon();
                 isError = true;
-                break;
               }
-            }
+              finally {
+                // interrupts a running method: processing stops at the next cancellation point
+                futures[index].cancel(true);
+                futures[index] = null;
+              }
+
+              if (!isError) {
+                root = processors[index].getResult();
+                processors[index].mergeResults(counter);
+                MethodProcessorRunnable.completeCode(mt, varProc, root);
+              }
+              else {
+                // the interrupted task may still be using its variable processor and names
+                varProc = varProcessors[index] = createVarProcessor(mt);
+                vc = varNames[index] = new VarNamesCollector();
+                MethodProcessorRunnable.setMethodContext(mt, varProc, vc, counter);
+              }
 
-            if (!isError) {
-              root = mtProc.getResult();
+              processors[index] = null;
             }
           }
-        }
-        else {
-          boolean thisVar = !mt.hasModifier(CodeConstants.ACC_STATIC);
-          MethodDescriptor md = MethodDescriptor.parseDescriptor(mt.getDescriptor());
-
-          int paramCount = 0;
-          if (thisVar) {
-            varProc.getThisVars().put(new VarVersionPair(0, 0), classStruct.qualifiedName);
-            paramCount = 1;
-          }
-          paramCount += md.params.length;
-
-          int varIndex = 0;
-          for (int i = 0; i < paramCount; i++) {
-            varProc.setVarName(new VarVersionPair(varIndex, 0), vc.getFreeName(varIndex));
+          else {
+            boolean thisVar = !mt.hasModifier(CodeConstants.ACC_STATIC);
+            MethodDescriptor md = MethodDescriptor.parseDescriptor(mt.getDescriptor());
 
+            int paramCount = 0;
             if (thisVar) {
-              if (i == 0) {
-                varIndex++;
+              varProc.getThisVars().put(new VarVersionPair(0, 0), classStruct.qualifiedName);
+              paramCount = 1;
+            }
+            paramCount += md.params.length;
+
+            int varIndex = 0;
+            for (int i = 0; i < paramCount; i++) {
+              varProc.setVarName(new VarVersionPair(varIndex, 0), vc.getFreeName(varIndex));
+
+              if (thisVar) {
+                if (i == 0) {
+                  varIndex++;
+                }
+                else {
+                  varIndex += md.params[i - 1].stackSize;
+                }
               }
               else {
-                varIndex += md.params[i - 1].stackSize;
+                varIndex += md.params[i].stackSize;
               }
             }
-            else {
-              varIndex += md.params[i].stackSize;
-            }
           }
         }
-      }
-      catch (Throwable ex) {
-        DecompilerContext.getLogger().writeMessage("Method " + mt.getName() + " " + mt.getDescriptor() + " couldn't be decompiled.", ex);
-        isError = true;
-      }
+        catch (Throwable ex) {
+          DecompilerContext.getLogger().writeMessage("Method " + mt.getName() + " " + mt.getDescriptor() + " couldn't be decompiled.", ex);
+          isError = true;
+        }
 
-      MethodWrapper methodWrapper = new MethodWrapper(root, varProc, mt, counter);
-      methodWrapper.decompiledWithErrors = isError;
+        MethodWrapper methodWrapper = new MethodWrapper(root, varProc, mt, counter);
+        methodWrapper.decompiledWithErrors = isError;
 
-      methods.addWithKey(methodWrapper, InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
+        methods.addWithKey(methodWrapper, InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
 
-      // rename vars so that no one has the same name as a field
-      varProc.refreshVarNames(new VarNamesCollector(setFieldNames));
+        // rename vars so that no one has the same name as a field
+        varProc.refreshVarNames(new VarNamesCollector(setFieldNames));
 
-      // if debug information present and should be used
-      if (DecompilerContext.getOption(IFernflowerPreferences.USE_DEBUG_VAR_NAMES)) {
-        StructLocalVariableTableAttribute attr = (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(
-          StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
+        // if debug information present and should be used
+        if (DecompilerContext.getOption(IFernflowerPreferences.USE_DEBUG_VAR_NAMES)) {
+          StructLocalVariableTableAttribute attr = (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(
+            StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
 
-        if (attr != null) {
-          varProc.setDebugVarNames(attr.getMapVarNames());
+          if (attr != null) {
+            varProc.setDebugVarNames(attr.getMapVarNames());
+          }
         }
-      }
 
-      //MethodProcessorRunnable.printMethod(root, mt.getClassStruct().qualifiedName+"."+mt.getName()+mt.getDescriptor(),varProc);
+        //MethodProcessorRunnable.printMethod(root, mt.getClassStruct().qualifiedName+"."+mt.getName()+mt.getDescriptor(),varProc);
 
-      DecompilerContext.getLogger().endMethod();
+        DecompilerContext.getLogger().endMethod();
+      }
+    }
+    finally {
+      for (Future<?> future : futures) {
+        if (future != null) {
+          future.cancel(true);
+        }
+      }
     }
 
     DecompilerContext.getLogger().endClass();
   }
 
-  @SuppressWarnings("deprecation")
-  private static void killThread(Thread thread) {
-    thread.stop();
+  private static MethodProcessorRunnable createProcessor(StructMethod mt, VarProcessor varProc, VarNamesCollector vc) {
+    // an interrupted method may run on until its next cancellation point, so it must not share the property map
+    DecompilerContext context = DecompilerContext.cloneContext(DecompilerContext.getCurrentContext());
+    return new MethodProcessorRunnable(mt, varProc, vc, context, DecompilerContext.getBytecodeSourceMapper() != null);
+  }
+
+  private static VarProcessor createVarProcessor(StructMethod mt) {
+    VarProcessor varProc = new VarProcessor();
+
+    // if debug information present and should be used
+    if (DecompilerContext.getOption(IFernflowerPreferences.USE_DEBUG_VAR_NAMES)) {
+      StructLocalVariableTableAttribute attr = (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(
+        StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
+
+      if (attr != null) {
+        varProc.setLVT(attr.getLVT());
+      }
+    }
+
+    return varProc;
+  }
+
+  static synchronized void addMethodThread() {
+    int threads = methodExecutor.getCorePoolSize() + 1;
+    methodExecutor.setMaximumPoolSize(threads);
+    methodExecutor.setCorePoolSize(threads);
+  }
+
+  static synchronized void releaseMethodThread() {
+    int threads = methodExecutor.getCorePoolSize() - 1;
+    methodExecutor.setCorePoolSize(threads);
+    methodExecutor.setMaximumPoolSize(threads);
+  }
+
+  private static ThreadPoolExecutor createMethodExecutor() {
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                                         new DecompilerThreadFactory("Java decompiler method"));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
   }
 
   public MethodWrapper getMethodWrapper(String name, String descriptor) {
@@ -55,6 +55,10 @@ public class LambdaProcessor {
       return false;
     }
 
+    if (!cl.hasCodeFeature(StructMethod.CODE_INVOKEDYNAMIC)) {
+      return false; // known from the class file pre-scan
+    }
+
     StructBootstrapMethodsAttribute bootstrap =
       (StructBootstrapMethodsAttribute)cl.getAttributes().getWithKey(StructGeneralAttribute.ATTRIBUTE_BOOTSTRAP_METHODS);
     if (bootstrap == null || bootstrap.getMethodsNumber() == 0) {
@@ -82,6 +86,10 @@ public class LambdaProcessor {
 
     // iterate over code and find invocations of bootstrap methods. Replace them with anonymous classes.
     for (StructMethod mt : cl.getMethods()) {
+      if (!mt.hasCodeFeature(StructMethod.CODE_INVOKEDYNAMIC)) {
+        continue;
+      }
+
       mt.expandData();
 
       InstructionSequence seq = mt.getInstructionSequence();
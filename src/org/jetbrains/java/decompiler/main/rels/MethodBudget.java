@@ -0,0 +1,108 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.rels;
+
+import org.jetbrains.java.decompiler.code.InstructionSequence;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.struct.StructMethod;
+
+// Limits the work spent on the statement structure of a single method. Passes report their iterations and the
+// statements they create; once the work or memory limit is exceeded, optional passes are skipped or replaced with
+// cheaper ones, so that the method is still decompiled, just in a less polished form. Code copied to restructure
+// irreducible control flow is limited separately, relative to the size of the method.
+public class MethodBudget {
+  private static final MethodBudget UNLIMITED = new MethodBudget(null, 0, 0, 0);
+
+  private final StructMethod method;
+  private final long maxWork;
+  private final long maxBytes;
+  private final long startBytes;
+  private final int maxGrowth;
+  private long work;
+  private boolean exhausted;
+  private long copiedInstructions;
+
+  private MethodBudget(StructMethod method, long maxWork, long maxBytes, int maxGrowth) {
+    this.method = method;
+    this.maxWork = maxWork;
+    this.maxBytes = maxBytes;
+    this.maxGrowth = maxGrowth;
+    this.startBytes = maxBytes > 0 ? PassStatistics.getAllocatedBytes() : 0;
+  }
+
+  public static MethodBudget start(StructMethod mt) {
+    long maxWork = Long.parseLong(DecompilerContext.getProperty(IFernflowerPreferences.METHOD_WORK_BUDGET).toString());
+    long maxBytes = Long.parseLong(DecompilerContext.getProperty(IFernflowerPreferences.METHOD_MEMORY_BUDGET).toString()) * 1024L * 1024L;
+    int maxGrowth = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.IRREDUCIBLE_SPLIT_LIMIT).toString());
+
+    MethodBudget budget = maxWork > 0 || maxBytes > 0 || maxGrowth > 0 ? new MethodBudget(mt, maxWork, maxBytes, maxGrowth) : UNLIMITED;
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_BUDGET, budget);
+    return budget;
+  }
+
+  public static void finish() {
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_BUDGET, null);
+  }
+
+  public static MethodBudget current() {
+    MethodBudget budget = (MethodBudget)DecompilerContext.getProperty(DecompilerContext.CURRENT_METHOD_BUDGET);
+    return budget == null ? UNLIMITED : budget;
+  }
+
+  public void charge(int units) {
+    if (this != UNLIMITED) {
+      work += units;
+    }
+  }
+
+  // charges one round of a fixpoint loop, false if the loop should give up
+  public boolean iterate() {
+    charge(1);
+    return !isExhausted();
+  }
+
+  // charges instructions about to be copied, false if they would grow the method beyond the limit
+  public boolean chargeCopiedCode(int instructions) {
+    if (this == UNLIMITED) {
+      return true;
+    }
+
+    if (maxGrowth > 0) {
+      InstructionSequence seq = method.getInstructionSequence();
+      long limit = seq == null ? 0 : (long)seq.length() * maxGrowth / 100;
+      if (copiedInstructions + instructions > limit) {
+        return false;
+      }
+    }
+
+    copiedInstructions += instructions;
+    return true;
+  }
+
+  public boolean isExhausted() {
+    if (this != UNLIMITED && !exhausted) {
+      if ((maxWork > 0 && work > maxWork) || (maxBytes > 0 && PassStatistics.getAllocatedBytes() - startBytes > maxBytes)) {
+        exhausted = true;
+        String message = "Processing budget exceeded for method " + method.getName() + ", remaining passes simplified.";
+        DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.WARN);
+      }
+    }
+    return exhausted;
+  }
+}
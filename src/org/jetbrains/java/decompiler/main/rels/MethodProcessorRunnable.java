@@ -20,7 +20,10 @@ import org.jetbrains.java.decompiler.code.InstructionSequence;
 import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
+import org.jetbrains.java.decompiler.main.collectors.BytecodeSourceMapper;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.collectors.PassStatistics;
+import org.jetbrains.java.decompiler.main.collectors.VarNamesCollector;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.code.DeadCodeHelper;
@@ -40,59 +43,129 @@ import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarProcessor;
 import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructMethod;
+import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 
 import java.io.IOException;
 import java.util.BitSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MethodProcessorRunnable implements Runnable {
 
-  private static RootStatement currentRoot;
-
-  private static VarProcessor vp;
-
-  public final Object lock = new Object();
+  // debugging aid for printMethod(String), kept per thread as methods may be processed concurrently
+  private static final ThreadLocal<RootStatement> currentRoot = new ThreadLocal<RootStatement>();
 
   private final StructMethod method;
   private final VarProcessor varProc;
-  private final DecompilerContext parentContext;
+  private final VarNamesCollector varNames;
+  private final CounterContainer counter = new CounterContainer();
+  private final BytecodeSourceMapper mapper;
+  private final DecompilerContext context;
 
   private volatile RootStatement root;
   private volatile Throwable error;
-  private volatile boolean finished = false;
 
-  public MethodProcessorRunnable(StructMethod method, VarProcessor varProc, DecompilerContext parentContext) {
+  private static final int STATE_RUNNING = 0;
+  private static final int STATE_FINISHED = 1;
+  private static final int STATE_ABANDONED = 2;
+
+  private final CountDownLatch started = new CountDownLatch(1);
+  private volatile long startTime;
+  private final AtomicInteger state = new AtomicInteger(STATE_RUNNING);
+
+  // The context must be private to the task, it is filled with the method values when the task starts. Counters and
+  // line mappings are collected apart as well and only taken over by mergeResults(), so that a task which runs on
+  // after its time limit does not touch the state of the class.
+  public MethodProcessorRunnable(StructMethod method, VarProcessor varProc, VarNamesCollector varNames, DecompilerContext context,
+                                 boolean mapLines) {
     this.method = method;
     this.varProc = varProc;
-    this.parentContext = parentContext;
+    this.varNames = varNames;
+    this.context = context;
+    this.mapper = mapLines ? new BytecodeSourceMapper() : null;
   }
 
   @Override
   public void run() {
-    DecompilerContext.setCurrentContext(parentContext);
+    startTime = System.nanoTime();
+    started.countDown();
+
+    DecompilerContext.setCurrentContext(context);
+    setMethodContext(method, varProc, varNames, counter);
+    DecompilerContext.setBytecodeSourceMapper(mapper);
 
     error = null;
     root = null;
 
     try {
-      root = codeToJava(method, varProc);
-    }
-    catch (ThreadDeath ex) {
-      throw ex;
+      root = processCode(method, varProc);
     }
     catch (Throwable ex) {
       error = ex;
     }
     finally {
       DecompilerContext.setCurrentContext(null);
+      if (!state.compareAndSet(STATE_RUNNING, STATE_FINISHED)) {
+        ClassWrapper.releaseMethodThread();
+      }
+    }
+  }
+
+  // waits until the task is taken up by a thread, returns the System.nanoTime() of that moment
+  public long awaitStart() throws InterruptedException {
+    started.await();
+    return startTime;
+  }
+
+  // Called once the task has run past its time limit. A task that is still running keeps its thread until the next
+  // cancellation point, the pool is given an extra thread until then.
+  public void abandon() {
+    if (state.compareAndSet(STATE_RUNNING, STATE_ABANDONED)) {
+      ClassWrapper.addMethodThread();
     }
+  }
+
+  public static void setMethodContext(StructMethod mt, VarProcessor varProc, VarNamesCollector varNames, CounterContainer counter) {
+    DecompilerContext.setVarNamesCollector(varNames);
+    DecompilerContext.setCounterContainer(counter);
 
-    finished = true;
-    synchronized (lock) {
-      lock.notifyAll();
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD, mt);
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_DESCRIPTOR, MethodDescriptor.parseDescriptor(mt.getDescriptor()));
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_VAR_PROCESSOR, varProc);
+  }
+
+  // cancellation point for the processing loops: a method whose time limit is exceeded gets its thread interrupted
+  public static void checkInterrupted() {
+    if (Thread.interrupted()) {
+      throw new CancellationException("Method processing interrupted");
     }
   }
 
   public static RootStatement codeToJava(StructMethod mt, VarProcessor varProc) throws IOException {
+    RootStatement root = processCode(mt, varProc);
+    completeCode(mt, varProc, root);
+    return root;
+  }
+
+  // Builds the statement structure of a method. This is the expensive part of method processing and depends on
+  // the method alone, so it may run concurrently for the methods of a class.
+  public static RootStatement processCode(StructMethod mt, VarProcessor varProc) throws IOException {
+    PassStatistics.Timer timer = startTimer(mt);
+    MethodBudget budget = MethodBudget.start(mt);
+    try {
+      return processCode(mt, varProc, timer, budget);
+    }
+    finally {
+      // pooled threads must not keep the statements of the method alive
+      currentRoot.remove();
+      MethodBudget.finish();
+      timer.finish();
+    }
+  }
+
+  private static RootStatement processCode(StructMethod mt, VarProcessor varProc, PassStatistics.Timer timer, MethodBudget budget)
+    throws IOException {
     StructClass cl = mt.getClassStruct();
 
     boolean isInitializer = CodeConstants.CLINIT_NAME.equals(mt.getName()); // for now static initializer only
@@ -100,9 +173,12 @@ public class MethodProcessorRunnable implements Runnable {
     mt.expandData();
     InstructionSequence seq = mt.getInstructionSequence();
     ControlFlowGraph graph = new ControlFlowGraph(seq);
+    timer.lap("buildGraph");
 
     DeadCodeHelper.removeDeadBlocks(graph);
+    timer.lap("removeDeadBlocks");
     graph.inlineJsr(mt);
+    timer.lap("inlineJsr");
 
     // TODO: move to the start, before jsr inlining
     DeadCodeHelper.connectDummyExitBlock(graph);
@@ -126,6 +202,7 @@ public class MethodProcessorRunnable implements Runnable {
     ExceptionDeobfuscator.insertEmptyExceptionHandlerBlocks(graph);
 
     DeadCodeHelper.mergeBasicBlocks(graph);
+    timer.lap("cleanUpGraph");
 
     DecompilerContext.getCounterContainer().setCounter(CounterContainer.VAR_COUNTER, mt.getLocalVariables());
 
@@ -133,55 +210,88 @@ public class MethodProcessorRunnable implements Runnable {
       DecompilerContext.getLogger().writeMessage("Heavily obfuscated exception ranges found!", IFernflowerLogger.Severity.WARN);
     }
 
+    checkInterrupted();
+
     RootStatement root = DomHelper.parseGraph(graph, mt);
-    MethodProcessorRunnable.currentRoot = root;
-    MethodProcessorRunnable.vp = varProc;
+    timer.lap("parseGraph");
+    currentRoot.set(root);
     FinallyProcessor fProc = new FinallyProcessor(varProc);
-    while (fProc.iterateGraph(mt, root, graph)) {
+    // finally blocks left over once the budget is used up are written as catch-all handlers
+    boolean hasHandlers = mt.hasCodeFeature(StructMethod.CODE_EXCEPTIONS);
+    while (hasHandlers && budget.iterate() && fProc.iterateGraph(mt, root, graph)) {
+      timer.lap("finally");
+      checkInterrupted();
       root = DomHelper.parseGraph(graph, mt);
+      timer.lap("parseGraph");
     }
+    timer.lap("finally");
 
     // remove synchronized exception handler
     // not until now because of comparison between synchronized statements in the finally cycle
-    DomHelper.removeSynchronizedHandler(root);
+    if (mt.hasCodeFeature(StructMethod.CODE_MONITOR)) {
+      DomHelper.removeSynchronizedHandler(root);
+    }
+    timer.lap("removeSynchronizedHandler");
 
     //		LabelHelper.lowContinueLabels(root, new HashSet<StatEdge>());
 
     SequenceHelper.condenseSequences(root);
 
     ClearStructHelper.clearStatements(root);
+    timer.lap("condenseSequences");
 
     ExprProcessor proc = new ExprProcessor();
     proc.processStatement(root, cl);
+    timer.lap("processExprents");
 
     SequenceHelper.condenseSequences(root);
+    timer.lap("condenseSequences");
 
     while (true) {
+      checkInterrupted();
+
       StackVarsProcessor stackProc = new StackVarsProcessor();
       stackProc.simplifyStackVars(root, mt, cl);
+      timer.lap("simplifyStackVars");
 
       varProc.setVarVersions(root);
+      timer.lap("setVarVersions");
 
-      if (!new PPandMMHelper(varProc).findPPandMM(root)) {
+      budget.charge(1);
+
+      boolean found = new PPandMMHelper(varProc).findPPandMM(root);
+      timer.lap("findPPandMM");
+      if (!found) {
         break;
       }
     }
 
     while (true) {
       LabelHelper.cleanUpEdges(root);
+      timer.lap("cleanUpEdges");
+
+      // loop and condition simplifications are optional, leaving the loop early keeps a valid structure
+      while (budget.iterate()) {
+        checkInterrupted();
 
-      while (true) {
-        if (EliminateLoopsHelper.eliminateLoops(root, cl)) {
+        boolean changed = EliminateLoopsHelper.eliminateLoops(root, cl);
+        timer.lap("eliminateLoops");
+        if (changed) {
           continue;
         }
 
-        if (LoopExtractHelper.extractLoops(root)) {
+        changed = LoopExtractHelper.extractLoops(root);
+        timer.lap("extractLoops");
+        if (changed) {
           continue;
         }
 
         MergeHelper.enhanceLoops(root);
+        timer.lap("enhanceLoops");
 
-        if (!IfHelper.mergeAllIfs(root)) {
+        changed = IfHelper.mergeAllIfs(root);
+        timer.lap("mergeAllIfs");
+        if (!changed) {
           break;
         }
       }
@@ -195,16 +305,22 @@ public class MethodProcessorRunnable implements Runnable {
 
           varProc.setVarVersions(root);
         }
+        timer.lap("removeHardcodedChecks");
       }
 
       LabelHelper.identifyLabels(root);
+      timer.lap("identifyLabels");
 
-      if (InlineSingleBlockHelper.inlineSingleBlocks(root)) {
+      boolean inlined = InlineSingleBlockHelper.inlineSingleBlocks(root);
+      timer.lap("inlineSingleBlocks");
+      if (inlined) {
         continue;
       }
 
       // initializer may have at most one return point, so no transformation of method exits permitted
-      if (isInitializer || !ExitHelper.condenseExits(root)) {
+      boolean condensed = !isInitializer && ExitHelper.condenseExits(root);
+      timer.lap("condenseExits");
+      if (!condensed) {
         break;
       }
 
@@ -214,21 +330,48 @@ public class MethodProcessorRunnable implements Runnable {
       //			}
     }
 
+    checkInterrupted();
+
     ExitHelper.removeRedundantReturns(root);
 
     SecondaryFunctionsHelper.identifySecondaryFunctions(root);
 
-    SynchronizedHelper.cleanSynchronizedVar(root);
+    if (mt.hasCodeFeature(StructMethod.CODE_MONITOR)) {
+      SynchronizedHelper.cleanSynchronizedVar(root);
+    }
+    timer.lap("secondaryFunctions");
 
-    varProc.setVarDefinitions(root);
+    return root;
+  }
+
+  // Defines and names variables. Variable types are resolved against the import collector of the class, which is
+  // order-sensitive, so this part must run for the methods of a class one by one in declaration order.
+  public static void completeCode(StructMethod mt, VarProcessor varProc, RootStatement root) throws IOException {
+    PassStatistics.Timer timer = startTimer(mt);
+    currentRoot.set(root);
+    try {
+      varProc.setVarDefinitions(root);
+      timer.lap("setVarDefinitions");
 
-    // must be the last invocation, because it makes the statement structure inconsistent
-    // FIXME: new edge type needed
-    LabelHelper.replaceContinueWithBreak(root);
+      // must be the last invocation, because it makes the statement structure inconsistent
+      // FIXME: new edge type needed
+      LabelHelper.replaceContinueWithBreak(root);
+      timer.lap("replaceContinueWithBreak");
+    }
+    finally {
+      currentRoot.remove();
+      timer.finish();
+    }
 
     mt.releaseResources();
+  }
 
-    return root;
+  private static PassStatistics.Timer startTimer(StructMethod mt) {
+    PassStatistics statistics = DecompilerContext.getPassStatistics();
+    if (statistics == null) {
+      return PassStatistics.Timer.DISABLED;
+    }
+    return statistics.startMethod(mt.getClassStruct().qualifiedName, mt.getName() + mt.getDescriptor());
   }
 
   public RootStatement getResult() throws Throwable {
@@ -237,12 +380,16 @@ public class MethodProcessorRunnable implements Runnable {
     return root;
   }
 
-  public boolean isFinished() {
-    return finished;
+  // to be called on the thread of the class once the task has completed
+  public void mergeResults(CounterContainer target) {
+    target.setCounters(counter);
+    if (mapper != null) {
+      DecompilerContext.getBytecodeSourceMapper().addMappings(mapper);
+    }
   }
 
   public static void printMethod(String desc) {
-      printMethod(currentRoot, desc, vp);
+      printMethod(currentRoot.get(), desc, (VarProcessor)DecompilerContext.getProperty(DecompilerContext.CURRENT_VAR_PROCESSOR));
   }
   public static void printMethod(Statement root, String name, VarProcessor varProc) {
     System.out.println(name + " {");
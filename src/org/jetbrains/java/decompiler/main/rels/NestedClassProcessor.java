@@ -266,38 +266,36 @@ public class NestedClassProcessor {
 
     graph.iterateExprents(new DirectGraph.ExprentIterator() {
       public int processExprent(Exprent exprent) {
+        exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+          public boolean visit(Exprent expr, Exprent parent) {
+            if (expr.type == Exprent.EXPRENT_NEW) {
+              NewExprent new_expr = (NewExprent)expr;
+              if (new_expr.isLambda() && lambda_class_type.equals(new_expr.getNewType())) {
 
-        List<Exprent> lst = exprent.getAllExprents(true);
-        lst.add(exprent);
+                InvocationExprent inv_dynamic = new_expr.getConstructor();
 
-        for (Exprent expr : lst) {
+                int param_index = is_static_lambda_content ? 0 : 1;
+                int varindex = is_static_lambda_content ? 0 : 1;
 
-          if (expr.type == Exprent.EXPRENT_NEW) {
-            NewExprent new_expr = (NewExprent)expr;
-            if (new_expr.isLambda() && lambda_class_type.equals(new_expr.getNewType())) {
+                for (int i = 0; i < vars_count; ++i) {
 
-              InvocationExprent inv_dynamic = new_expr.getConstructor();
+                  Exprent param = inv_dynamic.getLstParameters().get(param_index + i);
 
-              int param_index = is_static_lambda_content ? 0 : 1;
-              int varindex = is_static_lambda_content ? 0 : 1;
+                  if (param.type == Exprent.EXPRENT_VAR) {
+                    VarVersionPair enc_varpaar = new VarVersionPair((VarExprent)param);
+                    String enc_varname = encmeth.varproc.getVarName(enc_varpaar);
 
-              for (int i = 0; i < vars_count; ++i) {
-
-                Exprent param = inv_dynamic.getLstParameters().get(param_index + i);
-
-                if (param.type == Exprent.EXPRENT_VAR) {
-                  VarVersionPair enc_varpaar = new VarVersionPair((VarExprent)param);
-                  String enc_varname = encmeth.varproc.getVarName(enc_varpaar);
+                    //meth.varproc.setVarName(new VarVersionPair(varindex, 0), enc_varname);
+                    mapNewNames.put(new VarVersionPair(varindex, 0), enc_varname);
+                  }
 
-                  //meth.varproc.setVarName(new VarVersionPair(varindex, 0), enc_varname);
-                  mapNewNames.put(new VarVersionPair(varindex, 0), enc_varname);
+                  varindex += md_content.params[i].stackSize;
                 }
-
-                varindex += md_content.params[i].stackSize;
               }
             }
+            return true;
           }
-        }
+        });
 
         return 0;
       }
@@ -1118,49 +1116,44 @@ public class NestedClassProcessor {
     return retstat;
   }
 
-  private static boolean searchForClass(Exprent exprent, VarType classtype) {
-
-    List<Exprent> lst = exprent.getAllExprents(true);
-    lst.add(exprent);
-
-    String classname = classtype.value;
-
-    for (Exprent expr : lst) {
-
-      boolean res = false;
-
-      switch (expr.type) {
-        case Exprent.EXPRENT_CONST:
-          ConstExprent cexpr = (ConstExprent)expr;
-          res = (VarType.VARTYPE_CLASS.equals(cexpr.getConstType()) && classname.equals(cexpr.getValue()) ||
-                 classtype.equals(cexpr.getConstType()));
-          break;
-        case Exprent.EXPRENT_FIELD:
-          res = classname.equals(((FieldExprent)expr).getClassname());
-          break;
-        case Exprent.EXPRENT_INVOCATION:
-          res = classname.equals(((InvocationExprent)expr).getClassname());
-          break;
-        case Exprent.EXPRENT_NEW:
-          VarType newType = ((NewExprent)expr).getNewType();
-          res = newType.type == CodeConstants.TYPE_OBJECT && classname.equals(newType.value);
-          break;
-        case Exprent.EXPRENT_VAR:
-          VarExprent vexpr = (VarExprent)expr;
-          if (vexpr.isDefinition()) {
-            VarType vtype = vexpr.getVarType();
-            if (classtype.equals(vtype) || (vtype.arrayDim > 0 && classtype.value.equals(vtype.value))) {
-              res = true;
+  private static boolean searchForClass(Exprent exprent, final VarType classtype) {
+
+    final String classname = classtype.value;
+
+    return !exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      public boolean visit(Exprent expr, Exprent parent) {
+
+        boolean res = false;
+
+        switch (expr.type) {
+          case Exprent.EXPRENT_CONST:
+            ConstExprent cexpr = (ConstExprent)expr;
+            res = (VarType.VARTYPE_CLASS.equals(cexpr.getConstType()) && classname.equals(cexpr.getValue()) ||
+                   classtype.equals(cexpr.getConstType()));
+            break;
+          case Exprent.EXPRENT_FIELD:
+            res = classname.equals(((FieldExprent)expr).getClassname());
+            break;
+          case Exprent.EXPRENT_INVOCATION:
+            res = classname.equals(((InvocationExprent)expr).getClassname());
+            break;
+          case Exprent.EXPRENT_NEW:
+            VarType newType = ((NewExprent)expr).getNewType();
+            res = newType.type == CodeConstants.TYPE_OBJECT && classname.equals(newType.value);
+            break;
+          case Exprent.EXPRENT_VAR:
+            VarExprent vexpr = (VarExprent)expr;
+            if (vexpr.isDefinition()) {
+              VarType vtype = vexpr.getVarType();
+              if (classtype.equals(vtype) || (vtype.arrayDim > 0 && classtype.value.equals(vtype.value))) {
+                res = true;
+              }
             }
-          }
-      }
+        }
 
-      if (res) {
-        return true;
+        return !res;
       }
-    }
-
-    return false;
+    });
   }
 
 
@@ -21,20 +21,20 @@ import org.jetbrains.java.decompiler.code.cfg.ExceptionRangeCFG;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.rels.MethodProcessorRunnable;
+import org.jetbrains.java.decompiler.modules.decompiler.decompose.FastDominatorTree;
 import org.jetbrains.java.decompiler.modules.decompiler.decompose.FastExtendedPostdominanceHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.deobfuscator.IrreducibleCFGDeobfuscator;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.*;
 import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.util.DotExporter;
-import org.jetbrains.java.decompiler.util.FastFixedSetFactory;
-import org.jetbrains.java.decompiler.util.FastFixedSetFactory.FastFixedSet;
-import org.jetbrains.java.decompiler.util.InterpreterUtil;
 import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
 import java.util.*;
 
 public class DomHelper {
 
+  // rounds of node splitting without progress, the last round may dispatch a loop with several entries instead
+  private static final int SPLITTING_ROUNDS = 5;
 
   private static RootStatement graphToStatement(ControlFlowGraph graph) {
 
@@ -106,78 +106,65 @@ public class DomHelper {
 
   public static VBStyleCollection<List<Integer>, Integer> calcPostDominators(Statement container) {
 
-    HashMap<Statement, FastFixedSet<Statement>> lists = new HashMap<Statement, FastFixedSet<Statement>>();
-
-    StrongConnectivityHelper schelper = new StrongConnectivityHelper(container);
-    List<List<Statement>> components = schelper.getComponents();
+    List<List<Statement>> components = StrongConnectivityHelper.componentsOf(container);
 
     List<Statement> lstStats = container.getPostReversePostOrderList(StrongConnectivityHelper.getExitReps(components));
 
-    FastFixedSetFactory<Statement> factory = new FastFixedSetFactory<Statement>(lstStats);
-
-    FastFixedSet<Statement> setFlagNodes = factory.spawnEmptySet();
-    setFlagNodes.setAllElements();
-
-    FastFixedSet<Statement> initSet = factory.spawnEmptySet();
-    initSet.setAllElements();
+    // statements of an exit component postdominate each other, each component becomes a single root node of the
+    // postdominator tree
+    List<List<Statement>> lstNodes = new ArrayList<List<Statement>>();
+    HashMap<Statement, Integer> mapNodes = new HashMap<Statement, Integer>();
+    List<Integer> lstRoots = new ArrayList<Integer>();
 
     for (List<Statement> lst : components) {
-      FastFixedSet<Statement> tmpSet;
-
       if (StrongConnectivityHelper.isExitComponent(lst)) {
-        tmpSet = factory.spawnEmptySet();
-        tmpSet.addAll(lst);
+        lstRoots.add(lstNodes.size());
+        for (Statement stat : lst) {
+          mapNodes.put(stat, lstNodes.size());
+        }
+        lstNodes.add(lst);
       }
       else {
-        tmpSet = initSet.getCopy();
-      }
-
-      for (Statement stat : lst) {
-        lists.put(stat, tmpSet);
+        for (Statement stat : lst) {
+          mapNodes.put(stat, lstNodes.size());
+          lstNodes.add(Collections.singletonList(stat));
+        }
       }
     }
 
-    do {
-
-      for (Statement stat : lstStats) {
+    int[] order = getReversedGraphOrder(lstNodes, mapNodes, lstRoots);
 
-        if (!setFlagNodes.contains(stat)) {
-          continue;
-        }
-        setFlagNodes.remove(stat);
-
-        FastFixedSet<Statement> doms = lists.get(stat);
-        FastFixedSet<Statement> domsSuccs = factory.spawnEmptySet();
+    int count = lstNodes.size();
+    int[] nodeByOrder = new int[count];
+    for (int i = 0; i < count; i++) {
+      nodeByOrder[order[i]] = i;
+    }
 
-        List<Statement> lstSuccs = stat.getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD);
-        for (int j = 0; j < lstSuccs.size(); j++) {
-          Statement succ = lstSuccs.get(j);
-          FastFixedSet<Statement> succlst = lists.get(succ);
+    // predecessors in the reversed graph are the successors
+    int[][] predecessors = new int[count][];
+    boolean[] roots = new boolean[count];
+    for (Integer root : lstRoots) {
+      roots[order[root]] = true;
+    }
 
-          if (j == 0) {
-            domsSuccs.union(succlst);
-          }
-          else {
-            domsSuccs.intersection(succlst);
-          }
-        }
+    for (int i = 0; i < count; i++) {
+      int node = nodeByOrder[i];
 
-        if (!domsSuccs.contains(stat)) {
-          domsSuccs.add(stat);
+      List<Integer> lstSuccs = new ArrayList<Integer>();
+      for (Statement stat : lstNodes.get(node)) {
+        for (Statement succ : stat.getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD)) {
+          Integer succNode = mapNodes.get(succ);
+          lstSuccs.add(succNode == null || succNode == node ? -1 : order[succNode]);
         }
+      }
 
-        if (!InterpreterUtil.equalObjects(domsSuccs, doms)) {
-
-          lists.put(stat, domsSuccs);
-
-          List<Statement> lstPreds = stat.getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_BACKWARD);
-          for (Statement pred : lstPreds) {
-            setFlagNodes.add(pred);
-          }
-        }
+      int[] preds = predecessors[i] = new int[lstSuccs.size()];
+      for (int j = 0; j < preds.length; j++) {
+        preds[j] = lstSuccs.get(j);
       }
     }
-    while (!setFlagNodes.isEmpty());
+
+    FastDominatorTree tree = new FastDominatorTree(predecessors, roots);
 
     VBStyleCollection<List<Integer>, Integer> ret = new VBStyleCollection<List<Integer>, Integer>();
     List<Statement> lstRevPost = container.getReversePostOrderList(); // sort order crucial!
@@ -190,8 +177,17 @@ public class DomHelper {
     for (Statement st : lstStats) {
 
       List<Integer> lstPosts = new ArrayList<Integer>();
-      for (Statement stt : lists.get(st)) {
-        lstPosts.add(stt.id);
+      int index = order[mapNodes.get(st)];
+      while (true) {
+        for (Statement stt : lstNodes.get(nodeByOrder[index])) {
+          lstPosts.add(stt.id);
+        }
+
+        int ipdom = tree.getIDom(index);
+        if (ipdom == index) {
+          break;
+        }
+        index = ipdom;
       }
 
       Collections.sort(lstPosts, new Comparator<Integer>() {
@@ -210,6 +206,69 @@ public class DomHelper {
     return ret;
   }
 
+  // reverse post order of the reversed graph, rooted at the exit components. Nodes that cannot reach any of them are
+  // put last.
+  private static int[] getReversedGraphOrder(List<List<Statement>> lstNodes, HashMap<Statement, Integer> mapNodes,
+                                             List<Integer> lstRoots) {
+
+    int count = lstNodes.size();
+    int[] order = new int[count];
+    boolean[] visited = new boolean[count];
+
+    List<Integer> lstPostOrder = new ArrayList<Integer>(count);
+
+    LinkedList<Integer> stackNode = new LinkedList<Integer>();
+    LinkedList<List<Statement>> stackPreds = new LinkedList<List<Statement>>();
+
+    for (Integer root : lstRoots) {
+      if (visited[root]) {
+        continue;
+      }
+      visited[root] = true;
+      stackNode.add(root);
+      stackPreds.add(getNodePredecessors(lstNodes.get(root)));
+
+      while (!stackNode.isEmpty()) {
+        List<Statement> lstPreds = stackPreds.getLast();
+
+        if (lstPreds.isEmpty()) {
+          lstPostOrder.add(stackNode.removeLast());
+          stackPreds.removeLast();
+        }
+        else {
+          Integer pred = mapNodes.get(lstPreds.remove(lstPreds.size() - 1));
+          if (pred != null && !visited[pred]) {
+            visited[pred] = true;
+            stackNode.add(pred);
+            stackPreds.add(getNodePredecessors(lstNodes.get(pred)));
+          }
+        }
+      }
+    }
+
+    int index = 0;
+    for (int i = lstPostOrder.size() - 1; i >= 0; i--) {
+      order[lstPostOrder.get(i)] = index++;
+    }
+    for (int i = 0; i < count; i++) {
+      if (!visited[i]) {
+        order[i] = index++;
+      }
+    }
+
+    return order;
+  }
+
+  private static List<Statement> getNodePredecessors(List<Statement> lstNode) {
+    List<Statement> lst = new ArrayList<Statement>();
+    for (Statement stat : lstNode) {
+      lst.addAll(stat.getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_BACKWARD));
+    }
+    // visited in edge order
+    Collections.reverse(lst);
+    return lst;
+  }
+
   public static RootStatement parseGraph(ControlFlowGraph graph, StructMethod mt) {
 
     RootStatement root = graphToStatement(graph);
@@ -224,7 +283,9 @@ public class DomHelper {
     root.buildMonitorFlags();
 
     // build synchronized statements
-    buildSynchronized(root);
+    if (mt.hasCodeFeature(StructMethod.CODE_MONITOR)) {
+      buildSynchronized(root);
+    }
 
     return root;
   }
@@ -273,7 +334,7 @@ public class DomHelper {
               if (ca.getFirst().isContainsMonitorExit() && ca.getHandler().isContainsMonitorExit()) {
 
                 // remove the head block from sequence
-                current.removeSuccessor(current.getSuccessorEdges(Statement.STATEDGE_DIRECT_ALL).get(0));
+                current.removeSuccessor(current.getFirstSuccessor(Statement.STATEDGE_DIRECT_ALL));
 
                 for (StatEdge edge : current.getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL)) {
                   current.removePredecessor(edge);
@@ -331,10 +392,11 @@ public class DomHelper {
     for (int mapstage = 0; mapstage < 2; mapstage++) {
 
       for (int reducibility = 0;
-           reducibility < 5;
+           reducibility < SPLITTING_ROUNDS;
            reducibility++) { // FIXME: implement proper node splitting. For now up to 5 nodes in sequence are splitted.
 
         if (reducibility > 0) {
+          MethodProcessorRunnable.checkInterrupted();
 
           //					try {
           //						DotExporter.toDotFile(general, new File("c:\\Temp\\stat1.dot"));
@@ -342,7 +404,7 @@ public class DomHelper {
 
           // take care of irreducible control flow graphs
           if (IrreducibleCFGDeobfuscator.isStatementIrreducible(general)) {
-            if (!IrreducibleCFGDeobfuscator.splitIrreducibleNode(general)) {
+            if (!IrreducibleCFGDeobfuscator.splitIrreducibleNode(general, reducibility == SPLITTING_ROUNDS - 1)) {
               DecompilerContext.getLogger().writeMessage("Irreducible statement cannot be decomposed!", IFernflowerLogger.Severity.ERROR);
               break;
             }
@@ -367,6 +429,7 @@ public class DomHelper {
           boolean forceall = i != 0;
 
           while (true) {
+            MethodProcessorRunnable.checkInterrupted();
 
             if (findSimpleStatements(general, mapExtPost)) {
               reducibility = 0;
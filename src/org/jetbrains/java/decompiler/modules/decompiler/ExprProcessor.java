@@ -815,7 +815,7 @@ public class ExprProcessor implements CodeConstants {
         }
 
         if (edge.labeled) {
-          buf.append(" label").append(edge.closure.getStartEndRange().start);
+          buf.append(" ").append(edge.closure.getLabel());
         }
         buf.append(";").appendLineSeparator();
         tracer.incrementCurrentSourceLine();
@@ -269,7 +269,7 @@ public class LabelHelper {
           Statement stnext = swst.getCaseStatements().get(i + 1);
 
           if (stnext.getExprents() != null && stnext.getExprents().isEmpty()) {
-            stnext = stnext.getAllSuccessorEdges().get(0).getDestination();
+            stnext = stnext.getFirstSuccessor(Statement.STATEDGE_ALL).getDestination();
           }
           processEdgesWithNext(stt, setExplicitEdges(stt), stnext);
         }
@@ -278,7 +278,7 @@ public class LabelHelper {
         if (last >= 0) { // empty switch possible
           Statement stlast = swst.getCaseStatements().get(last);
           if (stlast.getExprents() != null && stlast.getExprents().isEmpty()) {
-            StatEdge edge = stlast.getAllSuccessorEdges().get(0);
+            StatEdge edge = stlast.getFirstSuccessor(Statement.STATEDGE_ALL);
             mapEdges.put(edge.getDestination(), new ArrayList<StatEdge>(Arrays.asList(new StatEdge[]{edge})));
           }
           else {
@@ -358,7 +358,7 @@ public class LabelHelper {
         }
       }
 
-      if (stat.getAllSuccessorEdges().isEmpty() && !implfound) {
+      if (!stat.hasSuccessors(Statement.STATEDGE_ALL) && !implfound) {
         List<StatEdge> lstEdges = null;
         for (Entry<Statement, List<StatEdge>> entr : mapEdges.entrySet()) {
           if (entr.getKey().type != Statement.TYPE_DUMMYEXIT &&
@@ -402,7 +402,7 @@ public class LabelHelper {
         Statement stlast = swst.getCaseStatements().get(last);
 
         if (stlast.getExprents() != null && stlast.getExprents().isEmpty()) {
-          if (!stlast.getAllSuccessorEdges().get(0).explicit) {
+          if (!stlast.getFirstSuccessor(Statement.STATEDGE_ALL).explicit) {
             List<StatEdge> lstEdges = swst.getCaseEdges().get(last);
             lstEdges.remove(swst.getDefault_edge());
 
@@ -99,7 +99,7 @@ public class MergeHelper {
       IfStatement lastif = (IfStatement)last;
       if (lastif.iftype == IfStatement.IFTYPE_IF && lastif.getIfstat() == null) {
         StatEdge ifedge = lastif.getIfEdge();
-        StatEdge elseedge = lastif.getAllSuccessorEdges().get(0);
+        StatEdge elseedge = lastif.getFirstSuccessor(Statement.STATEDGE_ALL);
 
         if ((ifedge.getType() == StatEdge.TYPE_BREAK && elseedge.getType() == StatEdge.TYPE_CONTINUE && elseedge.closure == stat
              && isDirectPath(stat, ifedge.getDestination())) ||
@@ -140,7 +140,7 @@ public class MergeHelper {
             stat.addLabeledEdge(newedge);
           }
 
-          if (stat.getAllSuccessorEdges().isEmpty()) {
+          if (!stat.hasSuccessors(Statement.STATEDGE_ALL)) {
             StatEdge edge = elseedge.getType() == StatEdge.TYPE_CONTINUE ? ifedge : elseedge;
 
             edge.setSource(stat);
@@ -189,9 +189,9 @@ public class MergeHelper {
 
               // remove edges
               firstif.getFirst().removeSuccessor(ifedge);
-              firstif.removeSuccessor(firstif.getAllSuccessorEdges().get(0));
+              firstif.removeSuccessor(firstif.getFirstSuccessor(Statement.STATEDGE_ALL));
 
-              if (stat.getAllSuccessorEdges().isEmpty()) {
+              if (!stat.hasSuccessors(Statement.STATEDGE_ALL)) {
                 ifedge.setSource(stat);
                 if (ifedge.closure == stat) {
                   ifedge.closure = stat.getParent();
@@ -217,7 +217,7 @@ public class MergeHelper {
             }
           }
           else {
-            StatEdge elseedge = firstif.getAllSuccessorEdges().get(0);
+            StatEdge elseedge = firstif.getFirstSuccessor(Statement.STATEDGE_ALL);
             if (isDirectPath(stat, elseedge.getDestination())) {
               // exit condition identified
               stat.setLooptype(DoStatement.LOOP_WHILE);
@@ -235,7 +235,7 @@ public class MergeHelper {
               firstif.getFirst().removeSuccessor(ifedge);
               firstif.removeSuccessor(elseedge);
 
-              if (stat.getAllSuccessorEdges().isEmpty()) {
+              if (!stat.hasSuccessors(Statement.STATEDGE_ALL)) {
 
                 elseedge.setSource(stat);
                 if (elseedge.closure == stat) {
@@ -299,7 +299,7 @@ public class MergeHelper {
                 Statement stnext = swst.getCaseStatements().get(i + 1);
 
                 if (stnext.getExprents() != null && stnext.getExprents().isEmpty()) {
-                  stnext = stnext.getAllSuccessorEdges().get(0).getDestination();
+                  stnext = stnext.getFirstSuccessor(Statement.STATEDGE_ALL).getDestination();
                 }
                 return (endstat == stnext);
               }
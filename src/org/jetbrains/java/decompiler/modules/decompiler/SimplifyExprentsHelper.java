@@ -52,7 +52,15 @@ import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
 public class SimplifyExprentsHelper {
 
-  static final MatchEngine class14Builder = new MatchEngine();
+  // match engines keep the matched variables, so every decompiler thread needs its own instance
+  private static final ThreadLocal<MatchEngine> class14Builder = new ThreadLocal<MatchEngine>() {
+    @Override
+    protected MatchEngine initialValue() {
+      MatchEngine engine = new MatchEngine();
+      engine.parse(CLASS14_PATTERN);
+      return engine;
+    }
+  };
 
   private final boolean firstInvocation;
 
@@ -881,8 +889,7 @@ public class SimplifyExprentsHelper {
     return false;
   }
 
-  static {
-    class14Builder.parse(
+  private static final String CLASS14_PATTERN =
           "statement type:if iftype:if exprsize:-1\n" +
           " exprent position:head type:if\n" +
           "  exprent type:function functype:eq\n" +
@@ -904,18 +911,18 @@ public class SimplifyExprentsHelper {
           "  statement type:basicblock exprsize:1\n" +
           "   exprent type:assignment\n" +
           "    exprent type:field name:$fieldname$ ret:$field$\n" +
-          "    exprent type:var index:$var$"
-        );
-  }
+          "    exprent type:var index:$var$";
 
   private static boolean collapseInlinedClass14(Statement stat) {
 
-    boolean ret = class14Builder.match(stat);
+    MatchEngine engine = class14Builder.get();
+
+    boolean ret = engine.match(stat);
     if(ret) {
 
-      String class_name = (String)class14Builder.getVariableValue("$classname$");
-      AssignmentExprent assfirst = (AssignmentExprent)class14Builder.getVariableValue("$assignfield$");
-      FieldExprent fieldexpr = (FieldExprent)class14Builder.getVariableValue("$field$");
+      String class_name = (String)engine.getVariableValue("$classname$");
+      AssignmentExprent assfirst = (AssignmentExprent)engine.getVariableValue("$assignfield$");
+      FieldExprent fieldexpr = (FieldExprent)engine.getVariableValue("$field$");
 
       assfirst.replaceExprent(assfirst.getRight(), new ConstExprent(VarType.VARTYPE_CLASS, class_name, null));
 
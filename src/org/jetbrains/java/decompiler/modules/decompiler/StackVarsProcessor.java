@@ -29,6 +29,8 @@ import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.jetbrains.java.decompiler.util.LongHashMap;
+import org.jetbrains.java.decompiler.util.LongHashSet;
 import org.jetbrains.java.decompiler.util.SFormsFastMapDirect;
 
 import java.util.*;
@@ -130,15 +132,14 @@ public class StackVarsProcessor {
   }
 
   private static void setExprentVersionsToNull(Exprent exprent) {
-
-    List<Exprent> lst = exprent.getAllExprents(true);
-    lst.add(exprent);
-
-    for (Exprent expr : lst) {
-      if (expr.type == Exprent.EXPRENT_VAR) {
-        ((VarExprent)expr).setVersion(0);
+    exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      public boolean visit(Exprent expr, Exprent parent) {
+        if (expr.type == Exprent.EXPRENT_VAR) {
+          ((VarExprent)expr).setVersion(0);
+        }
+        return true;
       }
-    }
+    });
   }
 
 
@@ -151,15 +152,15 @@ public class StackVarsProcessor {
 
     HashSet<DirectNode> setVisited = new HashSet<DirectNode>();
     LinkedList<DirectNode> stack = new LinkedList<DirectNode>();
-    LinkedList<HashMap<VarVersionPair, Exprent>> stackMaps = new LinkedList<HashMap<VarVersionPair, Exprent>>();
+    LinkedList<LongHashMap<Exprent>> stackMaps = new LinkedList<LongHashMap<Exprent>>();
 
     stack.add(dgraph.first);
-    stackMaps.add(new HashMap<VarVersionPair, Exprent>());
+    stackMaps.add(new LongHashMap<Exprent>());
 
     while (!stack.isEmpty()) {
 
       DirectNode nd = stack.removeFirst();
-      HashMap<VarVersionPair, Exprent> mapVarValues = stackMaps.removeFirst();
+      LongHashMap<Exprent> mapVarValues = stackMaps.removeFirst();
 
       if (setVisited.contains(nd)) {
         continue;
@@ -211,7 +212,7 @@ public class StackVarsProcessor {
 
       for (DirectNode ndx : nd.succs) {
         stack.add(ndx);
-        stackMaps.add(new HashMap<VarVersionPair, Exprent>(mapVarValues));
+        stackMaps.add(new LongHashMap<Exprent>(mapVarValues));
       }
 
       // make sure the 3 special exprent lists in a loop (init, condition, increment) are not empty
@@ -236,13 +237,13 @@ public class StackVarsProcessor {
   }
 
 
-  private static Exprent isReplaceableVar(Exprent exprent, HashMap<VarVersionPair, Exprent> mapVarValues, SSAUConstructorSparseEx ssau) {
+  private static Exprent isReplaceableVar(Exprent exprent, LongHashMap<Exprent> mapVarValues, SSAUConstructorSparseEx ssau) {
 
     Exprent dest = null;
 
     if (exprent.type == Exprent.EXPRENT_VAR) {
       VarExprent var = (VarExprent)exprent;
-      dest = mapVarValues.get(new VarVersionPair(var));
+      dest = mapVarValues.get(VarVersionPair.toLong(var));
     }
 
     return dest;
@@ -254,10 +255,10 @@ public class StackVarsProcessor {
 
     // live sets
     SFormsFastMapDirect livemap = ssau.getLiveVarVersionsMap(new VarVersionPair(var));
-    HashSet<VarVersionPair> setVars = getAllVersions(dest);
+    LongHashSet setVars = getAllVersions(dest);
 
-    for (VarVersionPair varpaar : setVars) {
-      VarVersionNode node = ssau.getSsuversions().nodes.getWithKey(varpaar);
+    for (long varpaar : setVars.toArray()) {
+      VarVersionNode node = ssau.getSsuversions().nodes.getWithKey(VarVersionPair.fromLong(varpaar));
 
       for (Iterator<Entry<Integer, FastSparseSet<Integer>>> itent = node.live.entryList().iterator(); itent.hasNext(); ) {
         Entry<Integer, FastSparseSet<Integer>> ent = itent.next();
@@ -279,8 +280,8 @@ public class StackVarsProcessor {
     }
   }
 
-  private int[] iterateExprent(List<Exprent> lstExprents, int index, Exprent next, HashMap<VarVersionPair,
-    Exprent> mapVarValues, SSAUConstructorSparseEx ssau) {
+  private int[] iterateExprent(List<Exprent> lstExprents, int index, Exprent next, LongHashMap<Exprent> mapVarValues,
+                               SSAUConstructorSparseEx ssau) {
 
     Exprent exprent = lstExprents.get(index);
 
@@ -375,7 +376,7 @@ public class StackVarsProcessor {
       return new int[]{-1, changed};
     }
 
-    HashSet<VarVersionPair> setNextVars = next == null ? null : getAllVersions(next);
+    LongHashSet setNextVars = next == null ? null : getAllVersions(next);
 
     // FIXME: fix the entire method!
     if (right.type != Exprent.EXPRENT_CONST &&
@@ -383,7 +384,7 @@ public class StackVarsProcessor {
         setNextVars != null &&
         mapVars.containsKey(leftpaar.var)) {
       for (VarVersionNode usedvar : usedVers) {
-        if (!setNextVars.contains(new VarVersionPair(usedvar.var, usedvar.version))) {
+        if (!setNextVars.contains(VarVersionPair.toLong(usedvar.var, usedvar.version))) {
           return new int[]{-1, changed};
         }
       }
@@ -401,7 +402,7 @@ public class StackVarsProcessor {
       VarVersionPair usedver = new VarVersionPair(usedvar.var, usedvar.version);
       if (isVersionToBeReplaced(usedver, mapVars, ssau, leftpaar) &&
           (right.type == Exprent.EXPRENT_CONST || right.type == Exprent.EXPRENT_VAR || right.type == Exprent.EXPRENT_FIELD
-           || setNextVars == null || setNextVars.contains(usedver))) {
+           || setNextVars == null || setNextVars.contains(usedver.toLong()))) {
 
         setTempUsedVers.add(usedver);
         verreplaced = true;
@@ -421,7 +422,7 @@ public class StackVarsProcessor {
           ssau.getMapFieldVars().put(copy.id, ssau.getMapFieldVars().get(right.id));
         }
 
-        mapVarValues.put(usedver, copy);
+        mapVarValues.put(usedver.toLong(), copy);
       }
     }
 
@@ -438,19 +439,18 @@ public class StackVarsProcessor {
     }
   }
 
-  private static HashSet<VarVersionPair> getAllVersions(Exprent exprent) {
-
-    HashSet<VarVersionPair> res = new HashSet<VarVersionPair>();
+  private static LongHashSet getAllVersions(Exprent exprent) {
 
-    List<Exprent> listTemp = new ArrayList<Exprent>(exprent.getAllExprents(true));
-    listTemp.add(exprent);
+    final LongHashSet res = new LongHashSet();
 
-    for (Exprent expr : listTemp) {
-      if (expr.type == Exprent.EXPRENT_VAR) {
-        VarExprent var = (VarExprent)expr;
-        res.add(new VarVersionPair(var));
+    exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      public boolean visit(Exprent expr, Exprent parent) {
+        if (expr.type == Exprent.EXPRENT_VAR) {
+          res.add(VarVersionPair.toLong((VarExprent)expr));
+        }
+        return true;
       }
-    }
+    });
 
     return res;
   }
@@ -458,7 +458,7 @@ public class StackVarsProcessor {
   private static Object[] iterateChildExprent(Exprent exprent,
                                               Exprent parent,
                                               Exprent next,
-                                              HashMap<VarVersionPair, Exprent> mapVarValues,
+                                              LongHashMap<Exprent> mapVarValues,
                                               SSAUConstructorSparseEx ssau) {
 
     boolean changed = false;
@@ -550,7 +550,7 @@ public class StackVarsProcessor {
 
     mapVars.remove(leftpaar.var);
 
-    HashSet<VarVersionPair> setAllowedVars = getAllVersions(parent);
+    LongHashSet setAllowedVars = getAllVersions(parent);
     if (next != null) {
       setAllowedVars.addAll(getAllVersions(next));
     }
@@ -562,7 +562,7 @@ public class StackVarsProcessor {
     for (VarVersionNode usedvar : usedVers) {
       VarVersionPair usedver = new VarVersionPair(usedvar.var, usedvar.version);
       if (isVersionToBeReplaced(usedver, mapVars, ssau, leftpaar) &&
-          (right.type == Exprent.EXPRENT_VAR || setAllowedVars.contains(usedver))) {
+          (right.type == Exprent.EXPRENT_VAR || setAllowedVars.contains(usedver.toLong()))) {
 
         setTempUsedVers.add(usedver);
       }
@@ -579,7 +579,7 @@ public class StackVarsProcessor {
           ssau.getMapFieldVars().put(copy.id, ssau.getMapFieldVars().get(right.id));
         }
 
-        mapVarValues.put(usedver, copy);
+        mapVarValues.put(usedver.toLong(), copy);
       }
 
       // remove assignment
@@ -652,8 +652,8 @@ public class StackVarsProcessor {
     }
 
     // compare protected ranges
-    if (!InterpreterUtil.equalObjects(ssau.getMapVersionFirstRange().get(leftpaar),
-                                      ssau.getMapVersionFirstRange().get(usedvar))) {
+    if (!InterpreterUtil.equalObjects(ssau.getMapVersionFirstRange().get(leftpaar.toLong()),
+                                      ssau.getMapVersionFirstRange().get(usedvar.toLong()))) {
       return false;
     }
 
@@ -687,48 +687,48 @@ public class StackVarsProcessor {
     return true;
   }
 
-  private static HashMap<Integer, HashSet<VarVersionPair>> getAllVarVersions(VarVersionPair leftvar,
+  private static HashMap<Integer, HashSet<VarVersionPair>> getAllVarVersions(final VarVersionPair leftvar,
                                                                              Exprent exprent,
-                                                                             SSAUConstructorSparseEx ssau) {
-
-    HashMap<Integer, HashSet<VarVersionPair>> map = new HashMap<Integer, HashSet<VarVersionPair>>();
-    SFormsFastMapDirect mapLiveVars = ssau.getLiveVarVersionsMap(leftvar);
-
-    List<Exprent> lst = exprent.getAllExprents(true);
-    lst.add(exprent);
-
-    for (Exprent expr : lst) {
-      if (expr.type == Exprent.EXPRENT_VAR) {
-        int varindex = ((VarExprent)expr).getIndex();
-        if (leftvar.var != varindex) {
-          if (mapLiveVars.containsKey(varindex)) {
-            HashSet<VarVersionPair> verset = new HashSet<VarVersionPair>();
-            for (Integer vers : mapLiveVars.get(varindex)) {
-              verset.add(new VarVersionPair(varindex, vers.intValue()));
+                                                                             final SSAUConstructorSparseEx ssau) {
+
+    final HashMap<Integer, HashSet<VarVersionPair>> map = new HashMap<Integer, HashSet<VarVersionPair>>();
+    final SFormsFastMapDirect mapLiveVars = ssau.getLiveVarVersionsMap(leftvar);
+
+    exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      public boolean visit(Exprent expr, Exprent parent) {
+        if (expr.type == Exprent.EXPRENT_VAR) {
+          int varindex = ((VarExprent)expr).getIndex();
+          if (leftvar.var != varindex) {
+            if (mapLiveVars.containsKey(varindex)) {
+              HashSet<VarVersionPair> verset = new HashSet<VarVersionPair>();
+              for (Integer vers : mapLiveVars.get(varindex)) {
+                verset.add(new VarVersionPair(varindex, vers.intValue()));
+              }
+              map.put(varindex, verset);
+            }
+            else {
+              throw new RuntimeException("inkonsistent live map!");
             }
-            map.put(varindex, verset);
           }
           else {
-            throw new RuntimeException("inkonsistent live map!");
+            map.put(varindex, null);
           }
         }
-        else {
-          map.put(varindex, null);
-        }
-      }
-      else if (expr.type == Exprent.EXPRENT_FIELD) {
-        if (ssau.getMapFieldVars().containsKey(expr.id)) {
-          int varindex = ssau.getMapFieldVars().get(expr.id);
-          if (mapLiveVars.containsKey(varindex)) {
-            HashSet<VarVersionPair> verset = new HashSet<VarVersionPair>();
-            for (Integer vers : mapLiveVars.get(varindex)) {
-              verset.add(new VarVersionPair(varindex, vers.intValue()));
+        else if (expr.type == Exprent.EXPRENT_FIELD) {
+          if (ssau.getMapFieldVars().containsKey(expr.id)) {
+            int varindex = ssau.getMapFieldVars().get(expr.id);
+            if (mapLiveVars.containsKey(varindex)) {
+              HashSet<VarVersionPair> verset = new HashSet<VarVersionPair>();
+              for (Integer vers : mapLiveVars.get(varindex)) {
+                verset.add(new VarVersionPair(varindex, vers.intValue()));
+              }
+              map.put(varindex, verset);
             }
-            map.put(varindex, verset);
           }
         }
+        return true;
       }
-    }
+    });
 
     return map;
   }
@@ -16,12 +16,9 @@
 package org.jetbrains.java.decompiler.modules.decompiler;
 
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
-import org.jetbrains.java.decompiler.util.ListStack;
+import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
+import java.util.*;
 
 //  --------------------------------------------------------------------
 //    Algorithm
@@ -61,19 +58,41 @@ import java.util.List;
 //  }	
 //  -------------------------------------------------------------------- 
 
+// The recursion of visit() is unrolled into an explicit frame stack, and statements are numbered densely so that the
+// state of the search is kept in int arrays. Statements of the analysed statement come first, in the order of its
+// children; statements outside of it that are reachable by regular edges are numbered as they are found. The numbers
+// are looked up by statement id, which is dense within a method. componentsOf() reuses one helper per thread, so
+// the arrays are allocated again only when a larger graph comes along.
+
 public class StrongConnectivityHelper {
 
-  private ListStack<Statement> lstack;
+  private List<List<Statement>> components;
+
+  private static final ThreadLocal<StrongConnectivityHelper> threadHelper = new ThreadLocal<StrongConnectivityHelper>() {
+    @Override
+    protected StrongConnectivityHelper initialValue() {
+      return new StrongConnectivityHelper();
+    }
+  };
 
-  private int ncounter;
+  private List<Statement> nodes;
+  private int[][] succs;
 
-  private HashSet<Statement> tset;
-  private HashMap<Statement, Integer> dfsnummap;
-  private HashMap<Statement, Integer> lowmap;
+  // ordinals by statement id, valid where the stamp is the one of the current call
+  private int[] ordinals;
+  private int[] ordinalStamps;
+  private int ordinalStamp;
 
-  private List<List<Statement>> components;
+  private boolean[] processed;
+  private int[] treeMarks;
+  private int treeMark;
+  private int[] dfsnum;
+  private int[] low;
 
-  private HashSet<Statement> setProcessed;
+  // L and the stack of visit() frames
+  private int[] lstack;
+  private int[] frameNodes;
+  private int[] frameSuccIndices;
 
   // *****************************************************************************
   // constructors
@@ -90,26 +109,64 @@ public class StrongConnectivityHelper {
   // public methods
   // *****************************************************************************
 
+  // same as findComponents(), with the scratch buffers of the current thread
+  public static List<List<Statement>> componentsOf(Statement stat) {
+    StrongConnectivityHelper helper = threadHelper.get();
+    List<List<Statement>> components = helper.findComponents(stat);
+    helper.components = null;
+    return components;
+  }
+
+  /**
+   * The returned lists must not be modified: unless the graph of the statement changes, the same ones are handed out
+   * on the next call.
+   */
   public List<List<Statement>> findComponents(Statement stat) {
 
+    CachedComponents cached = stat.getCachedComponents();
+    if (cached != null && cached.isValid(stat)) {
+      return components = cached.components;
+    }
+
+    VBStyleCollection<Statement, Integer> stats = stat.getStats();
+
+    // scratch buffers are kept for the next call
+    if (processed != null) {
+      Arrays.fill(processed, false);
+      Arrays.fill(succs, null);
+    }
+    if (++ordinalStamp == Integer.MAX_VALUE && ordinalStamps != null) {
+      Arrays.fill(ordinalStamps, 0);
+      ordinalStamp = 1;
+    }
+
+    nodes = new ArrayList<Statement>(stats.size() + 1);
+    for (Statement st : stats) {
+      getOrdinal(st);
+    }
+    getOrdinal(stat.getFirst());
+
     components = new ArrayList<List<Statement>>();
-    setProcessed = new HashSet<Statement>();
 
-    visitTree(stat.getFirst());
+    visitTree(getOrdinal(stat.getFirst()));
 
-    for (Statement st : stat.getStats()) {
-      if (!setProcessed.contains(st) && st.getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL).isEmpty()) {
-        visitTree(st);
+    for (int i = 0; i < stats.size(); i++) {
+      if (!processed[i] && stats.get(i).getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL).isEmpty()) {
+        visitTree(i);
       }
     }
 
     // should not find any more nodes! FIXME: ??
-    for (Statement st : stat.getStats()) {
-      if (!setProcessed.contains(st)) {
-        visitTree(st);
+    for (int i = 0; i < stats.size(); i++) {
+      if (!processed[i]) {
+        visitTree(i);
       }
     }
 
+    stat.setCachedComponents(new CachedComponents(stat, nodes, components));
+
+    nodes = null;
+
     return components;
   }
 
@@ -141,58 +198,121 @@ public class StrongConnectivityHelper {
   // private methods
   // *****************************************************************************
 
-  private void visitTree(Statement stat) {
-    lstack = new ListStack<Statement>();
-    ncounter = 0;
-    tset = new HashSet<Statement>();
-    dfsnummap = new HashMap<Statement, Integer>();
-    lowmap = new HashMap<Statement, Integer>();
-
-    visit(stat);
+  private int getOrdinal(Statement stat) {
+    int id = stat.id;
+    if (ordinalStamps != null && id < ordinalStamps.length && ordinalStamps[id] == ordinalStamp) {
+      return ordinals[id];
+    }
 
-    setProcessed.addAll(tset);
-    setProcessed.add(stat);
-  }
+    if (ordinalStamps == null || id >= ordinalStamps.length) {
+      int length = Math.max(64, id * 2);
+      ordinals = ordinals == null ? new int[length] : Arrays.copyOf(ordinals, length);
+      ordinalStamps = ordinalStamps == null ? new int[length] : Arrays.copyOf(ordinalStamps, length);
+    }
 
-  private void visit(Statement stat) {
+    int index = nodes.size();
+    nodes.add(stat);
+    ordinals[id] = index;
+    ordinalStamps[id] = ordinalStamp;
+
+    if (processed == null || index >= processed.length) {
+      int length = Math.max(16, index * 2);
+      succs = succs == null ? new int[length][] : Arrays.copyOf(succs, length);
+      processed = processed == null ? new boolean[length] : Arrays.copyOf(processed, length);
+      treeMarks = treeMarks == null ? new int[length] : Arrays.copyOf(treeMarks, length);
+      dfsnum = dfsnum == null ? new int[length] : Arrays.copyOf(dfsnum, length);
+      low = low == null ? new int[length] : Arrays.copyOf(low, length);
+      // a tree root may be visited a second time if it is reached again
+      lstack = lstack == null ? new int[length + 1] : Arrays.copyOf(lstack, length + 1);
+      frameNodes = frameNodes == null ? new int[length + 1] : Arrays.copyOf(frameNodes, length + 1);
+      frameSuccIndices = frameSuccIndices == null ? new int[length + 1] : Arrays.copyOf(frameSuccIndices, length + 1);
+    }
 
-    lstack.push(stat);
-    dfsnummap.put(stat, ncounter);
-    lowmap.put(stat, ncounter);
-    ncounter++;
+    return index;
+  }
 
-    List<Statement> lstSuccs = stat.getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD); // TODO: set?
-    lstSuccs.removeAll(setProcessed);
+  private int[] getSuccessors(int node) {
+    int[] res = succs[node];
+    if (res == null) {
+      List<Statement> lstSuccs = nodes.get(node).getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD);
+      res = new int[lstSuccs.size()];
+      for (int i = 0; i < res.length; i++) {
+        res[i] = getOrdinal(lstSuccs.get(i));
+      }
+      succs[node] = res;
+    }
+    return res;
+  }
 
-    for (int i = 0; i < lstSuccs.size(); i++) {
-      Statement succ = lstSuccs.get(i);
-      int secvalue;
+  private void visitTree(int root) {
+    treeMark++;
+
+    int ncounter = 0;
+    int stackSize = 0;
+    int frameCount = 0;
+
+    // enter visit(root)
+    lstack[stackSize++] = root;
+    dfsnum[root] = low[root] = ncounter++;
+    frameNodes[frameCount] = root;
+    frameSuccIndices[frameCount++] = 0;
+
+    while (frameCount > 0) {
+      int node = frameNodes[frameCount - 1];
+      int[] nodeSuccs = getSuccessors(node);
+      int index = frameSuccIndices[frameCount - 1];
+
+      if (index < nodeSuccs.length) {
+        frameSuccIndices[frameCount - 1] = index + 1;
+
+        int succ = nodeSuccs[index];
+        if (processed[succ]) {
+          continue;
+        }
+
+        if (treeMarks[succ] == treeMark) {
+          low[node] = Math.min(low[node], dfsnum[succ]);
+        }
+        else {
+          treeMarks[succ] = treeMark;
+
+          // enter visit(succ)
+          lstack[stackSize++] = succ;
+          dfsnum[succ] = low[succ] = ncounter++;
+          frameNodes[frameCount] = succ;
+          frameSuccIndices[frameCount++] = 0;
+        }
+        continue;
+      }
 
-      if (tset.contains(succ)) {
-        secvalue = dfsnummap.get(succ);
+      // leave visit(node)
+      frameCount--;
+
+      if (low[node] == dfsnum[node]) {
+        List<Statement> lst = new ArrayList<Statement>();
+        int v;
+        do {
+          v = lstack[--stackSize];
+          lst.add(nodes.get(v));
+        }
+        while (v != node);
+        components.add(Collections.unmodifiableList(lst));
       }
-      else {
-        tset.add(succ);
-        visit(succ);
-        secvalue = lowmap.get(succ);
+
+      if (frameCount > 0) {
+        int parent = frameNodes[frameCount - 1];
+        low[parent] = Math.min(low[parent], low[node]);
       }
-      lowmap.put(stat, Math.min(lowmap.get(stat), secvalue));
     }
 
-
-    if (lowmap.get(stat).intValue() == dfsnummap.get(stat).intValue()) {
-      List<Statement> lst = new ArrayList<Statement>();
-      Statement v;
-      do {
-        v = lstack.pop();
-        lst.add(v);
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      if (treeMarks[i] == treeMark) {
+        processed[i] = true;
       }
-      while (v != stat);
-      components.add(lst);
     }
+    processed[root] = true;
   }
 
-
   // *****************************************************************************
   // getter and setter methods
   // *****************************************************************************
@@ -204,4 +324,46 @@ public class StrongConnectivityHelper {
   public void setComponents(List<List<Statement>> components) {
     this.components = components;
   }
+
+  // components of a statement together with what they were computed from: its first statement, its children and the
+  // edges of all statements involved
+  public static class CachedComponents {
+    private final Statement first;
+    private final int statCount;
+    private final Statement[] nodes;
+    private final int[] edgeModCounts;
+    private final List<List<Statement>> components;
+
+    private CachedComponents(Statement stat, List<Statement> nodes, List<List<Statement>> components) {
+      this.first = stat.getFirst();
+      this.statCount = stat.getStats().size();
+      this.nodes = nodes.toArray(new Statement[nodes.size()]);
+      this.edgeModCounts = new int[this.nodes.length];
+      for (int i = 0; i < this.nodes.length; i++) {
+        edgeModCounts[i] = this.nodes[i].getEdgeModCount();
+      }
+      this.components = Collections.unmodifiableList(components);
+    }
+
+    private boolean isValid(Statement stat) {
+      VBStyleCollection<Statement, Integer> stats = stat.getStats();
+      if (stat.getFirst() != first || stats.size() != statCount) {
+        return false;
+      }
+
+      for (int i = 0; i < statCount; i++) {
+        if (stats.get(i) != nodes[i]) {
+          return false;
+        }
+      }
+
+      for (int i = 0; i < nodes.length; i++) {
+        if (nodes[i].getEdgeModCount() != edgeModCounts[i]) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+  }
 }
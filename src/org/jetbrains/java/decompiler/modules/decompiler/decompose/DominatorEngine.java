@@ -17,112 +17,83 @@ package org.jetbrains.java.decompiler.modules.decompiler.decompose;
 
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DominatorEngine {
 
   private final Statement statement;
 
-  private final VBStyleCollection<Integer, Integer> colOrderedIDoms = new VBStyleCollection<Integer, Integer>();
+  // statement ids in reverse post order
+  private Integer[] ids;
 
+  private Map<Integer, Integer> mapIndices;
+
+  private FastDominatorTree tree;
 
   public DominatorEngine(Statement statement) {
     this.statement = statement;
   }
 
   public void initialize() {
-    calcIDoms();
-  }
 
-  private void orderStatements() {
+    List<Statement> lstStats = statement.getReversePostOrderList();
+    int count = lstStats.size();
 
-    for (Statement stat : statement.getReversePostOrderList()) {
-      colOrderedIDoms.addWithKey(null, stat.id);
-    }
-  }
-
-  private static Integer getCommonIDom(Integer key1, Integer key2, VBStyleCollection<Integer, Integer> orderedIDoms) {
-
-    if (key1 == null) {
-      return key2;
-    }
-    else if (key2 == null) {
-      return key1;
+    ids = new Integer[count];
+    mapIndices = new HashMap<Integer, Integer>(count * 2);
+    for (int i = 0; i < count; i++) {
+      ids[i] = lstStats.get(i).id;
+      mapIndices.put(ids[i], i);
     }
 
-    int index1 = orderedIDoms.getIndexByKey(key1);
-    int index2 = orderedIDoms.getIndexByKey(key2);
+    int[][] predecessors = new int[count][];
+    boolean[] roots = new boolean[count];
+    roots[0] = true; // the first statement
 
-    while (index1 != index2) {
-      if (index1 > index2) {
-        key1 = orderedIDoms.getWithKey(key1);
-        index1 = orderedIDoms.getIndexByKey(key1);
-      }
-      else {
-        key2 = orderedIDoms.getWithKey(key2);
-        index2 = orderedIDoms.getIndexByKey(key2);
+    for (int i = 0; i < count; i++) {
+      List<StatEdge> lstEdges = lstStats.get(i).getAllPredecessorEdges();
+      int[] preds = predecessors[i] = new int[lstEdges.size()];
+      for (int j = 0; j < preds.length; j++) {
+        preds[j] = getIndex(lstEdges.get(j).getSource().id);
       }
     }
 
-    return key1;
+    tree = new FastDominatorTree(predecessors, roots);
   }
 
-  private void calcIDoms() {
-
-    orderStatements();
-
-    colOrderedIDoms.putWithKey(statement.getFirst().id, statement.getFirst().id);
-
-    // exclude first statement
-    List<Integer> lstIds = colOrderedIDoms.getLstKeys().subList(1, colOrderedIDoms.getLstKeys().size());
-
-    while (true) {
-
-      boolean changed = false;
-
-      for (Integer id : lstIds) {
-
-        Statement stat = statement.getStats().getWithKey(id);
-        Integer idom = null;
-
-        for (StatEdge edge : stat.getAllPredecessorEdges()) {
-          if (colOrderedIDoms.getWithKey(edge.getSource().id) != null) {
-            idom = getCommonIDom(idom, edge.getSource().id, colOrderedIDoms);
-          }
-        }
+  private int getIndex(Integer id) {
+    Integer index = mapIndices.get(id);
+    return index == null ? -1 : index;
+  }
 
-        Integer oldidom = colOrderedIDoms.putWithKey(idom, id);
-        if (!idom.equals(oldidom)) {
-          changed = true;
-        }
-      }
+  public int size() {
+    return ids.length;
+  }
 
-      if (!changed) {
-        break;
-      }
-    }
+  // reverse post order index
+  public Integer getId(int index) {
+    return ids[index];
   }
 
-  public VBStyleCollection<Integer, Integer> getOrderedIDoms() {
-    return colOrderedIDoms;
+  public Integer getIDom(int index) {
+    return ids[tree.getIDom(index)];
   }
 
   public boolean isDominator(Integer node, Integer dom) {
 
-    while (!node.equals(dom)) {
-
-      Integer idom = colOrderedIDoms.getWithKey(node);
+    if (node.equals(dom)) {
+      return true;
+    }
 
-      if (idom.equals(node)) {
-        return false; // root node
-      }
-      else {
-        node = idom;
-      }
+    int nodeIndex = getIndex(node);
+    if (nodeIndex < 0) {
+      throw new RuntimeException("Inconsistent idom sequence discovered!");
     }
 
-    return true;
+    int domIndex = getIndex(dom);
+    return domIndex >= 0 && tree.isDominator(nodeIndex, domIndex);
   }
 }
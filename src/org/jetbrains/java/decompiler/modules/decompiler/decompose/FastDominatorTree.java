@@ -0,0 +1,157 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler.decompose;
+
+/**
+ * Dominator forest of a graph whose nodes are numbered in reverse post order (Cooper, Harvey, Kennedy: "A Simple,
+ * Fast Dominance Algorithm"). Predecessors are given as node indices, a negative index stands for a node outside of
+ * the graph. A node that is not a root, but whose predecessors meet in different trees, becomes a root itself.
+ * Dominance queries are answered in constant time from the pre and post order numbers of the dominator tree.
+ */
+public class FastDominatorTree {
+
+  private final int[] idoms;
+  private final int[] preorder;
+  private final int[] postorder;
+
+  public FastDominatorTree(int[][] predecessors, boolean[] roots) {
+    int count = predecessors.length;
+
+    idoms = new int[count];
+    for (int i = 0; i < count; i++) {
+      idoms[i] = -1;
+    }
+
+    while (true) {
+      boolean changed = false;
+
+      for (int i = 0; i < count; i++) {
+        int idom = -1;
+
+        if (!roots[i]) {
+          for (int pred : predecessors[i]) {
+            if (pred >= 0 && idoms[pred] >= 0) {
+              if (idom < 0) {
+                idom = pred;
+              }
+              else if ((idom = getCommonIDom(idom, pred)) < 0) {
+                break; // no idom found: merging point of two trees
+              }
+            }
+          }
+        }
+
+        if (idom < 0) {
+          idom = i;
+        }
+
+        if (idoms[i] != idom) {
+          idoms[i] = idom;
+          changed = true;
+        }
+      }
+
+      if (!changed) {
+        break;
+      }
+    }
+
+    preorder = new int[count];
+    postorder = new int[count];
+    numberTree();
+  }
+
+  private int getCommonIDom(int index1, int index2) {
+    while (index1 != index2) {
+      if (index1 > index2) {
+        int idom = idoms[index1];
+        if (idom == index1) {
+          return -1;
+        }
+        index1 = idom;
+      }
+      else {
+        int idom = idoms[index2];
+        if (idom == index2) {
+          return -1;
+        }
+        index2 = idom;
+      }
+    }
+    return index1;
+  }
+
+  private void numberTree() {
+    int count = idoms.length;
+
+    // children as linked lists
+    int[] firstChild = new int[count];
+    int[] nextSibling = new int[count];
+    for (int i = 0; i < count; i++) {
+      firstChild[i] = -1;
+    }
+    for (int i = count - 1; i >= 0; i--) {
+      if (idoms[i] != i) {
+        nextSibling[i] = firstChild[idoms[i]];
+        firstChild[idoms[i]] = i;
+      }
+    }
+
+    int[] stack = new int[count];
+    int[] cursor = new int[count];
+    int pre = 0, post = 0;
+
+    for (int root = 0; root < count; root++) {
+      if (idoms[root] != root) {
+        continue;
+      }
+
+      int depth = 0;
+      stack[0] = root;
+      cursor[root] = firstChild[root];
+      preorder[root] = pre++;
+
+      while (depth >= 0) {
+        int node = stack[depth];
+        int child = cursor[node];
+
+        if (child >= 0) {
+          cursor[node] = nextSibling[child];
+          cursor[child] = firstChild[child];
+          preorder[child] = pre++;
+          stack[++depth] = child;
+        }
+        else {
+          postorder[node] = post++;
+          depth--;
+        }
+      }
+    }
+  }
+
+  public int size() {
+    return idoms.length;
+  }
+
+  // the index of the node itself for roots
+  public int getIDom(int index) {
+    return idoms[index];
+  }
+
+  public boolean isDominator(int node, int dom) {
+    return preorder[dom] <= preorder[node] && postorder[node] <= postorder[dom];
+  }
+}
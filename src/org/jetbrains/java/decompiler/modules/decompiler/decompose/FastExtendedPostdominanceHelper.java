@@ -175,7 +175,9 @@ public class FastExtendedPostdominanceHelper {
           lstPredSets.add(setPred);
         }
 
-        for (Integer id : setReachability.toPlainSet()) {
+        for (int ordinal = setReachability.nextOrdinal(0); ordinal >= 0; ordinal = setReachability.nextOrdinal(ordinal + 1)) {
+
+          Integer id = factory.getElement(ordinal);
 
           FastFixedSet<Integer> setReachabilityCopy = setReachability.getCopy();
 
@@ -183,7 +185,7 @@ public class FastExtendedPostdominanceHelper {
           boolean isIntersectionInitialized = false;
 
           for (FastFixedSet<Integer> predset : lstPredSets) {
-            if (predset.contains(id)) {
+            if (predset.containsOrdinal(ordinal)) {
               if (!isIntersectionInitialized) {
                 setIntersection.union(predset);
                 isIntersectionInitialized = true;
@@ -15,138 +15,64 @@
  */
 package org.jetbrains.java.decompiler.modules.decompiler.decompose;
 
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
-
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class GenericDominatorEngine {
 
   private final IGraph graph;
 
-  private final VBStyleCollection<IGraphNode, IGraphNode> colOrderedIDoms = new VBStyleCollection<IGraphNode, IGraphNode>();
+  private Map<IGraphNode, Integer> mapIndices;
 
-  private Set<? extends IGraphNode> setRoots;
+  private FastDominatorTree tree;
 
   public GenericDominatorEngine(IGraph graph) {
     this.graph = graph;
   }
 
   public void initialize() {
-    calcIDoms();
-  }
-
-  private void orderNodes() {
 
-    setRoots = graph.getRoots();
+    List<? extends IGraphNode> lstNodes = graph.getReversePostOrderList();
+    Set<? extends IGraphNode> setRoots = graph.getRoots();
+    int count = lstNodes.size();
 
-    for (IGraphNode node : graph.getReversePostOrderList()) {
-      colOrderedIDoms.addWithKey(null, node);
-    }
-  }
-
-  private static IGraphNode getCommonIDom(IGraphNode node1, IGraphNode node2, VBStyleCollection<IGraphNode, IGraphNode> orderedIDoms) {
-
-    IGraphNode nodeOld;
-
-    if (node1 == null) {
-      return node2;
-    }
-    else if (node2 == null) {
-      return node1;
+    mapIndices = new HashMap<IGraphNode, Integer>(count * 2);
+    for (int i = 0; i < count; i++) {
+      mapIndices.put(lstNodes.get(i), i);
     }
 
-    int index1 = orderedIDoms.getIndexByKey(node1);
-    int index2 = orderedIDoms.getIndexByKey(node2);
+    int[][] predecessors = new int[count][];
+    boolean[] roots = new boolean[count];
 
-    while (index1 != index2) {
-      if (index1 > index2) {
-        nodeOld = node1;
-        node1 = orderedIDoms.getWithKey(node1);
+    for (int i = 0; i < count; i++) {
+      IGraphNode node = lstNodes.get(i);
+      roots[i] = setRoots.contains(node);
 
-        if (nodeOld == node1) { // no idom - root or merging point
-          return null;
-        }
-
-        index1 = orderedIDoms.getIndexByKey(node1);
-      }
-      else {
-        nodeOld = node2;
-        node2 = orderedIDoms.getWithKey(node2);
-
-        if (nodeOld == node2) { // no idom - root or merging point
-          return null;
-        }
-
-        index2 = orderedIDoms.getIndexByKey(node2);
+      List<? extends IGraphNode> lstPreds = node.getPredecessors();
+      int[] preds = predecessors[i] = new int[lstPreds.size()];
+      for (int j = 0; j < preds.length; j++) {
+        Integer index = mapIndices.get(lstPreds.get(j));
+        preds[j] = index == null ? -1 : index;
       }
     }
 
-    return node1;
-  }
-
-  private void calcIDoms() {
-
-    orderNodes();
-
-    List<IGraphNode> lstNodes = colOrderedIDoms.getLstKeys();
-
-    while (true) {
-
-      boolean changed = false;
-
-      for (IGraphNode node : lstNodes) {
-
-        IGraphNode idom = null;
-
-        if (!setRoots.contains(node)) {
-          for (IGraphNode pred : node.getPredecessors()) {
-            if (colOrderedIDoms.getWithKey(pred) != null) {
-              idom = getCommonIDom(idom, pred, colOrderedIDoms);
-              if (idom == null) {
-                break; // no idom found: merging point of two trees
-              }
-            }
-          }
-        }
-
-        if (idom == null) {
-          idom = node;
-        }
-
-        IGraphNode oldidom = colOrderedIDoms.putWithKey(idom, node);
-        if (!idom.equals(oldidom)) { // oldidom is null iff the node is touched for the first time
-          changed = true;
-        }
-      }
-
-      if (!changed) {
-        break;
-      }
-    }
-  }
-
-  public VBStyleCollection<IGraphNode, IGraphNode> getOrderedIDoms() {
-    return colOrderedIDoms;
+    tree = new FastDominatorTree(predecessors, roots);
   }
 
   public boolean isDominator(IGraphNode node, IGraphNode dom) {
 
-    while (!node.equals(dom)) {
-
-      IGraphNode idom = colOrderedIDoms.getWithKey(node);
+    if (node.equals(dom)) {
+      return true;
+    }
 
-      if (idom == node) {
-        return false; // root node or merging point
-      }
-      else if (idom == null) {
-        throw new RuntimeException("Inconsistent idom sequence discovered!");
-      }
-      else {
-        node = idom;
-      }
+    Integer nodeIndex = mapIndices.get(node);
+    if (nodeIndex == null) {
+      throw new RuntimeException("Inconsistent idom sequence discovered!");
     }
 
-    return true;
+    Integer domIndex = mapIndices.get(dom);
+    return domIndex != null && tree.isDominator(nodeIndex, domIndex);
   }
 }
@@ -15,12 +15,27 @@
  */
 package org.jetbrains.java.decompiler.modules.decompiler.deobfuscator;
 
+import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.code.ConstantsUtil;
+import org.jetbrains.java.decompiler.code.Instruction;
+import org.jetbrains.java.decompiler.code.SimpleInstructionSequence;
+import org.jetbrains.java.decompiler.code.SwitchInstruction;
+import org.jetbrains.java.decompiler.code.cfg.BasicBlock;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.rels.MethodBudget;
+import org.jetbrains.java.decompiler.main.rels.MethodProcessorRunnable;
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge;
+import org.jetbrains.java.decompiler.modules.decompiler.StrongConnectivityHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.BasicBlockStatement;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
+import org.jetbrains.java.decompiler.struct.StructClass;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 
@@ -64,6 +79,8 @@ public class IrreducibleCFGDeobfuscator {
 
     // transforming and reducing the graph
     while (true) {
+      MethodProcessorRunnable.checkInterrupted();
+
       int ttype = 0;
       Node node = null;
 
@@ -107,26 +124,44 @@ public class IrreducibleCFGDeobfuscator {
   }
 
 
-  private static Statement getCandidateForSplitting(Statement statement) {
+  // Only nodes on a cycle can make the graph irreducible, so the candidates are taken from the strongly connected
+  // components. Entries of a cycle come first, then nodes with fewer successors, then those with less code to copy.
+  private static Statement getCandidateForSplitting(Statement statement, List<List<Statement>> components) {
 
     Statement candidateForSplitting = null;
+    boolean entryCandidateForSplitting = false;
     int sizeCandidateForSplitting = Integer.MAX_VALUE;
     int succsCandidateForSplitting = Integer.MAX_VALUE;
 
-    for (Statement stat : statement.getStats()) {
+    for (List<Statement> component : components) {
+      if (!isCycle(component)) {
+        continue;
+      }
 
-      Set<Statement> setPreds = stat.getNeighboursSet(StatEdge.TYPE_REGULAR, Statement.DIRECTION_BACKWARD);
+      Set<Statement> setComponent = new HashSet<Statement>(component);
 
-      if (setPreds.size() > 1) {
-        int succCount = stat.getNeighboursSet(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD).size();
-        if (succCount <= succsCandidateForSplitting) {
-          int size = getStatementSize(stat) * (setPreds.size() - 1);
+      for (Statement stat : component) {
 
-          if (succCount < succsCandidateForSplitting ||
-              size < sizeCandidateForSplitting) {
-            candidateForSplitting = stat;
-            sizeCandidateForSplitting = size;
-            succsCandidateForSplitting = succCount;
+        Set<Statement> setPreds = stat.getNeighboursSet(StatEdge.TYPE_REGULAR, Statement.DIRECTION_BACKWARD);
+
+        if (setPreds.size() > 1) {
+          boolean entry = stat == statement.getFirst() || !setComponent.containsAll(setPreds);
+          if (candidateForSplitting != null && entryCandidateForSplitting && !entry) {
+            continue;
+          }
+
+          int succCount = stat.getNeighboursSet(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD).size();
+          boolean better = candidateForSplitting == null || entry != entryCandidateForSplitting;
+
+          if (better || succCount <= succsCandidateForSplitting) {
+            int size = getStatementSize(stat) * (setPreds.size() - 1);
+
+            if (better || succCount < succsCandidateForSplitting || size < sizeCandidateForSplitting) {
+              candidateForSplitting = stat;
+              entryCandidateForSplitting = entry;
+              sizeCandidateForSplitting = size;
+              succsCandidateForSplitting = succCount;
+            }
           }
         }
       }
@@ -135,19 +170,51 @@ public class IrreducibleCFGDeobfuscator {
     return candidateForSplitting;
   }
 
-  public static boolean splitIrreducibleNode(Statement statement) {
+  private static boolean isCycle(List<Statement> component) {
+    if (component.size() > 1) {
+      return true;
+    }
+    Statement stat = component.get(0);
+    return stat.getNeighboursSet(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD).contains(stat);
+  }
+
+  // Copies a node of an irreducible cycle as long as the copied code stays within the limit of the method. Otherwise,
+  // and on the last attempt, the cycle is given a single entry instead, if it has several entries itself.
+  public static boolean splitIrreducibleNode(Statement statement, boolean lastAttempt) {
+
+    List<List<Statement>> components = StrongConnectivityHelper.componentsOf(statement);
 
-    Statement splitnode = getCandidateForSplitting(statement);
+    Statement splitnode = getCandidateForSplitting(statement, components);
     if (splitnode == null) {
       return false;
     }
 
+    List<Statement> component = null;
+    for (List<Statement> lst : components) {
+      if (lst.contains(splitnode)) {
+        component = lst;
+      }
+    }
+
+    if (lastAttempt && dispatchEntries(statement, component)) {
+      return true;
+    }
+
+    MethodBudget budget = MethodBudget.current();
+    if (budget.isExhausted() || !budget.chargeCopiedCode(getStatementSize(splitnode))) {
+      return !lastAttempt && dispatchEntries(statement, component);
+    }
+
     StatEdge enteredge = splitnode.getPredecessorEdges(StatEdge.TYPE_REGULAR).iterator().next();
 
     // copy the smallest statement
-    Statement splitcopy = copyStatement(splitnode, null, new HashMap<Statement, Statement>());
+    HashMap<Statement, Statement> mapCopies = new HashMap<Statement, Statement>();
+    Statement splitcopy = copyStatement(splitnode, null, mapCopies);
     initCopiedStatement(splitcopy);
 
+    // splitting is required to structure the method at all, so the copies are only charged to the budget
+    budget.charge(mapCopies.size());
+
     // insert the copy
     splitcopy.setParent(statement);
     statement.getStats().addWithKey(splitcopy, splitcopy.id);
@@ -170,6 +237,141 @@ public class IrreducibleCFGDeobfuscator {
     return true;
   }
 
+  // Gives a cycle with several entries a single one without copying code: every edge to an entry stores the number of
+  // the entry in a new variable and continues to a switch on the variable, which branches to the entry. Edges from
+  // inside and from outside of the cycle get separate assignments, so the cycle is only entered at the switch.
+  private static boolean dispatchEntries(Statement statement, List<Statement> component) {
+
+    Set<Statement> setComponent = new HashSet<Statement>(component);
+
+    List<Statement> lstEntries = new ArrayList<Statement>();
+    for (Statement stat : statement.getStats()) {
+      if (setComponent.contains(stat) &&
+          (stat == statement.getFirst() ||
+           !setComponent.containsAll(stat.getNeighboursSet(StatEdge.TYPE_REGULAR, Statement.DIRECTION_BACKWARD)))) {
+        lstEntries.add(stat);
+      }
+    }
+
+    if (lstEntries.size() < 2) {
+      return false;
+    }
+
+    // handlers cannot be routed through the switch, so entries reached by exception edges are left to splitting
+    for (Statement entry : lstEntries) {
+      if (!entry.getPredecessorEdges(StatEdge.TYPE_EXCEPTION).isEmpty()) {
+        return false;
+      }
+    }
+
+    int bytecodeVersion = ((StructClass)DecompilerContext.getProperty(DecompilerContext.CURRENT_CLASS)).getBytecodeVersion();
+    int var = DecompilerContext.getCounterContainer().getCounterAndIncrement(CounterContainer.VAR_COUNTER);
+    int offset = lstEntries.get(0).getBasichead().getBlock().getOldOffset(0);
+
+    // switch on the variable, the last entry is taken by default
+    int[] values = new int[lstEntries.size() - 1];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i;
+    }
+
+    // default, low and high, jump offsets are not needed any more
+    int[] operands = new int[values.length + 3];
+    operands[2] = values.length - 1;
+
+    SwitchInstruction instr = (SwitchInstruction)ConstantsUtil.getInstructionInstance(
+      CodeConstants.opc_tableswitch, false, CodeConstants.GROUP_SWITCH, bytecodeVersion, operands);
+    instr.setValues(values);
+    instr.setDestinations(new int[values.length]);
+
+    Statement dispatch = createBlockStatement(offset,
+      ConstantsUtil.getInstructionInstance(CodeConstants.opc_iload, false, CodeConstants.GROUP_GENERAL, bytecodeVersion, new int[]{var}),
+      instr);
+    dispatch.setParent(statement);
+    statement.getStats().addWithKey(dispatch, dispatch.id);
+
+    dispatch.addSuccessor(new StatEdge(StatEdge.TYPE_REGULAR, dispatch, lstEntries.get(values.length)));
+    for (int i = 0; i < values.length; i++) {
+      dispatch.addSuccessor(new StatEdge(StatEdge.TYPE_REGULAR, dispatch, lstEntries.get(i)));
+    }
+
+    // assignments inside of the cycle meet in an empty block, so that the cycle is closed by a single edge
+    Statement join = createBlockStatement(offset);
+    join.setParent(statement);
+    statement.getStats().addWithKey(join, join.id);
+    join.addSuccessor(new StatEdge(StatEdge.TYPE_REGULAR, join, dispatch));
+
+    for (int i = 0; i < lstEntries.size(); i++) {
+      Statement entry = lstEntries.get(i);
+
+      Statement outer = null, inner = null;
+      if (entry == statement.getFirst()) {
+        outer = createAssignment(statement, dispatch, var, i, offset, bytecodeVersion);
+        statement.setFirst(outer);
+      }
+
+      for (StatEdge prededge : entry.getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL)) {
+        if (prededge.getSource() == dispatch) {
+          continue;
+        }
+
+        Statement assignment;
+        if (setComponent.contains(getChildContaining(statement, prededge.getSource()))) {
+          if (inner == null) {
+            inner = createAssignment(statement, join, var, i, offset, bytecodeVersion);
+          }
+          assignment = inner;
+        }
+        else {
+          if (outer == null) {
+            outer = createAssignment(statement, dispatch, var, i, offset, bytecodeVersion);
+          }
+          assignment = outer;
+        }
+
+        entry.removePredecessor(prededge);
+        prededge.getSource().changeEdgeNode(Statement.DIRECTION_FORWARD, prededge, assignment);
+        assignment.addPredecessor(prededge);
+      }
+    }
+
+    DecompilerContext.getLogger().writeMessage("Irreducible loop with " + lstEntries.size() + " entries dispatched on a variable",
+                                               IFernflowerLogger.Severity.INFO);
+
+    return true;
+  }
+
+  private static Statement createAssignment(Statement statement, Statement next, int var, int value, int offset,
+                                            int bytecodeVersion) {
+    Statement assignment = createBlockStatement(offset,
+      ConstantsUtil.getInstructionInstance(CodeConstants.opc_sipush, false, CodeConstants.GROUP_GENERAL, bytecodeVersion, new int[]{value}),
+      ConstantsUtil.getInstructionInstance(CodeConstants.opc_istore, false, CodeConstants.GROUP_GENERAL, bytecodeVersion, new int[]{var}));
+    assignment.setParent(statement);
+    statement.getStats().addWithKey(assignment, assignment.id);
+    assignment.addSuccessor(new StatEdge(StatEdge.TYPE_REGULAR, assignment, next));
+    return assignment;
+  }
+
+  // synthetic instructions are attributed to the given offset, so that the block has a position in the method
+  private static Statement createBlockStatement(int offset, Instruction... instructions) {
+    BasicBlock block = new BasicBlock(DecompilerContext.getCounterContainer().getCounterAndIncrement(CounterContainer.STATEMENT_COUNTER));
+
+    SimpleInstructionSequence seq = new SimpleInstructionSequence();
+    for (Instruction instr : instructions) {
+      seq.addInstruction(instr, -1);
+      block.getInstrOldOffsets().add(offset);
+    }
+    block.setSeq(seq);
+
+    return new BasicBlockStatement(block);
+  }
+
+  private static Statement getChildContaining(Statement statement, Statement stat) {
+    while (stat != null && stat.getParent() != statement) {
+      stat = stat.getParent();
+    }
+    return stat;
+  }
+
   private static int getStatementSize(Statement statement) {
 
     int res = 0;
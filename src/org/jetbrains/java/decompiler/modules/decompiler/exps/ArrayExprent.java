@@ -22,9 +22,7 @@ import org.jetbrains.java.decompiler.modules.decompiler.vars.CheckTypesResult;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.List;
 
 public class ArrayExprent extends Exprent {
 
@@ -68,11 +66,9 @@ public class ArrayExprent extends Exprent {
     return result;
   }
 
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
-    lst.add(array);
-    lst.add(index);
-    return lst;
+  @Override
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return visitChild(array, visitor) && visitChild(index, visitor);
   }
 
   @Override
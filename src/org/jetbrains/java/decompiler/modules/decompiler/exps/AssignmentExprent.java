@@ -26,9 +26,7 @@ import org.jetbrains.java.decompiler.struct.StructField;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.List;
 
 public class AssignmentExprent extends Exprent {
 
@@ -92,11 +90,8 @@ public class AssignmentExprent extends Exprent {
   }
 
   @Override
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
-    lst.add(left);
-    lst.add(right);
-    return lst;
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return visitChild(left, visitor) && visitChild(right, visitor);
   }
 
   @Override
@@ -107,10 +107,6 @@ public class ConstExprent extends Exprent {
     return Exprent.MULTIPLE_USES | Exprent.SIDE_EFFECTS_FREE;
   }
 
-  public List<Exprent> getAllExprents() {
-    return new ArrayList<Exprent>();
-  }
-
   @Override
   public TextBuffer toJava(int indent, BytecodeMappingTracer tracer) {
     boolean literal = DecompilerContext.getOption(IFernflowerPreferences.LITERALS_AS_IS);
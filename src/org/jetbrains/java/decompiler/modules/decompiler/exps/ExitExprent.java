@@ -30,9 +30,7 @@ import org.jetbrains.java.decompiler.struct.match.MatchEngine;
 import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.List;
 
 public class ExitExprent extends Exprent {
 
@@ -70,12 +68,8 @@ public class ExitExprent extends Exprent {
   }
 
   @Override
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
-    if (value != null) {
-      lst.add(value);
-    }
-    return lst;
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return visitChild(value, visitor);
   }
 
   @Override
@@ -86,17 +86,12 @@ public abstract class Exprent implements IMatchable {
     return new CheckTypesResult();
   }
 
-  public boolean containsExprent(Exprent exprent) {
-    List<Exprent> listTemp = new ArrayList<Exprent>(getAllExprents(true));
-    listTemp.add(this);
-
-    for (Exprent lstExpr : listTemp) {
-      if (lstExpr.equals(exprent)) {
-        return true;
+  public boolean containsExprent(final Exprent exprent) {
+    return !visitPreOrder(new ExprentVisitor() {
+      public boolean visit(Exprent expr, Exprent parent) {
+        return !expr.equals(exprent);
       }
-    }
-
-    return false;
+    });
   }
 
   public List<Exprent> getAllExprents(boolean recursive) {
@@ -110,20 +105,47 @@ public abstract class Exprent implements IMatchable {
   }
 
   public Set<VarVersionPair> getAllVariables() {
-    List<Exprent> lstAllExprents = getAllExprents(true);
-    lstAllExprents.add(this);
+    final Set<VarVersionPair> set = new HashSet<VarVersionPair>();
+    visitPreOrder(new ExprentVisitor() {
+      public boolean visit(Exprent expr, Exprent parent) {
+        if (expr.type == EXPRENT_VAR) {
+          set.add(new VarVersionPair((VarExprent)expr));
+        }
+        return true;
+      }
+    });
+    return set;
+  }
 
-    Set<VarVersionPair> set = new HashSet<VarVersionPair>();
-    for (Exprent expr : lstAllExprents) {
-      if (expr.type == EXPRENT_VAR) {
-        set.add(new VarVersionPair((VarExprent)expr));
+  // Walks this exprent and its descendants without building intermediate lists. Children are visited in the order of
+  // getAllExprents(), which differs from the order of getAllExprents(true). Returns false if the visitor stopped the walk.
+  public boolean visitPreOrder(ExprentVisitor visitor) {
+    return visitor.visit(this, null) && visitChildren(new PreOrderWalk(visitor));
+  }
+
+  // the single place an exprent type lists its children, exprents without children keep the default
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return true;
+  }
+
+  protected boolean visitChild(Exprent child, ChildVisitor visitor) {
+    return child == null || visitor.visitChild(child, this);
+  }
+
+  protected boolean visitChildren(List<Exprent> children, ChildVisitor visitor) {
+    for (int i = 0; i < children.size(); i++) {
+      if (!visitor.visitChild(children.get(i), this)) {
+        return false;
       }
     }
-    return set;
+    return true;
   }
 
+  // direct children, as listed by visitChildren()
   public List<Exprent> getAllExprents() {
-    throw new RuntimeException("not implemented");
+    ChildCollector collector = new ChildCollector();
+    visitChildren(collector);
+    return collector.children;
   }
 
   public Exprent copy() {
@@ -246,4 +268,37 @@ public abstract class Exprent implements IMatchable {
     }
     return ret;
   }
+
+  public interface ExprentVisitor {
+    // parent is null for the exprent the walk was started on; return false to stop the walk
+    boolean visit(Exprent exprent, Exprent parent);
+  }
+
+  // receives the direct children of an exprent from visitChildren()
+  protected interface ChildVisitor {
+    boolean visitChild(Exprent child, Exprent parent);
+  }
+
+  private static class PreOrderWalk implements ChildVisitor {
+    private final ExprentVisitor visitor;
+
+    private PreOrderWalk(ExprentVisitor visitor) {
+      this.visitor = visitor;
+    }
+
+    @Override
+    public boolean visitChild(Exprent child, Exprent parent) {
+      return visitor.visit(child, parent) && child.visitChildren(this);
+    }
+  }
+
+  private static class ChildCollector implements ChildVisitor {
+    private final List<Exprent> children = new ArrayList<Exprent>();
+
+    @Override
+    public boolean visitChild(Exprent child, Exprent parent) {
+      children.add(child);
+      return true;
+    }
+  }
 }
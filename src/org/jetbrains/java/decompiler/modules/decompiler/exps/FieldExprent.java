@@ -35,9 +35,7 @@ import org.jetbrains.java.decompiler.struct.match.MatchNode.RuleValue;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 import org.jetbrains.java.decompiler.util.TextUtil;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.List;
 
 public class FieldExprent extends Exprent {
 
@@ -87,12 +85,8 @@ public class FieldExprent extends Exprent {
   }
 
   @Override
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
-    if (instance != null) {
-      lst.add(instance);
-    }
-    return lst;
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return visitChild(instance, visitor);
   }
 
   @Override
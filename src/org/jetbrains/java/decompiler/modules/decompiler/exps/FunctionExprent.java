@@ -412,10 +412,8 @@ public class FunctionExprent extends Exprent {
   }
 
   @Override
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
-    lst.addAll(lstOperands);
-    return lst;
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return visitChildren(lstOperands, visitor);
   }
 
   @Override
@@ -106,10 +106,8 @@ public class IfExprent extends Exprent {
   }
 
   @Override
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
-    lst.add(condition);
-    return lst;
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return visitChild(condition, visitor);
   }
 
   @Override
@@ -232,13 +232,8 @@ public class InvocationExprent extends Exprent {
   }
 
   @Override
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
-    if (instance != null) {
-      lst.add(instance);
-    }
-    lst.addAll(lstParameters);
-    return lst;
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return visitChild(instance, visitor) && visitChildren(lstParameters, visitor);
   }
 
 
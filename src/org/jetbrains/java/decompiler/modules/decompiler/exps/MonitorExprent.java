@@ -19,9 +19,7 @@ import org.jetbrains.java.decompiler.main.TextBuffer;
 import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.List;
 
 public class MonitorExprent extends Exprent {
 
@@ -45,10 +43,8 @@ public class MonitorExprent extends Exprent {
   }
 
   @Override
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
-    lst.add(value);
-    return lst;
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return visitChild(value, visitor);
   }
 
   @Override
@@ -119,25 +119,15 @@ public class NewExprent extends Exprent {
   }
 
   @Override
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
+  protected boolean visitChildren(ChildVisitor visitor) {
     if (newType.arrayDim == 0) {
       if (constructor != null) {
-        Exprent constructor_instance = constructor.getInstance();
-
-        if (constructor_instance != null) { // should be true only for a lambda expression with a virtual content method
-          lst.add(constructor_instance);
-        }
-
-        lst.addAll(constructor.getLstParameters());
+        return visitChild(constructor.getInstance(), visitor) &&
+               visitChildren(constructor.getLstParameters(), visitor);
       }
+      return true;
     }
-    else {
-      lst.addAll(lstDims);
-      lst.addAll(lstArrayElements);
-    }
-
-    return lst;
+    return visitChildren(lstDims, visitor) && visitChildren(lstArrayElements, visitor);
   }
 
   @Override
@@ -79,10 +79,8 @@ public class SwitchExprent extends Exprent {
   }
 
   @Override
-  public List<Exprent> getAllExprents() {
-    List<Exprent> lst = new ArrayList<Exprent>();
-    lst.add(value);
-    return lst;
+  protected boolean visitChildren(ChildVisitor visitor) {
+    return visitChild(value, visitor);
   }
 
   @Override
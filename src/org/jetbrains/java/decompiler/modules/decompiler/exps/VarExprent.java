@@ -35,9 +35,7 @@ import org.jetbrains.java.decompiler.struct.match.MatchNode;
 import org.jetbrains.java.decompiler.struct.match.MatchNode.RuleValue;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.List;
 
 public class VarExprent extends Exprent {
 
@@ -85,11 +83,6 @@ public class VarExprent extends Exprent {
     return Exprent.MULTIPLE_USES | Exprent.SIDE_EFFECTS_FREE;
   }
 
-  @Override
-  public List<Exprent> getAllExprents() {
-    return new ArrayList<Exprent>();
-  }
-
   @Override
   public Exprent copy() {
     VarExprent var = new VarExprent(index, getVarType(), processor);
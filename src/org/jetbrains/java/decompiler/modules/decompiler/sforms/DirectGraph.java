@@ -19,10 +19,7 @@ import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper.FinallyPathWrapper;
 import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 
 public class DirectGraph {
@@ -43,6 +40,67 @@ public class DirectGraph {
   // nodes, that are exception exits of a finally block with monitor variable
   public final HashMap<String, String> mapFinallyMonitorExceptionPathExits = new HashMap<String, String>();
 
+  // number of node indices, including nodes not reachable from the first one
+  private int indexCount;
+
+  // node index, successor on the negative if branch
+  private DirectNode[] negIfBranches;
+
+  // node index, short range finally paths leaving the node
+  private List<List<FinallyPathWrapper>> shortRangeFinallyPaths;
+
+  // Assigns each node a dense index, so that per-node state can be kept in arrays. Nodes in graph order come first,
+  // followed by those not reachable from the first node. The latter are no longer part of the graph, but may still
+  // appear as predecessors or finally path sources.
+  public void indexNodes(List<DirectNode> lstAllNodes) {
+    for (DirectNode node : lstAllNodes) {
+      node.index = -1;
+    }
+
+    int index = 0;
+    for (DirectNode node : nodes) {
+      node.index = index++;
+    }
+
+    Map<String, DirectNode> mapNodes = new HashMap<String, DirectNode>();
+    for (DirectNode node : lstAllNodes) {
+      if (node.index < 0) {
+        node.index = index++;
+      }
+      mapNodes.put(node.id, node);
+    }
+
+    indexCount = index;
+
+    negIfBranches = new DirectNode[indexCount];
+    for (Map.Entry<String, String> ent : mapNegIfBranch.entrySet()) {
+      DirectNode source = mapNodes.get(ent.getKey());
+      if (source != null) {
+        negIfBranches[source.index] = mapNodes.get(ent.getValue());
+      }
+    }
+
+    shortRangeFinallyPaths = new ArrayList<List<FinallyPathWrapper>>(Collections.<List<FinallyPathWrapper>>nCopies(indexCount, null));
+    for (Map.Entry<String, List<FinallyPathWrapper>> ent : mapShortRangeFinallyPaths.entrySet()) {
+      DirectNode exit = mapNodes.get(ent.getKey());
+      if (exit != null) {
+        shortRangeFinallyPaths.set(exit.index, ent.getValue());
+      }
+    }
+  }
+
+  public int getIndexCount() {
+    return indexCount;
+  }
+
+  public DirectNode getNegIfBranch(DirectNode node) {
+    return negIfBranches[node.index];
+  }
+
+  public List<FinallyPathWrapper> getShortRangeFinallyPaths(DirectNode node) {
+    return shortRangeFinallyPaths.get(node.index);
+  }
+
   public void sortReversePostOrder() {
     LinkedList<DirectNode> res = new LinkedList<DirectNode>();
     addToReversePostOrderListIterative(first, res);
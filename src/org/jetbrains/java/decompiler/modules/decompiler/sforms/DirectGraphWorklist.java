@@ -0,0 +1,141 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler.sforms;
+
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper.FinallyPathWrapper;
+
+import java.util.*;
+
+/*
+ * Keeps track of the nodes an iterative pass over the direct graph has to revisit. Passes still walk the nodes in graph
+ * order, but a node is only processed when the out map of a node its in map is built from has changed since its last
+ * visit. Besides the predecessors, these are the sources of the finally paths leaving a predecessor.
+ */
+public class DirectGraphWorklist {
+
+  private final DirectGraph dgraph;
+  private final int[][] dependents;
+  private final BitSet pending = new BitSet();
+
+  private int passes;
+  private int visits;
+
+  // positions in the graph coincide with node indices, see DirectGraph.indexNodes()
+  public DirectGraphWorklist(DirectGraph dgraph) {
+    this.dgraph = dgraph;
+
+    int size = dgraph.nodes.size();
+
+    List<Set<Integer>> lstDependents = new ArrayList<Set<Integer>>(size);
+    for (int i = 0; i < size; i++) {
+      lstDependents.add(new LinkedHashSet<Integer>());
+    }
+
+    for (int i = 0; i < size; i++) {
+      for (DirectNode pred : dgraph.nodes.get(i).preds) {
+        addDependent(lstDependents, pred, i);
+
+        for (DirectNode source : getFinallySources(pred)) {
+          addDependent(lstDependents, source, i);
+        }
+      }
+    }
+
+    dependents = new int[size][];
+    for (int i = 0; i < size; i++) {
+      Set<Integer> set = lstDependents.get(i);
+      dependents[i] = new int[set.size()];
+      int index = 0;
+      for (Integer dependent : set) {
+        dependents[i][index++] = dependent;
+      }
+    }
+
+    pending.set(0, size);
+  }
+
+  private static void addDependent(List<Set<Integer>> lstDependents, DirectNode node, int dependent) {
+    // nodes outside of the graph are never processed
+    if (node.index < lstDependents.size()) {
+      lstDependents.get(node.index).add(dependent);
+    }
+  }
+
+  private Set<DirectNode> getFinallySources(DirectNode exit) {
+    Set<DirectNode> sources = new HashSet<DirectNode>();
+
+    LinkedList<DirectNode> stack = new LinkedList<DirectNode>();
+    stack.add(exit);
+
+    while (!stack.isEmpty()) {
+      List<FinallyPathWrapper> paths = dgraph.getShortRangeFinallyPaths(stack.removeFirst());
+      if (paths != null) {
+        for (FinallyPathWrapper finwrap : paths) {
+          if (sources.add(finwrap.sourceNode)) {
+            stack.add(finwrap.sourceNode);
+          }
+        }
+      }
+    }
+
+    return sources;
+  }
+
+  public void startPass() {
+    passes++;
+  }
+
+  // whether the node at the given position has to be processed, clears its pending state
+  public boolean take(int position) {
+    if (pending.get(position)) {
+      pending.clear(position);
+      visits++;
+      return true;
+    }
+    return false;
+  }
+
+  // whether some node still has to be processed, i.e. the iteration has not reached its fixed point
+  public boolean hasPending() {
+    return !pending.isEmpty();
+  }
+
+  // the out map of the node at the given position has changed
+  public void changed(int position) {
+    for (int dependent : dependents[position]) {
+      pending.set(dependent);
+    }
+  }
+
+  // node visits compared to what a full sweep per pass would have cost
+  public void logStatistics(String name) {
+    IFernflowerLogger logger = DecompilerContext.getLogger();
+    if (logger.accepts(IFernflowerLogger.Severity.TRACE)) {
+      String message = name + ": " + visits + " of " + passes * dependents.length + " node visits in " + passes + " passes";
+      logger.writeMessage(message, IFernflowerLogger.Severity.TRACE);
+    }
+  }
+
+  public int getPasses() {
+    return passes;
+  }
+
+  public int getVisits() {
+    return visits;
+  }
+}
@@ -36,6 +36,9 @@ public class DirectNode {
 
   public final String id;
 
+  // dense index assigned once the graph is built, see DirectGraph.indexNodes()
+  public int index = -1;
+
   public BasicBlockStatement block;
 
   public final Statement statement;
@@ -66,7 +66,10 @@ public class FlattenStatementsHelper {
     setEdges();
 
     graph.first = graph.nodes.getWithKey(mapDestinationNodes.get(root.id)[0]);
+
+    List<DirectNode> lstAllNodes = new ArrayList<DirectNode>(graph.nodes);
     graph.sortReversePostOrder();
+    graph.indexNodes(lstAllNodes);
 
     return graph;
   }
@@ -475,7 +478,7 @@ public class FlattenStatementsHelper {
           DirectNode dest = graph.nodes.getWithKey(mapDestinationNodes.get(Integer.parseInt(arr[1]))[isContinueEdge ? 1 : 0]);
           DirectNode enter = graph.nodes.getWithKey(mapDestinationNodes.get(Integer.parseInt(arr[2]))[0]);
 
-          newLst.add(new FinallyPathWrapper(arr[0], dest.id, enter.id));
+          newLst.add(new FinallyPathWrapper(graph.nodes.getWithKey(arr[0]), dest, enter));
 
           if (i == 0 && arr[3] != null) {
             graph.mapFinallyMonitorExceptionPathExits.put(ent.getKey(), dest.id);
@@ -500,10 +503,18 @@ public class FlattenStatementsHelper {
     public final String destination;
     public final String entry;
 
-    private FinallyPathWrapper(String source, String destination, String entry) {
-      this.source = source;
-      this.destination = destination;
-      this.entry = entry;
+    public final DirectNode sourceNode;
+    public final DirectNode destinationNode;
+    public final DirectNode entryNode;
+
+    private FinallyPathWrapper(DirectNode source, DirectNode destination, DirectNode entry) {
+      this.source = source.id;
+      this.destination = destination.id;
+      this.entry = entry.id;
+
+      this.sourceNode = source;
+      this.destinationNode = destination;
+      this.entryNode = entry;
     }
 
     @Override
@@ -16,6 +16,7 @@
 package org.jetbrains.java.decompiler.modules.decompiler.sforms;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.rels.MethodProcessorRunnable;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.AssignmentExprent;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.FunctionExprent;
@@ -41,17 +42,17 @@ import java.util.Map.Entry;
 
 public class SSAConstructorSparseEx {
 
-  // node id, var, version
-  private final HashMap<String, SFormsFastMapDirect> inVarVersions = new HashMap<String, SFormsFastMapDirect>();
+  // node index, var, version
+  private SFormsFastMapDirect[] inVarVersions;
 
-  // node id, var, version (direct branch)
-  private final HashMap<String, SFormsFastMapDirect> outVarVersions = new HashMap<String, SFormsFastMapDirect>();
+  // node index, var, version (direct branch)
+  private SFormsFastMapDirect[] outVarVersions;
 
-  // node id, var, version (negative branch)
-  private final HashMap<String, SFormsFastMapDirect> outNegVarVersions = new HashMap<String, SFormsFastMapDirect>();
+  // node index, var, version (negative branch)
+  private SFormsFastMapDirect[] outNegVarVersions;
 
-  // node id, var, version
-  private final HashMap<String, SFormsFastMapDirect> extraVarVersions = new HashMap<String, SFormsFastMapDirect>();
+  // node index, var, version
+  private SFormsFastMapDirect[] extraVarVersions;
 
   // (var, version), version
   private final HashMap<VarVersionPair, FastSparseSet<Integer>> phi = new HashMap<VarVersionPair, FastSparseSet<Integer>>();
@@ -79,25 +80,43 @@ public class SSAConstructorSparseEx {
     factory = new FastSparseSetFactory<Integer>(setInit);
 
     SFormsFastMapDirect firstmap = createFirstMap(mt);
-    extraVarVersions.put(dgraph.first.id, firstmap);
+
+    int count = dgraph.getIndexCount();
+    inVarVersions = new SFormsFastMapDirect[count];
+    outVarVersions = new SFormsFastMapDirect[count];
+    outNegVarVersions = new SFormsFastMapDirect[count];
+    extraVarVersions = new SFormsFastMapDirect[count];
+
+    extraVarVersions[dgraph.first.index] = firstmap;
 
     setCatchMaps(root, dgraph, flatthelper);
 
+    DirectGraphWorklist worklist = new DirectGraphWorklist(dgraph);
+
     int itteration = 1;
-    HashSet<String> updated = new HashSet<String>();
     do {
+      MethodProcessorRunnable.checkInterrupted();
       // System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
-      ssaStatements(dgraph, updated, mt, itteration++);
+      ssaStatements(dgraph, worklist, mt, itteration++);
       // System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
     }
-    while (!updated.isEmpty());
+    while (worklist.hasPending());
+
+    worklist.logStatistics("SSA " + mt.getName() + mt.getDescriptor());
   }
 
-  private void ssaStatements(DirectGraph dgraph, HashSet<String> updated, StructMethod mt, int itteration) {
+  private void ssaStatements(DirectGraph dgraph, DirectGraphWorklist worklist, StructMethod mt, int itteration) {
 
     org.jetbrains.java.decompiler.util.DotExporter.toDotFile(dgraph, mt, "ssaStatements_" + itteration, outVarVersions);
 
-    for (DirectNode node : dgraph.nodes) {
+    worklist.startPass();
+
+    for (int i = 0; i < dgraph.nodes.size(); i++) {
+      if (!worklist.take(i)) {
+        continue;
+      }
+
+      DirectNode node = dgraph.nodes.get(i);
 
       //			if (node.id.endsWith("_inc")) {
       //				System.out.println();
@@ -109,10 +128,9 @@ public class SSAConstructorSparseEx {
       //				}
       //			}
 
-      updated.remove(node.id);
       mergeInVarMaps(node, dgraph);
 
-      SFormsFastMapDirect varmap = inVarVersions.get(node.id);
+      SFormsFastMapDirect varmap = inVarVersions[node.index];
       varmap = new SFormsFastMapDirect(varmap);
 
       SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
@@ -127,18 +145,16 @@ public class SSAConstructorSparseEx {
         varmaparr[1] = varmaparr[0];
       }
 
-      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
-                             || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
+      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions[node.index])
+                             || (outNegVarVersions[node.index] != null && !mapsEqual(varmaparr[1], outNegVarVersions[node.index]));
 
       if (this_updated) {
-        outVarVersions.put(node.id, varmaparr[0]);
-        if (dgraph.mapNegIfBranch.containsKey(node.id)) {
-          outNegVarVersions.put(node.id, varmaparr[1]);
+        outVarVersions[node.index] = varmaparr[0];
+        if (dgraph.getNegIfBranch(node) != null) {
+          outNegVarVersions[node.index] = varmaparr[1];
         }
 
-        for (DirectNode nd : node.succs) {
-          updated.add(nd.id);
-        }
+        worklist.changed(i);
       }
     }
   }
@@ -300,7 +316,7 @@ public class SSAConstructorSparseEx {
     SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
 
     for (DirectNode pred : node.preds) {
-      SFormsFastMapDirect mapOut = getFilteredOutMap(node.id, pred.id, dgraph, node.id);
+      SFormsFastMapDirect mapOut = getFilteredOutMap(node, pred, dgraph, node);
       if (mapNew.isEmpty()) {
         mapNew = mapOut.getCopy();
       }
@@ -309,8 +325,8 @@ public class SSAConstructorSparseEx {
       }
     }
 
-    if (extraVarVersions.containsKey(node.id)) {
-      SFormsFastMapDirect mapExtra = extraVarVersions.get(node.id);
+    SFormsFastMapDirect mapExtra = extraVarVersions[node.index];
+    if (mapExtra != null) {
       if (mapNew.isEmpty()) {
         mapNew = mapExtra.getCopy();
       }
@@ -319,23 +335,23 @@ public class SSAConstructorSparseEx {
       }
     }
 
-    inVarVersions.put(node.id, mapNew);
+    inVarVersions[node.index] = mapNew;
   }
 
-  private SFormsFastMapDirect getFilteredOutMap(String nodeid, String predid, DirectGraph dgraph, String destid) {
+  private SFormsFastMapDirect getFilteredOutMap(DirectNode node, DirectNode pred, DirectGraph dgraph, DirectNode dest) {
 
     SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
 
-    if (nodeid.equals(dgraph.mapNegIfBranch.get(predid))) {
-      if (outNegVarVersions.containsKey(predid)) {
-        mapNew = outNegVarVersions.get(predid).getCopy();
+    if (node == dgraph.getNegIfBranch(pred)) {
+      if (outNegVarVersions[pred.index] != null) {
+        mapNew = outNegVarVersions[pred.index].getCopy();
       }
     }
-    else if (outVarVersions.containsKey(predid)) {
-      mapNew = outVarVersions.get(predid).getCopy();
+    else if (outVarVersions[pred.index] != null) {
+      mapNew = outVarVersions[pred.index].getCopy();
     }
 
-    boolean isFinallyExit = dgraph.mapShortRangeFinallyPaths.containsKey(predid);
+    boolean isFinallyExit = dgraph.getShortRangeFinallyPaths(pred) != null;
 
     if (isFinallyExit && !mapNew.isEmpty()) {
 
@@ -343,29 +359,29 @@ public class SSAConstructorSparseEx {
 
       SFormsFastMapDirect mapTrueSource = new SFormsFastMapDirect();
 
-      String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
-      boolean isExceptionMonitorExit = (exceptionDest != null && !nodeid.equals(exceptionDest));
+      String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(pred.id);
+      boolean isExceptionMonitorExit = (exceptionDest != null && !node.id.equals(exceptionDest));
 
       HashSet<String> setLongPathWrapper = new HashSet<String>();
-      for (FinallyPathWrapper finwraplong : dgraph.mapLongRangeFinallyPaths.get(predid)) {
+      for (FinallyPathWrapper finwraplong : dgraph.mapLongRangeFinallyPaths.get(pred.id)) {
         setLongPathWrapper.add(finwraplong.destination + "##" + finwraplong.source);
       }
 
-      for (FinallyPathWrapper finwrap : dgraph.mapShortRangeFinallyPaths.get(predid)) {
+      for (FinallyPathWrapper finwrap : dgraph.getShortRangeFinallyPaths(pred)) {
         SFormsFastMapDirect map;
 
-        boolean recFinally = dgraph.mapShortRangeFinallyPaths.containsKey(finwrap.source);
+        boolean recFinally = dgraph.getShortRangeFinallyPaths(finwrap.sourceNode) != null;
 
         if (recFinally) {
           // recursion
-          map = getFilteredOutMap(finwrap.entry, finwrap.source, dgraph, destid);
+          map = getFilteredOutMap(finwrap.entryNode, finwrap.sourceNode, dgraph, dest);
         }
         else {
-          if (finwrap.entry.equals(dgraph.mapNegIfBranch.get(finwrap.source))) {
-            map = outNegVarVersions.get(finwrap.source);
+          if (finwrap.entryNode == dgraph.getNegIfBranch(finwrap.sourceNode)) {
+            map = outNegVarVersions[finwrap.sourceNode.index];
           }
           else {
-            map = outVarVersions.get(finwrap.source);
+            map = outVarVersions[finwrap.sourceNode.index];
           }
         }
 
@@ -373,10 +389,10 @@ public class SSAConstructorSparseEx {
         boolean isFalsePath = true;
 
         if (recFinally) {
-          isFalsePath = !finwrap.destination.equals(nodeid);
+          isFalsePath = finwrap.destinationNode != node;
         }
         else {
-          isFalsePath = !setLongPathWrapper.contains(destid + "##" + finwrap.source);
+          isFalsePath = !setLongPathWrapper.contains(dest.id + "##" + finwrap.source);
         }
 
         if (isFalsePath) {
@@ -402,7 +418,7 @@ public class SSAConstructorSparseEx {
 
         mapNewTemp.union(mapTrueSource);
 
-        SFormsFastMapDirect oldInMap = inVarVersions.get(nodeid);
+        SFormsFastMapDirect oldInMap = inVarVersions[node.index];
         if (oldInMap != null) {
           mapNewTemp.union(oldInMap);
         }
@@ -474,7 +490,7 @@ public class SSAConstructorSparseEx {
           map = new SFormsFastMapDirect();
           setCurrentVar(map, varindex, version);
 
-          extraVarVersions.put(dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).id, map);
+          extraVarVersions[dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).index] = map;
           startVars.add(new VarVersionPair(varindex, version));
         }
     }
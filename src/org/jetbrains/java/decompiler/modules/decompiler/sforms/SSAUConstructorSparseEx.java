@@ -16,6 +16,7 @@
 package org.jetbrains.java.decompiler.modules.decompiler.sforms;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.rels.MethodProcessorRunnable;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.*;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper.FinallyPathWrapper;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.*;
@@ -27,6 +28,7 @@ import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.jetbrains.java.decompiler.util.LongHashMap;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 import org.jetbrains.java.decompiler.util.SFormsFastMapDirect;
 import org.jetbrains.java.decompiler.util.VBStyleCollection;
@@ -39,21 +41,17 @@ import java.util.Map.Entry;
 
 public class SSAUConstructorSparseEx {
 
-  // node id, var, version
-  private final HashMap<String, SFormsFastMapDirect> inVarVersions = new HashMap<String, SFormsFastMapDirect>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> inVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  // node index, var, version
+  private SFormsFastMapDirect[] inVarVersions;
 
-  // node id, var, version (direct branch)
-  private final HashMap<String, SFormsFastMapDirect> outVarVersions = new HashMap<String, SFormsFastMapDirect>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> outVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  // node index, var, version (direct branch)
+  private SFormsFastMapDirect[] outVarVersions;
 
-  // node id, var, version (negative branch)
-  private final HashMap<String, SFormsFastMapDirect> outNegVarVersions = new HashMap<String, SFormsFastMapDirect>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> outNegVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  // node index, var, version (negative branch)
+  private SFormsFastMapDirect[] outNegVarVersions;
 
-  // node id, var, version
-  private final HashMap<String, SFormsFastMapDirect> extraVarVersions = new HashMap<String, SFormsFastMapDirect>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> extraVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  // node index, var, version
+  private SFormsFastMapDirect[] extraVarVersions;
 
   // (var, version), version
   private final HashMap<VarVersionPair, HashSet<Integer>> phi = new HashMap<VarVersionPair, HashSet<Integer>>();
@@ -62,14 +60,14 @@ public class SSAUConstructorSparseEx {
   private final HashMap<Integer, Integer> lastversion = new HashMap<Integer, Integer>();
 
   // version, protected ranges (catch, finally)
-  private final HashMap<VarVersionPair, Integer> mapVersionFirstRange = new HashMap<VarVersionPair, Integer>();
+  private final LongHashMap<Integer> mapVersionFirstRange = new LongHashMap<Integer>();
 
   // version, version
-  private final HashMap<VarVersionPair, VarVersionPair> phantomppnodes = new HashMap<VarVersionPair, VarVersionPair>(); // ++ and --
+  private final LongHashMap<VarVersionPair> phantomppnodes = new LongHashMap<VarVersionPair>(); // ++ and --
 
   // node.id, version, version
-  private final HashMap<String, HashMap<VarVersionPair, VarVersionPair>> phantomexitnodes =
-    new HashMap<String, HashMap<VarVersionPair, VarVersionPair>>(); // finally exits
+  private final HashMap<String, LongHashMap<VarVersionPair>> phantomexitnodes =
+    new HashMap<String, LongHashMap<VarVersionPair>>(); // finally exits
 
   // versions memory dependencies
   private final VarVersionsGraph ssuversions = new VarVersionsGraph();
@@ -96,36 +94,55 @@ public class SSAUConstructorSparseEx {
     }
     factory = new FastSparseSetFactory<Integer>(setInit);
 
-    extraVarVersions.put(dgraph.first.id, createFirstMap(mt, root));
+    int count = dgraph.getIndexCount();
+    inVarVersions = new SFormsFastMapDirect[count];
+    outVarVersions = new SFormsFastMapDirect[count];
+    outNegVarVersions = new SFormsFastMapDirect[count];
+    extraVarVersions = new SFormsFastMapDirect[count];
+
+    extraVarVersions[dgraph.first.index] = createFirstMap(mt, root);
 
     setCatchMaps(root, dgraph, flatthelper);
 
 
+    DirectGraphWorklist worklist = new DirectGraphWorklist(dgraph);
+
     int itteration = 1;
-    HashSet<String> updated = new HashSet<String>();
     do {
+      MethodProcessorRunnable.checkInterrupted();
       //			System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
-      ssaStatements(dgraph, updated, false, mt, itteration++);
+      ssaStatements(dgraph, worklist, false, mt, itteration++);
       //			System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
     }
-    while (!updated.isEmpty());
+    while (worklist.hasPending());
 
 
-    ssaStatements(dgraph, updated, true, mt, itteration);
+    worklist.logStatistics("SSAU " + mt.getName() + mt.getDescriptor());
+
+    // final pass over all nodes
+    ssaStatements(dgraph, null, true, mt, itteration);
 
     ssuversions.initDominators();
   }
 
-  private void ssaStatements(DirectGraph dgraph, HashSet<String> updated, boolean calcLiveVars, StructMethod mt, int itteration) {
+  private void ssaStatements(DirectGraph dgraph, DirectGraphWorklist worklist, boolean calcLiveVars, StructMethod mt, int itteration) {
 
     org.jetbrains.java.decompiler.util.DotExporter.toDotFile(dgraph, mt, "ssauStatements_" + itteration);
 
-    for (DirectNode node : dgraph.nodes) {
+    if (worklist != null) {
+      worklist.startPass();
+    }
+
+    for (int i = 0; i < dgraph.nodes.size(); i++) {
+      if (worklist != null && !worklist.take(i)) {
+        continue;
+      }
+
+      DirectNode node = dgraph.nodes.get(i);
 
-      updated.remove(node.id);
       mergeInVarMaps(node, dgraph);
 
-      SFormsFastMapDirect varmap = new SFormsFastMapDirect(inVarVersions.get(node.id));
+      SFormsFastMapDirect varmap = new SFormsFastMapDirect(inVarVersions[node.index]);
 
       SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
 
@@ -148,18 +165,18 @@ public class SSAUConstructorSparseEx {
         varmaparr[1].removeAllFields();
       }
 
-      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
-                             || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
+      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions[node.index])
+                             || (outNegVarVersions[node.index] != null && !mapsEqual(varmaparr[1], outNegVarVersions[node.index]));
 
       if (this_updated) {
 
-        outVarVersions.put(node.id, varmaparr[0]);
-        if (dgraph.mapNegIfBranch.containsKey(node.id)) {
-          outNegVarVersions.put(node.id, varmaparr[1]);
+        outVarVersions[node.index] = varmaparr[0];
+        if (dgraph.getNegIfBranch(node) != null) {
+          outNegVarVersions[node.index] = varmaparr[1];
         }
 
-        for (DirectNode nd : node.succs) {
-          updated.add(nd.id);
+        if (worklist != null) {
+          worklist.changed(i);
         }
       }
     }
@@ -334,7 +351,7 @@ public class SSAUConstructorSparseEx {
             VarVersionPair varpaar = new VarVersionPair(varindex.intValue(), var.getVersion());
 
             // ssu graph
-            VarVersionPair phantomver = phantomppnodes.get(varpaar);
+            VarVersionPair phantomver = phantomppnodes.get(varpaar.toLong());
             if (phantomver == null) {
               // get next version
               Integer nextver = getNextFreeVersion(varindex, null);
@@ -355,7 +372,7 @@ public class SSAUConstructorSparseEx {
               }
               vers.add(nextver);
               createOrUpdatePhiNode(varpaar, vers, stat);
-              phantomppnodes.put(varpaar, phantomver);
+              phantomppnodes.put(varpaar.toLong(), phantomver);
             }
             if (calcLiveVars) {
               varMapToGraph(varpaar, varmap);
@@ -431,7 +448,8 @@ public class SSAUConstructorSparseEx {
     HashSet<Integer> phiVers = new HashSet<Integer>();
 
     // take into account the corresponding mm/pp node if existing
-    int ppvers = phantomppnodes.containsKey(phivar) ? phantomppnodes.get(phivar).version : -1;
+    VarVersionPair ppvar = phantomppnodes.get(phivar.toLong());
+    int ppvers = ppvar != null ? ppvar.version : -1;
 
     // ssu graph
     VarVersionNode phinode = ssuversions.nodes.getWithKey(phivar);
@@ -514,7 +532,7 @@ public class SSAUConstructorSparseEx {
     if (stat != null) { // null iff phantom version
       Integer firstRangeId = getFirstProtectedRange(stat);
       if (firstRangeId != null) {
-        mapVersionFirstRange.put(new VarVersionPair(var, nextver), firstRangeId);
+        mapVersionFirstRange.put(VarVersionPair.toLong(var, nextver), firstRangeId);
       }
     }
 
@@ -527,7 +545,7 @@ public class SSAUConstructorSparseEx {
     SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
 
     for (DirectNode pred : node.preds) {
-      SFormsFastMapDirect mapOut = getFilteredOutMap(node.id, pred.id, dgraph, node.id);
+      SFormsFastMapDirect mapOut = getFilteredOutMap(node, pred, dgraph, node);
       if (mapNew.isEmpty()) {
         mapNew = mapOut.getCopy();
       }
@@ -536,8 +554,8 @@ public class SSAUConstructorSparseEx {
       }
     }
 
-    if (extraVarVersions.containsKey(node.id)) {
-      SFormsFastMapDirect mapExtra = extraVarVersions.get(node.id);
+    SFormsFastMapDirect mapExtra = extraVarVersions[node.index];
+    if (mapExtra != null) {
       if (mapNew.isEmpty()) {
         mapNew = mapExtra.getCopy();
       }
@@ -546,22 +564,22 @@ public class SSAUConstructorSparseEx {
       }
     }
 
-    inVarVersions.put(node.id, mapNew);
+    inVarVersions[node.index] = mapNew;
   }
 
-  private SFormsFastMapDirect getFilteredOutMap(String nodeid, String predid, DirectGraph dgraph, String destid) {
+  private SFormsFastMapDirect getFilteredOutMap(DirectNode node, DirectNode pred, DirectGraph dgraph, DirectNode dest) {
 
     SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
 
-    boolean isFinallyExit = dgraph.mapShortRangeFinallyPaths.containsKey(predid);
+    boolean isFinallyExit = dgraph.getShortRangeFinallyPaths(pred) != null;
 
-    if (nodeid.equals(dgraph.mapNegIfBranch.get(predid))) {
-      if (outNegVarVersions.containsKey(predid)) {
-        mapNew = outNegVarVersions.get(predid).getCopy();
+    if (node == dgraph.getNegIfBranch(pred)) {
+      if (outNegVarVersions[pred.index] != null) {
+        mapNew = outNegVarVersions[pred.index].getCopy();
       }
     }
-    else if (outVarVersions.containsKey(predid)) {
-      mapNew = outVarVersions.get(predid).getCopy();
+    else if (outVarVersions[pred.index] != null) {
+      mapNew = outVarVersions[pred.index].getCopy();
     }
 
     if (isFinallyExit) {
@@ -570,8 +588,8 @@ public class SSAUConstructorSparseEx {
 
       SFormsFastMapDirect mapTrueSource = new SFormsFastMapDirect();
 
-      String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
-      boolean isExceptionMonitorExit = (exceptionDest != null && !nodeid.equals(exceptionDest));
+      String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(pred.id);
+      boolean isExceptionMonitorExit = (exceptionDest != null && !node.id.equals(exceptionDest));
 
       HashSet<String> setLongPathWrapper = new HashSet<String>();
       for (List<FinallyPathWrapper> lstwrapper : dgraph.mapLongRangeFinallyPaths.values()) {
@@ -580,21 +598,21 @@ public class SSAUConstructorSparseEx {
         }
       }
 
-      for (FinallyPathWrapper finwrap : dgraph.mapShortRangeFinallyPaths.get(predid)) {
+      for (FinallyPathWrapper finwrap : dgraph.getShortRangeFinallyPaths(pred)) {
         SFormsFastMapDirect map;
 
-        boolean recFinally = dgraph.mapShortRangeFinallyPaths.containsKey(finwrap.source);
+        boolean recFinally = dgraph.getShortRangeFinallyPaths(finwrap.sourceNode) != null;
 
         if (recFinally) {
           // recursion
-          map = getFilteredOutMap(finwrap.entry, finwrap.source, dgraph, destid);
+          map = getFilteredOutMap(finwrap.entryNode, finwrap.sourceNode, dgraph, dest);
         }
         else {
-          if (finwrap.entry.equals(dgraph.mapNegIfBranch.get(finwrap.source))) {
-            map = outNegVarVersions.get(finwrap.source);
+          if (finwrap.entryNode == dgraph.getNegIfBranch(finwrap.sourceNode)) {
+            map = outNegVarVersions[finwrap.sourceNode.index];
           }
           else {
-            map = outVarVersions.get(finwrap.source);
+            map = outVarVersions[finwrap.sourceNode.index];
           }
         }
 
@@ -602,10 +620,10 @@ public class SSAUConstructorSparseEx {
         boolean isFalsePath = true;
 
         if (recFinally) {
-          isFalsePath = !finwrap.destination.equals(nodeid);
+          isFalsePath = finwrap.destinationNode != node;
         }
         else {
-          isFalsePath = !setLongPathWrapper.contains(destid + "##" + finwrap.source);
+          isFalsePath = !setLongPathWrapper.contains(dest.id + "##" + finwrap.source);
         }
 
         if (isFalsePath) {
@@ -635,9 +653,9 @@ public class SSAUConstructorSparseEx {
         if (!mapTrueSource.isEmpty() && !mapNew.isEmpty()) { // FIXME: what for??
 
           // replace phi versions with corresponding phantom ones
-          HashMap<VarVersionPair, VarVersionPair> mapPhantom = phantomexitnodes.get(predid);
+          LongHashMap<VarVersionPair> mapPhantom = phantomexitnodes.get(pred.id);
           if (mapPhantom == null) {
-            mapPhantom = new HashMap<VarVersionPair, VarVersionPair>();
+            mapPhantom = new LongHashMap<VarVersionPair>();
           }
 
           SFormsFastMapDirect mapExitVar = mapNew.getCopy();
@@ -654,7 +672,7 @@ public class SSAUConstructorSparseEx {
               newSet.remove(version);
 
               // get or create phantom version
-              VarVersionPair phantomvar = mapPhantom.get(exitvar);
+              VarVersionPair phantomvar = mapPhantom.get(exitvar.toLong());
               if (phantomvar == null) {
                 Integer newversion = getNextFreeVersion(exitvar.var, null);
                 phantomvar = new VarVersionPair(exitvar.var, newversion.intValue());
@@ -667,7 +685,7 @@ public class SSAUConstructorSparseEx {
                 exitnode.addSuccessor(edge);
                 phantomnode.addPredecessor(edge);
 
-                mapPhantom.put(exitvar, phantomvar);
+                mapPhantom.put(exitvar.toLong(), phantomvar);
               }
 
               // add phantom version
@@ -676,7 +694,7 @@ public class SSAUConstructorSparseEx {
           }
 
           if (!mapPhantom.isEmpty()) {
-            phantomexitnodes.put(predid, mapPhantom);
+            phantomexitnodes.put(pred.id, mapPhantom);
           }
         }
       }
@@ -746,7 +764,7 @@ public class SSAUConstructorSparseEx {
           map = new SFormsFastMapDirect();
           setCurrentVar(map, varindex, version);
 
-          extraVarVersions.put(dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).id, map);
+          extraVarVersions[dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).index] = map;
           //ssuversions.createOrGetNode(new VarVersionPair(varindex, version));
           ssuversions.createNode(new VarVersionPair(varindex, version));
         }
@@ -836,7 +854,7 @@ public class SSAUConstructorSparseEx {
     return null;
   }
 
-  public HashMap<VarVersionPair, Integer> getMapVersionFirstRange() {
+  public LongHashMap<Integer> getMapVersionFirstRange() {
     return mapVersionFirstRange;
   }
 
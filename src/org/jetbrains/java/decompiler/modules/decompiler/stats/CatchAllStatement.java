@@ -120,7 +120,7 @@ public class CatchAllStatement extends Statement {
 
     boolean labeled = isLabeled();
     if (labeled) {
-      buf.appendIndent(indent).append("label").append(this.getStartEndRange().start).append(":").appendLineSeparator();
+      buf.appendIndent(indent).append(getLabel()).append(":").appendLineSeparator();
       tracer.incrementCurrentSourceLine();
     }
 
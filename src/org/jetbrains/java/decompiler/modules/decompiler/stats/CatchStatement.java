@@ -157,7 +157,7 @@ public class CatchStatement extends Statement {
     buf.append(ExprProcessor.listToJava(varDefinitions, indent, tracer));
 
     if (isLabeled()) {
-      buf.appendIndent(indent).append("label").append(this.getStartEndRange().start).append(":").appendLineSeparator();
+      buf.appendIndent(indent).append(getLabel()).append(":").appendLineSeparator();
       tracer.incrementCurrentSourceLine();
     }
 
@@ -105,7 +105,7 @@ public class SequenceStatement extends Statement {
     buf.append(ExprProcessor.listToJava(varDefinitions, indent, tracer));
 
     if (islabeled) {
-      buf.appendIndent(indent++).append("label").append(this.getStartEndRange().start).append(": {").appendLineSeparator();
+      buf.appendIndent(indent++).append(getLabel()).append(": {").appendLineSeparator();
       tracer.incrementCurrentSourceLine();
     }
 
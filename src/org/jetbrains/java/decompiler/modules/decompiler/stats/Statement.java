@@ -74,11 +74,8 @@ public class Statement implements IMatchable {
   // private fields
   // *****************************************************************************
 
-  private final Map<Integer, List<StatEdge>> mapSuccEdges = new HashMap<Integer, List<StatEdge>>();
-  private final Map<Integer, List<StatEdge>> mapPredEdges = new HashMap<Integer, List<StatEdge>>();
-
-  private final Map<Integer, List<Statement>> mapSuccStates = new HashMap<Integer, List<Statement>>();
-  private final Map<Integer, List<Statement>> mapPredStates = new HashMap<Integer, List<Statement>>();
+  private final EdgeList succEdges = new EdgeList();
+  private final EdgeList predEdges = new EdgeList();
 
   // statement as graph
   protected final VBStyleCollection<Statement, Integer> stats = new VBStyleCollection<Statement, Integer>();
@@ -109,6 +106,9 @@ public class Statement implements IMatchable {
 
   protected HashSet<Statement> continueSet = new HashSet<Statement>();
 
+  // strongly connected components of the children, reused by StrongConnectivityHelper while the graph is unchanged
+  private StrongConnectivityHelper.CachedComponents cachedComponents;
+
   // *****************************************************************************
   // initializers
   // *****************************************************************************
@@ -133,22 +133,8 @@ public class Statement implements IMatchable {
     isMonitorEnter = false;
     containsMonitorExit = false;
 
-    processMap(mapSuccEdges);
-    processMap(mapPredEdges);
-    processMap(mapSuccStates);
-    processMap(mapPredStates);
-  }
-
-  private static <T> void processMap(Map<Integer, List<T>> map) {
-    map.remove(StatEdge.TYPE_EXCEPTION);
-
-    List<T> lst = map.get(STATEDGE_DIRECT_ALL);
-    if (lst != null) {
-      map.put(STATEDGE_ALL, new ArrayList<T>(lst));
-    }
-    else {
-      map.remove(STATEDGE_ALL);
-    }
+    succEdges.removeType(StatEdge.TYPE_EXCEPTION);
+    predEdges.removeType(StatEdge.TYPE_EXCEPTION);
   }
 
   public void collapseNodesToStatement(Statement stat) {
@@ -254,71 +240,17 @@ public class Statement implements IMatchable {
     this.getLabelEdges().add(edge);
   }
 
-  private void addEdgeDirectInternal(int direction, StatEdge edge, int edgetype) {
-
-    Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
-    Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
-
-    List<StatEdge> lst = mapEdges.get(edgetype);
-    if (lst == null) {
-      mapEdges.put(edgetype, lst = new ArrayList<StatEdge>());
-    }
-    lst.add(edge);
-
-    List<Statement> lstStates = mapStates.get(edgetype);
-    if (lstStates == null) {
-      mapStates.put(edgetype, lstStates = new ArrayList<Statement>());
-    }
-    lstStates.add(direction == DIRECTION_BACKWARD ? edge.getSource() : edge.getDestination());
-  }
-
   private void addEdgeInternal(int direction, StatEdge edge) {
-
-    int type = edge.getType();
-
-    int[] arrtypes;
-    if (type == StatEdge.TYPE_EXCEPTION) {
-      arrtypes = new int[]{STATEDGE_ALL, StatEdge.TYPE_EXCEPTION};
+    if (direction == DIRECTION_BACKWARD) {
+      predEdges.add(edge, edge.getType(), edge.getSource());
     }
     else {
-      arrtypes = new int[]{STATEDGE_ALL, STATEDGE_DIRECT_ALL, type};
-    }
-
-    for (int edgetype : arrtypes) {
-      addEdgeDirectInternal(direction, edge, edgetype);
-    }
-  }
-
-  private void removeEdgeDirectInternal(int direction, StatEdge edge, int edgetype) {
-
-    Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
-    Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
-
-    List<StatEdge> lst = mapEdges.get(edgetype);
-    if (lst != null) {
-      int index = lst.indexOf(edge);
-      if (index >= 0) {
-        lst.remove(index);
-        mapStates.get(edgetype).remove(index);
-      }
+      succEdges.add(edge, edge.getType(), edge.getDestination());
     }
   }
 
   private void removeEdgeInternal(int direction, StatEdge edge) {
-
-    int type = edge.getType();
-
-    int[] arrtypes;
-    if (type == StatEdge.TYPE_EXCEPTION) {
-      arrtypes = new int[]{STATEDGE_ALL, StatEdge.TYPE_EXCEPTION};
-    }
-    else {
-      arrtypes = new int[]{STATEDGE_ALL, STATEDGE_DIRECT_ALL, type};
-    }
-
-    for (int edgetype : arrtypes) {
-      removeEdgeDirectInternal(direction, edge, edgetype);
-    }
+    (direction == DIRECTION_BACKWARD ? predEdges : succEdges).remove(edge);
   }
 
   public void addPredecessor(StatEdge edge) {
@@ -459,15 +391,15 @@ public class Statement implements IMatchable {
     List<Statement> res = new ArrayList<Statement>();
 
     if (lstexits == null) {
-      StrongConnectivityHelper schelper = new StrongConnectivityHelper(this);
-      lstexits = StrongConnectivityHelper.getExitReps(schelper.getComponents());
+      lstexits = StrongConnectivityHelper.getExitReps(StrongConnectivityHelper.componentsOf(this));
     }
 
     HashSet<Statement> setVisited = new HashSet<Statement>();
 
     for (Statement exit : lstexits) {
-      addToPostReversePostOrderList(exit, res, setVisited);
+      addToPostOrderList(exit, res, setVisited);
     }
+    Collections.reverse(res);
 
     if (res.size() != stats.size()) {
       throw new RuntimeException("computing post reverse post order failed!");
@@ -620,21 +552,44 @@ public class Statement implements IMatchable {
   }
 
 
-  private static void addToPostReversePostOrderList(Statement stat, List<Statement> lst, HashSet<Statement> setVisited) {
+  // post order of the statements reaching stat, iterative to cope with long chains
+  private static void addToPostOrderList(Statement stat, List<Statement> lst, HashSet<Statement> setVisited) {
 
     if (setVisited.contains(stat)) { // because of not considered exception edges, s. isExitComponent. Should be rewritten, if possible.
       return;
     }
     setVisited.add(stat);
 
-    for (StatEdge prededge : stat.getEdges(StatEdge.TYPE_REGULAR | StatEdge.TYPE_EXCEPTION, DIRECTION_BACKWARD)) {
-      Statement pred = prededge.getSource();
-      if (!setVisited.contains(pred)) {
-        addToPostReversePostOrderList(pred, lst, setVisited);
+    List<Statement> stackNode = new ArrayList<Statement>();
+    List<List<StatEdge>> stackEdges = new ArrayList<List<StatEdge>>();
+    List<Integer> stackIndex = new ArrayList<Integer>();
+
+    stackNode.add(stat);
+    stackEdges.add(stat.getEdges(StatEdge.TYPE_REGULAR | StatEdge.TYPE_EXCEPTION, DIRECTION_BACKWARD));
+    stackIndex.add(0);
+
+    while (!stackNode.isEmpty()) {
+      int top = stackNode.size() - 1;
+      List<StatEdge> lstEdges = stackEdges.get(top);
+      int index = stackIndex.get(top);
+
+      if (index < lstEdges.size()) {
+        stackIndex.set(top, index + 1);
+
+        Statement pred = lstEdges.get(index).getSource();
+        if (!setVisited.contains(pred)) {
+          setVisited.add(pred);
+          stackNode.add(pred);
+          stackEdges.add(pred.getEdges(StatEdge.TYPE_REGULAR | StatEdge.TYPE_EXCEPTION, DIRECTION_BACKWARD));
+          stackIndex.add(0);
+        }
+      }
+      else {
+        lst.add(stackNode.remove(top));
+        stackEdges.remove(top);
+        stackIndex.remove(top);
       }
     }
-
-    lst.add(0, stat);
   }
 
   // *****************************************************************************
@@ -643,28 +598,7 @@ public class Statement implements IMatchable {
 
   public void changeEdgeNode(int direction, StatEdge edge, Statement value) {
 
-    Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
-    Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
-
-    int type = edge.getType();
-
-    int[] arrtypes;
-    if (type == StatEdge.TYPE_EXCEPTION) {
-      arrtypes = new int[]{STATEDGE_ALL, StatEdge.TYPE_EXCEPTION};
-    }
-    else {
-      arrtypes = new int[]{STATEDGE_ALL, STATEDGE_DIRECT_ALL, type};
-    }
-
-    for (int edgetype : arrtypes) {
-      List<StatEdge> lst = mapEdges.get(edgetype);
-      if (lst != null) {
-        int index = lst.indexOf(edge);
-        if (index >= 0) {
-          mapStates.get(edgetype).set(index, value);
-        }
-      }
-    }
+    (direction == DIRECTION_BACKWARD ? predEdges : succEdges).changeNode(edge, value);
 
     if (direction == DIRECTION_BACKWARD) {
       edge.setSource(value);
@@ -685,8 +619,7 @@ public class Statement implements IMatchable {
       throw new RuntimeException("Invalid edge type!");
     }
 
-    removeEdgeDirectInternal(direction, edge, oldtype);
-    addEdgeDirectInternal(direction, edge, newtype);
+    (direction == DIRECTION_BACKWARD ? predEdges : succEdges).changeType(edge, oldtype, newtype);
 
     if (direction == DIRECTION_FORWARD) {
       edge.getDestination().changeEdgeType(DIRECTION_BACKWARD, edge, newtype);
@@ -697,51 +630,11 @@ public class Statement implements IMatchable {
 
 
   private List<StatEdge> getEdges(int type, int direction) {
-
-    Map<Integer, List<StatEdge>> map = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
-
-    List<StatEdge> res;
-    if ((type & (type - 1)) == 0) {
-      res = map.get(type);
-      res = res == null ? new ArrayList<StatEdge>() : new ArrayList<StatEdge>(res);
-    }
-    else {
-      res = new ArrayList<StatEdge>();
-      for (int edgetype : StatEdge.TYPES) {
-        if ((type & edgetype) != 0) {
-          List<StatEdge> lst = map.get(edgetype);
-          if (lst != null) {
-            res.addAll(lst);
-          }
-        }
-      }
-    }
-
-    return res;
+    return (direction == DIRECTION_BACKWARD ? predEdges : succEdges).getEdges(type);
   }
 
   public List<Statement> getNeighbours(int type, int direction) {
-
-    Map<Integer, List<Statement>> map = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
-
-    List<Statement> res;
-    if ((type & (type - 1)) == 0) {
-      res = map.get(type);
-      res = res == null ? new ArrayList<Statement>() : new ArrayList<Statement>(res);
-    }
-    else {
-      res = new ArrayList<Statement>();
-      for (int edgetype : StatEdge.TYPES) {
-        if ((type & edgetype) != 0) {
-          List<Statement> lst = map.get(edgetype);
-          if (lst != null) {
-            res.addAll(lst);
-          }
-        }
-      }
-    }
-
-    return res;
+    return (direction == DIRECTION_BACKWARD ? predEdges : succEdges).getNodes(type);
   }
 
   public Set<Statement> getNeighboursSet(int type, int direction) {
@@ -756,6 +649,19 @@ public class Statement implements IMatchable {
     return getEdges(type, DIRECTION_BACKWARD);
   }
 
+  public boolean hasSuccessors(int type) {
+    return succEdges.contains(type);
+  }
+
+  public boolean hasPredecessors(int type) {
+    return predEdges.contains(type);
+  }
+
+  // first edge of getSuccessorEdges(type), null if there is none
+  public StatEdge getFirstSuccessor(int type) {
+    return succEdges.getFirst(type);
+  }
+
   public List<StatEdge> getAllSuccessorEdges() {
     return getEdges(STATEDGE_ALL, DIRECTION_FORWARD);
   }
@@ -764,6 +670,19 @@ public class Statement implements IMatchable {
     return getEdges(STATEDGE_ALL, DIRECTION_BACKWARD);
   }
 
+  // changes whenever an edge of this statement is added, removed or modified
+  public int getEdgeModCount() {
+    return succEdges.modCount + predEdges.modCount;
+  }
+
+  public StrongConnectivityHelper.CachedComponents getCachedComponents() {
+    return cachedComponents;
+  }
+
+  public void setCachedComponents(StrongConnectivityHelper.CachedComponents cachedComponents) {
+    this.cachedComponents = cachedComponents;
+  }
+
   public Statement getFirst() {
     return first;
   }
@@ -819,6 +738,20 @@ public class Statement implements IMatchable {
     return false;
   }
 
+  // named after the first offset, a labeled statement nested in one with the same start gets a suffix
+  public String getLabel() {
+    int start = getStartEndRange().start;
+
+    int index = 0;
+    for (Statement st = parent; st != null; st = st.getParent()) {
+      if (st.isLabeled() && st.getStartEndRange().start == start) {
+        index++;
+      }
+    }
+
+    return index == 0 ? "label" + start : "label" + start + "_" + index;
+  }
+
   public boolean hasBasicSuccEdge() {
 
     // FIXME: default switch
@@ -960,4 +893,210 @@ public class Statement implements IMatchable {
     }
     return endpoints;
   }
+
+  // Edges of one direction in insertion order, together with the neighbour recorded for each edge and the type it is
+  // filed under. Edges of a single type are listed in the order they got that type, which is kept in stamps.
+  private static final class EdgeList {
+    private static final StatEdge[] NO_EDGES = new StatEdge[0];
+    private static final Statement[] NO_NODES = new Statement[0];
+    private static final int[] NO_INTS = new int[0];
+
+    private StatEdge[] edges = NO_EDGES;
+    private Statement[] nodes = NO_NODES;
+    private int[] types = NO_INTS;
+    private int[] stamps = NO_INTS;
+    private int size;
+    private int stamp;
+    private int modCount;
+
+    public void add(StatEdge edge, int type, Statement node) {
+      if (size == edges.length) {
+        int length = Math.max(4, size * 2);
+        edges = Arrays.copyOf(edges, length);
+        nodes = Arrays.copyOf(nodes, length);
+        types = Arrays.copyOf(types, length);
+        stamps = Arrays.copyOf(stamps, length);
+      }
+
+      edges[size] = edge;
+      nodes[size] = node;
+      types[size] = type;
+      stamps[size] = stamp++;
+      size++;
+      modCount++;
+    }
+
+    public void remove(StatEdge edge) {
+      int index = indexOf(edge);
+      if (index >= 0) {
+        int tail = size - index - 1;
+        System.arraycopy(edges, index + 1, edges, index, tail);
+        System.arraycopy(nodes, index + 1, nodes, index, tail);
+        System.arraycopy(types, index + 1, types, index, tail);
+        System.arraycopy(stamps, index + 1, stamps, index, tail);
+        size--;
+        edges[size] = null;
+        nodes[size] = null;
+        modCount++;
+      }
+    }
+
+    public void removeType(int type) {
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        if (types[i] != type) {
+          edges[count] = edges[i];
+          nodes[count] = nodes[i];
+          types[count] = types[i];
+          stamps[count] = stamps[i];
+          count++;
+        }
+      }
+
+      for (int i = count; i < size; i++) {
+        edges[i] = null;
+        nodes[i] = null;
+      }
+      size = count;
+      modCount++;
+    }
+
+    public void changeType(StatEdge edge, int oldtype, int newtype) {
+      for (int i = 0; i < size; i++) {
+        if (edges[i] == edge && types[i] == oldtype) {
+          types[i] = newtype;
+          stamps[i] = stamp++;
+          modCount++;
+          return;
+        }
+      }
+    }
+
+    public void changeNode(StatEdge edge, Statement node) {
+      int index = indexOf(edge);
+      if (index >= 0) {
+        nodes[index] = node;
+        modCount++;
+      }
+    }
+
+    private int indexOf(StatEdge edge) {
+      for (int i = 0; i < size; i++) {
+        if (edges[i] == edge) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private boolean matches(int index, int type) {
+      if (type == STATEDGE_ALL) {
+        return true;
+      }
+      else if (type == STATEDGE_DIRECT_ALL) {
+        return types[index] != StatEdge.TYPE_EXCEPTION;
+      }
+      return (types[index] & type) != 0;
+    }
+
+    public boolean contains(int type) {
+      for (int i = 0; i < size; i++) {
+        if (matches(i, type)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // the first edge of getEdges(type)
+    public StatEdge getFirst(int type) {
+      if (type == STATEDGE_ALL || type == STATEDGE_DIRECT_ALL) {
+        for (int i = 0; i < size; i++) {
+          if (matches(i, type)) {
+            return edges[i];
+          }
+        }
+        return null;
+      }
+
+      for (int edgetype : StatEdge.TYPES) {
+        if ((type & edgetype) != 0) {
+          int index = -1;
+          for (int i = 0; i < size; i++) {
+            if (types[i] == edgetype && (index < 0 || stamps[i] < stamps[index])) {
+              index = i;
+            }
+          }
+          if (index >= 0) {
+            return edges[index];
+          }
+        }
+      }
+      return null;
+    }
+
+    public List<StatEdge> getEdges(int type) {
+      int[] selection = new int[size];
+      int count = select(type, selection);
+
+      List<StatEdge> res = new ArrayList<StatEdge>(count);
+      for (int i = 0; i < count; i++) {
+        res.add(edges[selection[i]]);
+      }
+      return res;
+    }
+
+    public List<Statement> getNodes(int type) {
+      int[] selection = new int[size];
+      int count = select(type, selection);
+
+      List<Statement> res = new ArrayList<Statement>(count);
+      for (int i = 0; i < count; i++) {
+        res.add(nodes[selection[i]]);
+      }
+      return res;
+    }
+
+    // combined types are grouped by type in the order of StatEdge.TYPES
+    private int select(int type, int[] selection) {
+      int count = 0;
+
+      if (type == STATEDGE_ALL || type == STATEDGE_DIRECT_ALL) {
+        for (int i = 0; i < size; i++) {
+          if (matches(i, type)) {
+            selection[count++] = i;
+          }
+        }
+      }
+      else if ((type & (type - 1)) == 0) {
+        count = selectType(type, selection, count);
+      }
+      else {
+        for (int edgetype : StatEdge.TYPES) {
+          if ((type & edgetype) != 0) {
+            count = selectType(edgetype, selection, count);
+          }
+        }
+      }
+
+      return count;
+    }
+
+    private int selectType(int type, int[] selection, int count) {
+      int start = count;
+
+      for (int i = 0; i < size; i++) {
+        if (types[i] == type) {
+          int pos = count++;
+          while (pos > start && stamps[selection[pos - 1]] > stamps[i]) {
+            selection[pos] = selection[pos - 1];
+            pos--;
+          }
+          selection[pos] = i;
+        }
+      }
+
+      return count;
+    }
+  }
 }
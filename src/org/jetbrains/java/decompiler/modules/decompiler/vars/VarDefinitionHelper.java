@@ -199,17 +199,8 @@ public class VarDefinitionHelper {
           defset = true;
           break;
         }
-        else {
-          boolean foundvar = false;
-          for (Exprent exp : expr.getAllExprents(true)) {
-            if (exp.type == Exprent.EXPRENT_VAR && ((VarExprent)exp).getIndex() == index) {
-              foundvar = true;
-              break;
-            }
-          }
-          if (foundvar) {
-            break;
-          }
+        else if (containsVarInside(expr, index)) {
+          break;
         }
         addindex++;
       }
@@ -413,6 +404,14 @@ public class VarDefinitionHelper {
     return res;
   }
 
+  private static boolean containsVarInside(Exprent exprent, final int index) {
+    return !exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      public boolean visit(Exprent expr, Exprent parent) {
+        return parent == null || expr.type != Exprent.EXPRENT_VAR || ((VarExprent)expr).getIndex() != index;
+      }
+    });
+  }
+
   private static boolean setDefinition(Exprent expr, Integer index) {
     if (expr.type == Exprent.EXPRENT_ASSIGNMENT) {
       Exprent left = ((AssignmentExprent)expr).getLeft();
@@ -599,25 +598,22 @@ public class VarDefinitionHelper {
     }
   }
 
-  private void applyTypes(Exprent exprent, Map<VarVersionPair, LVTVariable> types) {
+  private void applyTypes(Exprent exprent, final Map<VarVersionPair, LVTVariable> types) {
     if (exprent == null) {
       return;
     }
-    List<Exprent> lst = exprent.getAllExprents(true);
-    lst.add(exprent);
-
-    for (Exprent expr : lst) {
-      if (expr.type == Exprent.EXPRENT_VAR) {
-        VarExprent var = (VarExprent)expr;
-        LVTVariable lvt = types.get(new VarVersionPair(var));
-        if (lvt != null) {
-          var.setLVT(lvt);
-        } else {
-          System.currentTimeMillis();
-          //System.out.println("null " + new VarVersionPair(var));
+    exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+      public boolean visit(Exprent expr, Exprent parent) {
+        if (expr.type == Exprent.EXPRENT_VAR) {
+          VarExprent var = (VarExprent)expr;
+          LVTVariable lvt = types.get(new VarVersionPair(var));
+          if (lvt != null) {
+            var.setLVT(lvt);
+          }
         }
+        return true;
       }
-    }
+    });
   }
 
   private VPPEntry mergeVars(Statement stat) {
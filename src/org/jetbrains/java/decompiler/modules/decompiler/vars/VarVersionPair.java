@@ -39,6 +39,23 @@ public class VarVersionPair {
     this.version = var.getVersion();
   }
 
+  public long toLong() {
+    return toLong(var, version);
+  }
+
+  // packed form used as a key in LongHashMap and LongHashSet, var in the upper and version in the lower 32 bits
+  public static long toLong(int var, int version) {
+    return ((long)var << 32) | (version & 0xFFFFFFFFL);
+  }
+
+  public static long toLong(VarExprent var) {
+    return toLong(var.getIndex(), var.getVersion());
+  }
+
+  public static VarVersionPair fromLong(long value) {
+    return new VarVersionPair((int)(value >> 32), (int)value);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (o == this) return true;
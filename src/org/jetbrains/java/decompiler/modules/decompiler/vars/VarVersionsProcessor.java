@@ -107,18 +107,18 @@ public class VarVersionsProcessor {
     graph.iterateExprents(new DirectGraph.ExprentIterator() {
       @Override
       public int processExprent(Exprent exprent) {
-        List<Exprent> lst = exprent.getAllExprents(true);
-        lst.add(exprent);
-
-        for (Exprent expr : lst) {
-          if (expr.type == Exprent.EXPRENT_VAR) {
-            VarExprent var = (VarExprent)expr;
-            Integer version = versions.get(new VarVersionPair(var));
-            if (version != null) {
-              var.setVersion(version);
+        exprent.visitPreOrder(new Exprent.ExprentVisitor() {
+          public boolean visit(Exprent expr, Exprent parent) {
+            if (expr.type == Exprent.EXPRENT_VAR) {
+              VarExprent var = (VarExprent)expr;
+              Integer version = versions.get(new VarVersionPair(var));
+              if (version != null) {
+                var.setVersion(version);
+              }
             }
+            return true;
           }
-        }
+        });
 
         return 0;
       }
@@ -18,6 +18,7 @@ package org.jetbrains.java.decompiler.modules.renamer;
 import org.jetbrains.java.decompiler.main.extern.IIdentifierRenamer;
 
 import java.util.HashMap;
+import java.util.Map;
 
 public class PoolInterceptor {
 
@@ -44,6 +45,10 @@ public class PoolInterceptor {
     return mapNewToOldNames.get(newName);
   }
 
+  public Map<String, String> getNameMapping() {
+    return mapOldToNewNames;
+  }
+
   public IIdentifierRenamer getHelper() {
     return helper;
   }
@@ -20,11 +20,17 @@ import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader.Link;
+import org.jetbrains.java.decompiler.util.BackgroundResultSaver;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
@@ -97,14 +103,36 @@ public class ContextUnit {
   }
 
   public void save() {
+    save(null, 1);
+  }
+
+  public void save(ExecutorService executor, int threads) {
+    if (executor == null) {
+      // single-threaded run, the saver is called in place
+      save(resultSaver, null, threads);
+      return;
+    }
+
+    BackgroundResultSaver saver = new BackgroundResultSaver(resultSaver, threads * 2);
+    try {
+      save(saver, executor, threads);
+    }
+    finally {
+      saver.close();
+    }
+  }
+
+  private void save(IResultSaver saver, ExecutorService executor, int threads) {
+    ClassQueue queue = new ClassQueue(executor, threads * 2);
+
     switch (type) {
       case TYPE_FOLDER:
         // create folder
-        resultSaver.saveFolder(filename);
+        saver.saveFolder(filename);
 
         // non-class files
         for (String[] pair : otherEntries) {
-          resultSaver.copyFile(pair[0], filename, pair[1]);
+          saver.copyFile(pair[0], filename, pair[1]);
         }
 
         // classes
@@ -113,14 +141,14 @@ public class ContextUnit {
           if (!cl.isOwn()) continue;
           String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
           if (entryName != null) {
-            String content = decompiledData.getClassContent(cl);
-            if (content != null) {
-              int[] mapping = null;
-              if (DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING)) {
-                mapping = DecompilerContext.getBytecodeSourceMapper().getOriginalLinesMapping();
-              }
-              resultSaver.saveClassFile(filename, cl.qualifiedName, entryName, content, mapping);
-            }
+            queue.add(cl, entryName);
+          }
+        }
+
+        while (queue.hasNext()) {
+          ClassResult result = queue.next();
+          if (result.content != null) {
+            saver.saveClassFile(filename, result.cl.qualifiedName, result.entryName, result.content, result.mapping);
           }
         }
 
@@ -129,18 +157,18 @@ public class ContextUnit {
       case TYPE_JAR:
       case TYPE_ZIP:
         // create archive file
-        resultSaver.saveFolder(archivePath);
-        resultSaver.createArchive(archivePath, filename, manifest);
+        saver.saveFolder(archivePath);
+        saver.createArchive(archivePath, filename, manifest);
 
         // directory entries
         for (String dirEntry : dirEntries) {
-          resultSaver.saveDirEntry(archivePath, filename, dirEntry);
+          saver.saveDirEntry(archivePath, filename, dirEntry);
         }
 
         // non-class entries
         for (String[] pair : otherEntries) {
           if (type != TYPE_JAR || !JarFile.MANIFEST_NAME.equalsIgnoreCase(pair[1])) {
-            resultSaver.copyEntry(pair[0], archivePath, filename, pair[1]);
+            saver.copyEntry(pair[0], archivePath, filename, pair[1]);
           }
         }
 
@@ -149,12 +177,16 @@ public class ContextUnit {
           StructClass cl = classes.get(i);
           String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
           if (entryName != null) {
-            String content = decompiledData.getClassContent(cl);
-            resultSaver.saveClassEntry(archivePath, filename, cl.qualifiedName, entryName, content);
+            queue.add(cl, entryName);
           }
         }
 
-        resultSaver.closeArchive(archivePath, filename);
+        while (queue.hasNext()) {
+          ClassResult result = queue.next();
+          saver.saveClassEntry(archivePath, filename, result.cl.qualifiedName, result.entryName, result.content);
+        }
+
+        saver.closeArchive(archivePath, filename);
     }
   }
 
@@ -169,4 +201,86 @@ public class ContextUnit {
   public List<StructClass> getClasses() {
     return classes;
   }
+
+  private static class ClassResult {
+    public final StructClass cl;
+    public final String entryName;
+    public String content;
+    public int[] mapping;
+
+    public ClassResult(StructClass cl, String entryName) {
+      this.cl = cl;
+      this.entryName = entryName;
+    }
+  }
+
+  // Decompiles classes either in place or on a worker pool. In the latter case at most 'window' classes are
+  // submitted ahead of the one being saved; results are always returned in the order the classes were added.
+  private class ClassQueue {
+    private final ExecutorService executor;
+    private final int window;
+    private final DecompilerContext parentContext;
+    private final LinkedList<ClassResult> pending = new LinkedList<ClassResult>();
+    private final LinkedList<Future<ClassResult>> running = new LinkedList<Future<ClassResult>>();
+
+    public ClassQueue(ExecutorService executor, int window) {
+      this.executor = executor;
+      this.window = window;
+      this.parentContext = DecompilerContext.getCurrentContext();
+    }
+
+    public void add(StructClass cl, String entryName) {
+      pending.add(new ClassResult(cl, entryName));
+      submit();
+    }
+
+    public boolean hasNext() {
+      return !pending.isEmpty() || !running.isEmpty();
+    }
+
+    public ClassResult next() {
+      if (executor == null) {
+        return decompile(pending.removeFirst());
+      }
+
+      try {
+        ClassResult result = running.removeFirst().get();
+        submit();
+        return result;
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(ex);
+      }
+      catch (ExecutionException ex) {
+        throw new RuntimeException(ex.getCause());
+      }
+    }
+
+    private void submit() {
+      while (executor != null && !pending.isEmpty() && running.size() < window) {
+        final ClassResult result = pending.removeFirst();
+        running.add(executor.submit(new Callable<ClassResult>() {
+          @Override
+          public ClassResult call() {
+            DecompilerContext.setCurrentContext(DecompilerContext.cloneContext(parentContext));
+            try {
+              return decompile(result);
+            }
+            finally {
+              DecompilerContext.setCurrentContext(null);
+            }
+          }
+        }));
+      }
+    }
+
+    private ClassResult decompile(ClassResult result) {
+      result.content = decompiledData.getClassContent(result.cl);
+      if (result.content != null && DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING)) {
+        result.mapping = DecompilerContext.getBytecodeSourceMapper().getOriginalLinesMapping();
+      }
+      return result;
+    }
+  }
 }
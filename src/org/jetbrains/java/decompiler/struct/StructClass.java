@@ -30,8 +30,8 @@ import org.jetbrains.java.decompiler.util.InterpreterUtil;
 import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
   class_file {
@@ -67,7 +67,8 @@ public class StructClass extends StructMember {
   private final VBStyleCollection<StructField, String> fields;
   private final VBStyleCollection<StructMethod, String> methods;
   private GenericClassDescriptor signature = null;
-  public final Map<String, Map<Integer, String>> enumSwitchMap = new HashMap<String, Map<Integer, String>>();
+  private int codeFeatures = 0;
+  public final Map<String, Map<Integer, String>> enumSwitchMap = new ConcurrentHashMap<String, Map<Integer, String>>();
 
   private ConstantPool pool;
 
@@ -84,7 +85,8 @@ public class StructClass extends StructMember {
     minorVersion = in.readUnsignedShort();
     majorVersion = in.readUnsignedShort();
 
-    pool = new ConstantPool(in);
+    // library classes are mostly consulted for their hierarchy and members, decode their pools on demand
+    pool = new ConstantPool(in, !own);
 
     accessFlags = in.readUnsignedShort();
     int thisClassIdx = in.readUnsignedShort();
@@ -115,6 +117,7 @@ public class StructClass extends StructMember {
     for (int i = 0; i < length; i++) {
       StructMethod method = new StructMethod(in, this);
       methods.addWithKey(method, InterpreterUtil.makeUniqueKey(method.getName(), method.getDescriptor()));
+      codeFeatures |= method.getCodeFeatures();
     }
 
     // attributes
@@ -151,7 +154,7 @@ public class StructClass extends StructMember {
 
   public ConstantPool getPool() {
     if (pool == null && loader != null) {
-      pool = loader.loadPool(qualifiedName);
+      pool = loader.loadPool(qualifiedName, !own);
     }
     return pool;
   }
@@ -172,6 +175,11 @@ public class StructClass extends StructMember {
     return fields;
   }
 
+  // see StructMethod.hasCodeFeature(), true if any method of the class has one of the features
+  public boolean hasCodeFeature(int features) {
+    return (codeFeatures & features) != 0;
+  }
+
   public boolean isOwn() {
     return own;
   }
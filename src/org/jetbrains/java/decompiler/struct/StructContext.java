@@ -16,16 +16,25 @@
 package org.jetbrains.java.decompiler.struct;
 
 import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
+import org.jetbrains.java.decompiler.util.DecompilerThreadFactory;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Enumeration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -36,7 +45,10 @@ public class StructContext {
   private final IDecompiledData decompiledData;
   private final LazyLoader loader;
   private final Map<String, ContextUnit> units = new HashMap<String, ContextUnit>();
-  private final Map<String, StructClass> classes = new HashMap<String, StructClass>();
+  // Looked up by the decompiling threads. A library class is parsed under the lock of its entry, so a lookup waits
+  // only for the class it asks for.
+  private final Map<String, StructClass> classes = new ConcurrentHashMap<String, StructClass>();
+  private final ConcurrentHashMap<String, LibraryEntry> libraryEntries = new ConcurrentHashMap<String, LibraryEntry>();
 
   public StructContext(IResultSaver saver, IDecompiledData decompiledData, LazyLoader loader) {
     this.saver = saver;
@@ -48,10 +60,74 @@ public class StructContext {
   }
 
   public StructClass getClass(String name) {
-    return classes.get(name);
+    StructClass cl = classes.get(name);
+    if (cl == null && !libraryEntries.isEmpty()) {
+      LibraryEntry entry = libraryEntries.get(name);
+      if (entry != null) {
+        cl = loadLibraryClass(name, entry);
+      }
+    }
+    return cl;
+  }
+
+  private StructClass loadLibraryClass(String name, LibraryEntry entry) {
+    synchronized (entry) {
+      if (!entry.loaded) {
+        entry.cl = parseLibraryClass(entry);
+        entry.loaded = true;
+        libraryEntries.remove(name, entry);
+      }
+    }
+
+    StructClass cl = entry.cl;
+    if (cl != null && !name.equals(cl.qualifiedName)) {
+      return null; // entry name does not match the class inside
+    }
+    return cl;
+  }
+
+  private StructClass parseLibraryClass(LibraryEntry entry) {
+    LazyLoader.Link link = entry.link;
+    try {
+      DataInputFullStream in = loader.getClassStream(link.externalPath, link.internalPath);
+      try {
+        StructClass cl = new StructClass(in, false, loader);
+        addClass(entry.unit, cl, entry.entryName, link);
+        return cl;
+      }
+      finally {
+        in.close();
+      }
+    }
+    catch (IOException ex) {
+      String message = "Corrupted class file: " + link.internalPath + " in " + link.externalPath;
+      DecompilerContext.getLogger().writeMessage(message, ex);
+      return null;
+    }
+  }
+
+  private void loadLibraryClasses() {
+    for (Map.Entry<String, LibraryEntry> entry : libraryEntries.entrySet()) {
+      loadLibraryClass(entry.getKey(), entry.getValue());
+    }
+  }
+
+  // A class replaces any class of the same name added before it, own or library, whether a library class is parsed
+  // right away or on its first lookup. See StructContextTest.
+  private void addClass(ContextUnit unit, StructClass cl, String entryName, LazyLoader.Link link) {
+    if (cl.isOwn()) {
+      libraryEntries.remove(cl.qualifiedName);
+    }
+    classes.put(cl.qualifiedName, cl);
+    synchronized (unit) {
+      unit.addClass(cl, entryName);
+    }
+    loader.addClassLink(cl.qualifiedName, link);
   }
 
   public void reloadContext() throws IOException {
+    loadLibraryClasses();
+
     for (ContextUnit unit : units.values()) {
       for (StructClass cl : unit.getClasses()) {
         classes.remove(cl.qualifiedName);
@@ -67,9 +143,22 @@ public class StructContext {
   }
 
   public void saveContext() {
-    for (ContextUnit unit : units.values()) {
-      if (unit.isOwn()) {
-        unit.save();
+    int threads = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.THREADS).toString());
+    if (threads <= 0) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads, new DecompilerThreadFactory("Java decompiler")) : null;
+    try {
+      for (ContextUnit unit : units.values()) {
+        if (unit.isOwn()) {
+          unit.save(executor, threads);
+        }
+      }
+    }
+    finally {
+      if (executor != null) {
+        executor.shutdownNow();
       }
     }
   }
@@ -123,9 +212,7 @@ public class StructContext {
           DataInputFullStream in = loader.getClassStream(file.getAbsolutePath(), null);
           try {
             StructClass cl = new StructClass(in, isOwn, loader);
-            classes.put(cl.qualifiedName, cl);
-            unit.addClass(cl, filename);
-            loader.addClassLink(cl.qualifiedName, new LazyLoader.Link(LazyLoader.Link.CLASS, file.getAbsolutePath(), null));
+            addClass(unit, cl, filename, new LazyLoader.Link(LazyLoader.Link.CLASS, file.getAbsolutePath(), null));
           }
           finally {
             in.close();
@@ -163,11 +250,18 @@ public class StructContext {
         String name = entry.getName();
         if (!entry.isDirectory()) {
           if (name.endsWith(".class")) {
-            byte[] bytes = InterpreterUtil.getBytes(archive, entry);
-            StructClass cl = new StructClass(bytes, isOwn, loader);
-            classes.put(cl.qualifiedName, cl);
-            unit.addClass(cl, name);
-            loader.addClassLink(cl.qualifiedName, new LazyLoader.Link(LazyLoader.Link.ENTRY, file.getAbsolutePath(), name));
+            LazyLoader.Link link = new LazyLoader.Link(LazyLoader.Link.ENTRY, file.getAbsolutePath(), name);
+            String className = name.substring(0, name.length() - 6);
+
+            if (isOwn || classes.containsKey(className)) {
+              byte[] bytes = InterpreterUtil.getBytes(archive, entry);
+              StructClass cl = new StructClass(bytes, isOwn, loader);
+              addClass(unit, cl, name, link);
+            }
+            else {
+              // library classes are parsed on the first lookup
+              libraryEntries.put(className, new LibraryEntry(unit, name, link));
+            }
           }
           else {
             unit.addOtherEntry(file.getAbsolutePath(), name);
@@ -183,7 +277,39 @@ public class StructContext {
     }
   }
 
+  // names of all classes in the context, including library classes not parsed yet
+  public Set<String> getClassNames() {
+    Set<String> names = new TreeSet<String>(classes.keySet());
+    names.addAll(libraryEntries.keySet());
+    return names;
+  }
+
+  // snapshot of the classes parsed so far, library classes are parsed on the first lookup by name
   public Map<String, StructClass> getClasses() {
-    return classes;
+    return new HashMap<String, StructClass>(classes);
+  }
+
+  public List<StructClass> getOwnClasses() {
+    List<StructClass> result = new ArrayList<StructClass>();
+    for (StructClass cl : classes.values()) {
+      if (cl.isOwn()) {
+        result.add(cl);
+      }
+    }
+    return result;
+  }
+
+  private static class LibraryEntry {
+    private final ContextUnit unit;
+    private final String entryName;
+    private final LazyLoader.Link link;
+    private boolean loaded;
+    private StructClass cl;
+
+    private LibraryEntry(ContextUnit unit, String entryName, LazyLoader.Link link) {
+      this.unit = unit;
+      this.entryName = entryName;
+      this.link = link;
+    }
   }
 }
@@ -37,12 +37,15 @@ import java.io.IOException;
 */
 public class StructField extends StructMember {
 
+  private final StructClass classStruct;
   private final String name;
   private final String descriptor;
   private GenericFieldDescriptor signature;
 
 
   public StructField(DataInputFullStream in, StructClass clStruct) throws IOException {
+    classStruct = clStruct;
+
     accessFlags = in.readUnsignedShort();
     int nameIndex = in.readUnsignedShort();
     int descriptorIndex = in.readUnsignedShort();
@@ -67,6 +70,11 @@ public class StructField extends StructMember {
     return signature;
   }
 
+  @Override
+  protected boolean isOwn() {
+    return classStruct.isOwn();
+  }
+
   @Override
   protected StructGeneralAttribute readAttribute(DataInputFullStream in, ConstantPool pool, String name) throws IOException {
     StructGeneralAttribute attribute = super.readAttribute(in, pool, name);
@@ -42,6 +42,10 @@ public class StructMember {
     return (accessFlags & modifier) == modifier;
   }
 
+  protected boolean isOwn() {
+    return true;
+  }
+
   public boolean isSynthetic() {
     return hasModifier(CodeConstants.ACC_SYNTHETIC) || attributes.containsKey(StructGeneralAttribute.ATTRIBUTE_SYNTHETIC);
   }
@@ -81,7 +85,10 @@ public class StructMember {
   }
 
   protected StructGeneralAttribute readAttribute(DataInputFullStream in, ConstantPool pool, String name) throws IOException {
-    StructGeneralAttribute attribute = StructGeneralAttribute.createAttribute(name);
+    StructGeneralAttribute attribute = null;
+    if (isOwn() || StructGeneralAttribute.isLibraryAttribute(name)) {
+      attribute = StructGeneralAttribute.createAttribute(name);
+    }
     if (attribute == null) {
       in.discard(in.readInt());
     }
@@ -44,6 +44,13 @@ import static org.jetbrains.java.decompiler.code.CodeConstants.*;
 */
 public class StructMethod extends StructMember {
 
+  // instructions and tables found by the pre-scan of the code attribute, see hasCodeFeature()
+  public static final int CODE_INVOKEDYNAMIC = 1;
+  public static final int CODE_JSR = 2;
+  public static final int CODE_MONITOR = 4;
+  public static final int CODE_EXCEPTIONS = 8;
+  private static final int CODE_ALL = CODE_INVOKEDYNAMIC | CODE_JSR | CODE_MONITOR | CODE_EXCEPTIONS;
+
   private static final int[] opr_iconst = {-1, 0, 1, 2, 3, 4, 5};
   private static final int[] opr_loadstore = {0, 1, 2, 3, 0, 1, 2, 3, 0, 1, 2, 3, 0, 1, 2, 3, 0, 1, 2, 3};
   private static final int[] opcs_load = {opc_iload, opc_lload, opc_fload, opc_dload, opc_aload};
@@ -58,6 +65,8 @@ public class StructMethod extends StructMember {
   private int localVariables = 0;
   private int codeLength = 0;
   private int codeFullLength = 0;
+  private int codeOffset = -1;
+  private int codeFeatures = 0;
   private InstructionSequence seq;
   private boolean expanded = false;
   private VBStyleCollection<StructGeneralAttribute, String> codeAttributes;
@@ -96,8 +105,13 @@ public class StructMethod extends StructMember {
         in.discard(6);
         localVariables = in.readUnsignedShort();
         codeLength = in.readInt();
+        codeOffset = in.getPosition();
+        codeFeatures = scanCode(in, codeOffset, codeLength);
         in.discard(codeLength);
         int excLength = in.readUnsignedShort();
+        if (excLength > 0) {
+          codeFeatures |= CODE_EXCEPTIONS;
+        }
         in.discard(excLength * 8);
         codeFullLength = codeLength + excLength * 8 + 2;
       }
@@ -116,10 +130,135 @@ public class StructMethod extends StructMember {
     return attribute;
   }
 
+  @Override
+  protected boolean isOwn() {
+    return classStruct.isOwn();
+  }
+
+  // walks the instruction lengths only, without decoding anything
+  private int scanCode(DataInputFullStream in, int start, int length) {
+    int features = 0;
+
+    for (int i = 0; i < length; ) {
+      int opcode = in.getUnsignedByte(start + i);
+
+      switch (opcode) {
+        case opc_bipush:
+        case opc_ldc:
+        case opc_newarray:
+        case opc_iload:
+        case opc_lload:
+        case opc_fload:
+        case opc_dload:
+        case opc_aload:
+        case opc_istore:
+        case opc_lstore:
+        case opc_fstore:
+        case opc_dstore:
+        case opc_astore:
+        case opc_ret:
+          i += 2;
+          break;
+        case opc_jsr:
+          features |= CODE_JSR;
+          i += 3;
+          break;
+        case opc_sipush:
+        case opc_ldc_w:
+        case opc_ldc2_w:
+        case opc_iinc:
+        case opc_ifeq:
+        case opc_ifne:
+        case opc_iflt:
+        case opc_ifge:
+        case opc_ifgt:
+        case opc_ifle:
+        case opc_if_icmpeq:
+        case opc_if_icmpne:
+        case opc_if_icmplt:
+        case opc_if_icmpge:
+        case opc_if_icmpgt:
+        case opc_if_icmple:
+        case opc_if_acmpeq:
+        case opc_if_acmpne:
+        case opc_goto:
+        case opc_ifnull:
+        case opc_ifnonnull:
+        case opc_getstatic:
+        case opc_putstatic:
+        case opc_getfield:
+        case opc_putfield:
+        case opc_invokevirtual:
+        case opc_invokespecial:
+        case opc_invokestatic:
+        case opc_new:
+        case opc_anewarray:
+        case opc_checkcast:
+        case opc_instanceof:
+          i += 3;
+          break;
+        case opc_multianewarray:
+          i += 4;
+          break;
+        case opc_invokedynamic:
+          if (classStruct.isVersionGE_1_7()) { // see parseBytecode()
+            features |= CODE_INVOKEDYNAMIC;
+            i += 5;
+          }
+          else {
+            i++;
+          }
+          break;
+        case opc_jsr_w:
+          features |= CODE_JSR;
+          i += 5;
+          break;
+        case opc_goto_w:
+        case opc_invokeinterface:
+          i += 5;
+          break;
+        case opc_wide:
+          i += in.getUnsignedByte(start + i + 1) == opc_iinc ? 6 : 4;
+          break;
+        case opc_tableswitch:
+        case opc_lookupswitch:
+          int pos = i + 1 + (4 - (i + 1) % 4) % 4; // padding
+          long next;
+          if (pos + (opcode == opc_tableswitch ? 12 : 8) > length) {
+            next = -1;
+          }
+          else if (opcode == opc_tableswitch) {
+            long low = in.getInt(start + pos + 4);
+            long high = in.getInt(start + pos + 8);
+            next = high < low ? -1 : pos + 12 + 4 * (high - low + 1);
+          }
+          else {
+            long npairs = in.getInt(start + pos + 4);
+            next = npairs < 0 ? -1 : pos + 8 + 8 * npairs;
+          }
+          if (next <= i || next > length) {
+            // malformed switch, the scan can't go on: assume everything so that no pass is skipped
+            return CODE_ALL;
+          }
+          i = (int)next;
+          break;
+        case opc_monitorenter:
+        case opc_monitorexit:
+          features |= CODE_MONITOR;
+          i++;
+          break;
+        default:
+          i++;
+      }
+    }
+
+    return features;
+  }
+
   public void expandData() throws IOException {
     if (containsCode && !expanded) {
-      byte[] code = classStruct.getLoader().loadBytecode(this, codeFullLength);
-      seq = parseBytecode(new DataInputFullStream(code), codeLength, classStruct.getPool());
+      DataInputFullStream code = classStruct.getLoader().loadBytecode(this, codeOffset, codeFullLength);
+      seq = parseBytecode(code, codeLength, classStruct.getPool());
       loadRenamer();
       expanded = true;
     }
@@ -140,9 +279,13 @@ public class StructMethod extends StructMember {
 
   @SuppressWarnings("AssignmentToForLoopParameter")
   private InstructionSequence parseBytecode(DataInputFullStream in, int length, ConstantPool pool) throws IOException {
-    VBStyleCollection<Instruction, Integer> instructions = new VBStyleCollection<Instruction, Integer>();
-
-    int bytecode_version = classStruct.getBytecodeVersion();
+    // an instruction takes at least one byte and has no more operands than bytes
+    int[] offsets = new int[length];
+    int[] codes = new int[length];
+    int[] operandStarts = new int[length + 1];
+    int[] operands = new int[length];
+    int count = 0;
+    int operandCount = 0;
 
     for (int i = 0; i < length; ) {
 
@@ -158,29 +301,29 @@ public class StructMethod extends StructMember {
         opcode = in.readUnsignedByte();
       }
 
-      List<Integer> operands = new ArrayList<Integer>();
+      operandStarts[count] = operandCount;
 
       if (opcode >= opc_iconst_m1 && opcode <= opc_iconst_5) {
-        operands.add(new Integer(opr_iconst[opcode - opc_iconst_m1]));
+        operands[operandCount++] = opr_iconst[opcode - opc_iconst_m1];
         opcode = opc_bipush;
       }
       else if (opcode >= opc_iload_0 && opcode <= opc_aload_3) {
-        operands.add(new Integer(opr_loadstore[opcode - opc_iload_0]));
+        operands[operandCount++] = opr_loadstore[opcode - opc_iload_0];
         opcode = opcs_load[(opcode - opc_iload_0) / 4];
       }
       else if (opcode >= opc_istore_0 && opcode <= opc_astore_3) {
-        operands.add(new Integer(opr_loadstore[opcode - opc_istore_0]));
+        operands[operandCount++] = opr_loadstore[opcode - opc_istore_0];
         opcode = opcs_store[(opcode - opc_istore_0) / 4];
       }
       else {
         switch (opcode) {
           case opc_bipush:
-            operands.add(new Integer(in.readByte()));
+            operands[operandCount++] = in.readByte();
             i++;
             break;
           case opc_ldc:
           case opc_newarray:
-            operands.add(new Integer(in.readUnsignedByte()));
+            operands[operandCount++] = in.readUnsignedByte();
             i++;
             break;
           case opc_sipush:
@@ -205,7 +348,7 @@ public class StructMethod extends StructMember {
             if (opcode != opc_sipush) {
               group = GROUP_JUMP;
             }
-            operands.add(new Integer(in.readShort()));
+            operands[operandCount++] = in.readShort();
             i += 2;
             break;
           case opc_ldc_w:
@@ -221,7 +364,7 @@ public class StructMethod extends StructMember {
           case opc_anewarray:
           case opc_checkcast:
           case opc_instanceof:
-            operands.add(new Integer(in.readUnsignedShort()));
+            operands[operandCount++] = in.readUnsignedShort();
             i += 2;
             if (opcode >= opc_getstatic && opcode <= opc_putfield) {
               group = GROUP_FIELDACCESS;
@@ -232,7 +375,7 @@ public class StructMethod extends StructMember {
             break;
           case opc_invokedynamic:
             if (classStruct.isVersionGE_1_7()) { // instruction unused in Java 6 and before
-              operands.add(new Integer(in.readUnsignedShort()));
+              operands[operandCount++] = in.readUnsignedShort();
               in.discard(2);
               group = GROUP_INVOCATION;
               i += 4;
@@ -250,11 +393,11 @@ public class StructMethod extends StructMember {
           case opc_astore:
           case opc_ret:
             if (wide) {
-              operands.add(new Integer(in.readUnsignedShort()));
+              operands[operandCount++] = in.readUnsignedShort();
               i += 2;
             }
             else {
-              operands.add(new Integer(in.readUnsignedByte()));
+              operands[operandCount++] = in.readUnsignedByte();
               i++;
             }
             if (opcode == opc_ret) {
@@ -263,49 +406,49 @@ public class StructMethod extends StructMember {
             break;
           case opc_iinc:
             if (wide) {
-              operands.add(new Integer(in.readUnsignedShort()));
-              operands.add(new Integer(in.readShort()));
+              operands[operandCount++] = in.readUnsignedShort();
+              operands[operandCount++] = in.readShort();
               i += 4;
             }
             else {
-              operands.add(new Integer(in.readUnsignedByte()));
-              operands.add(new Integer(in.readByte()));
+              operands[operandCount++] = in.readUnsignedByte();
+              operands[operandCount++] = in.readByte();
               i += 2;
             }
             break;
           case opc_goto_w:
           case opc_jsr_w:
             opcode = opcode == opc_jsr_w ? opc_jsr : opc_goto;
-            operands.add(new Integer(in.readInt()));
+            operands[operandCount++] = in.readInt();
             group = GROUP_JUMP;
             i += 4;
             break;
           case opc_invokeinterface:
-            operands.add(new Integer(in.readUnsignedShort()));
-            operands.add(new Integer(in.readUnsignedByte()));
+            operands[operandCount++] = in.readUnsignedShort();
+            operands[operandCount++] = in.readUnsignedByte();
             in.discard(1);
             group = GROUP_INVOCATION;
             i += 4;
             break;
           case opc_multianewarray:
-            operands.add(new Integer(in.readUnsignedShort()));
-            operands.add(new Integer(in.readUnsignedByte()));
+            operands[operandCount++] = in.readUnsignedShort();
+            operands[operandCount++] = in.readUnsignedByte();
             i += 3;
             break;
           case opc_tableswitch:
             in.discard((4 - (i + 1) % 4) % 4);
             i += ((4 - (i + 1) % 4) % 4); // padding
-            operands.add(new Integer(in.readInt()));
+            operands[operandCount++] = in.readInt();
             i += 4;
             int low = in.readInt();
-            operands.add(new Integer(low));
+            operands[operandCount++] = low;
             i += 4;
             int high = in.readInt();
-            operands.add(new Integer(high));
+            operands[operandCount++] = high;
             i += 4;
 
             for (int j = 0; j < high - low + 1; j++) {
-              operands.add(new Integer(in.readInt()));
+              operands[operandCount++] = in.readInt();
               i += 4;
             }
             group = GROUP_SWITCH;
@@ -314,16 +457,16 @@ public class StructMethod extends StructMember {
           case opc_lookupswitch:
             in.discard((4 - (i + 1) % 4) % 4);
             i += ((4 - (i + 1) % 4) % 4); // padding
-            operands.add(new Integer(in.readInt()));
+            operands[operandCount++] = in.readInt();
             i += 4;
             int npairs = in.readInt();
-            operands.add(new Integer(npairs));
+            operands[operandCount++] = npairs;
             i += 4;
 
             for (int j = 0; j < npairs; j++) {
-              operands.add(new Integer(in.readInt()));
+              operands[operandCount++] = in.readInt();
               i += 4;
-              operands.add(new Integer(in.readInt()));
+              operands[operandCount++] = in.readInt();
               i += 4;
             }
             group = GROUP_SWITCH;
@@ -339,17 +482,13 @@ public class StructMethod extends StructMember {
         }
       }
 
-      int[] ops = new int[operands.size()];
-      for (int j = 0; j < operands.size(); j++) {
-        ops[j] = operands.get(j).intValue();
-      }
-
-      Instruction instr = ConstantsUtil.getInstructionInstance(opcode, wide, group, bytecode_version, ops);
-
-      instructions.addWithKey(instr, new Integer(offset));
+      offsets[count] = offset;
+      codes[count] = opcode | group << 8 | (wide ? FullInstructionSequence.WIDE_FLAG : 0);
+      count++;
 
       i++;
     }
+    operandStarts[count] = operandCount;
 
     // initialize exception table
     List<ExceptionHandler> lstHandlers = new ArrayList<ExceptionHandler>();
@@ -370,21 +509,9 @@ public class StructMethod extends StructMember {
       lstHandlers.add(handler);
     }
 
-    InstructionSequence seq = new FullInstructionSequence(instructions, new ExceptionTable(lstHandlers));
-
-    // initialize instructions
-    int i = seq.length() - 1;
-    seq.setPointer(i);
-
-    while (i >= 0) {
-      Instruction instr = seq.getInstr(i--);
-      if (instr.group != GROUP_GENERAL) {
-        instr.initInstruction(seq);
-      }
-      seq.addToPointer(-1);
-    }
-
-    return seq;
+    // instructions are created and initialized on first access
+    return new FullInstructionSequence(count, offsets, codes, operandStarts, operands, classStruct.getBytecodeVersion(),
+                                       new ExceptionTable(lstHandlers));
   }
 
   public StructClass getClassStruct() {
@@ -403,6 +530,18 @@ public class StructMethod extends StructMember {
     return containsCode;
   }
 
+  /**
+   * Tells whether the code contains any of the given CODE_* instructions or tables. Known from parsing the class, so
+   * passes can skip methods without expanding them.
+   */
+  public boolean hasCodeFeature(int features) {
+    return (codeFeatures & features) != 0;
+  }
+
+  public int getCodeFeatures() {
+    return codeFeatures;
+  }
+
   public int getLocalVariables() {
     return localVariables;
   }
@@ -17,8 +17,8 @@ package org.jetbrains.java.decompiler.struct.attr;
 
 import org.jetbrains.java.decompiler.modules.decompiler.exps.AnnotationExprent;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
+import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -30,7 +30,7 @@ public class StructAnnotationParameterAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputStream data = stream();
+    DataInputFullStream data = stream();
 
     int len = data.readUnsignedByte();
     if (len > 0) {
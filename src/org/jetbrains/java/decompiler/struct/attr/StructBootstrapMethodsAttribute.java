@@ -18,8 +18,8 @@ package org.jetbrains.java.decompiler.struct.attr;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.struct.consts.LinkConstant;
 import org.jetbrains.java.decompiler.struct.consts.PooledConstant;
+import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -31,7 +31,7 @@ public class StructBootstrapMethodsAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputStream data = stream();
+    DataInputFullStream data = stream();
 
     int method_number = data.readUnsignedShort();
 
@@ -17,8 +17,8 @@ package org.jetbrains.java.decompiler.struct.attr;
 
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.struct.consts.LinkConstant;
+import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 
 public class StructEnclosingMethodAttribute extends StructGeneralAttribute {
@@ -29,7 +29,7 @@ public class StructEnclosingMethodAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputStream data = stream();
+    DataInputFullStream data = stream();
     int classIndex = data.readUnsignedShort();
     int methodIndex = data.readUnsignedShort();
 
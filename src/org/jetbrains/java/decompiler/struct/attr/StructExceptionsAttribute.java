@@ -16,8 +16,8 @@
 package org.jetbrains.java.decompiler.struct.attr;
 
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
+import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -29,7 +29,7 @@ public class StructExceptionsAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputStream data = stream();
+    DataInputFullStream data = stream();
     int len = data.readUnsignedShort();
     if (len > 0) {
       throwsExceptions = new ArrayList<Integer>(len);
@@ -53,6 +53,16 @@ public class StructGeneralAttribute {
   private String name;
   private byte[] info;
 
+  // attributes still needed from library classes, which only serve hierarchy and member lookups
+  public static boolean isLibraryAttribute(String name) {
+    return ATTRIBUTE_INNER_CLASSES.equals(name) ||
+           ATTRIBUTE_ENCLOSING_METHOD.equals(name) ||
+           ATTRIBUTE_SIGNATURE.equals(name) ||
+           ATTRIBUTE_EXCEPTIONS.equals(name) ||
+           ATTRIBUTE_SYNTHETIC.equals(name) ||
+           ATTRIBUTE_DEPRECATED.equals(name);
+  }
+
   public static StructGeneralAttribute createAttribute(String name) {
     StructGeneralAttribute attr;
 
@@ -16,8 +16,8 @@
 package org.jetbrains.java.decompiler.struct.attr;
 
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
+import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -41,7 +41,7 @@ public class StructInnerClassesAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputStream data = stream();
+    DataInputFullStream data = stream();
 
     int len = data.readUnsignedShort();
     if (len > 0) {
@@ -66,7 +66,7 @@ public class StructInnerClassesAttribute extends StructGeneralAttribute {
     public String inner_name;
     public int access;
 
-    private InnerClassInfo(DataInputStream data, ConstantPool pool) throws IOException {
+    private InnerClassInfo(DataInputFullStream data, ConstantPool pool) throws IOException {
         this.inner_class = readString(pool, data.readUnsignedShort());
         this.outer_class = readString(pool, data.readUnsignedShort());
         this.inner_name  = readString(pool, data.readUnsignedShort());
@@ -24,82 +24,86 @@ import org.jetbrains.java.decompiler.struct.gen.NewClassNameBuilder;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
-import java.io.DataInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 public class ConstantPool implements NewClassNameBuilder {
 
   public static final int FIELD = 1;
   public static final int METHOD = 2;
 
-  private final List<PooledConstant> pool = new ArrayList<PooledConstant>();
+  private final PooledConstant[] pool;
+  private final int[] offsets;
+  private final DataInputFullStream data;
   private final PoolInterceptor interceptor;
 
 
-  public ConstantPool(DataInputStream in) throws IOException {
+  public ConstantPool(DataInputFullStream in) throws IOException {
+    this(in, false);
+  }
+
+  public ConstantPool(DataInputFullStream in, boolean lazy) throws IOException {
     int size = in.readUnsignedShort();
-    int[] pass = new int[size];
+    pool = new PooledConstant[size];
 
-    // first dummy constant
-    pool.add(null);
+    if (lazy) {
+      // Only remember where the elements are, they are read and resolved on first access. The bytes of the pool are
+      // copied, so that the rest of the class file, code included, need not be kept. Offsets count from the pool
+      // size, which keeps them positive.
+      int begin = in.getPosition() - 2;
+      offsets = new int[size];
 
-    // first pass: read the elements
-    for (int i = 1; i < size; i++) {
-      byte tag = (byte)in.readUnsignedByte();
-
-      switch (tag) {
-        case CodeConstants.CONSTANT_Utf8:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Utf8, in.readUTF()));
-          break;
-        case CodeConstants.CONSTANT_Integer:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Integer, new Integer(in.readInt())));
-          break;
-        case CodeConstants.CONSTANT_Float:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Float, new Float(in.readFloat())));
-          break;
-        case CodeConstants.CONSTANT_Long:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Long, new Long(in.readLong())));
-          pool.add(null);
-          i++;
-          break;
-        case CodeConstants.CONSTANT_Double:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Double, new Double(in.readDouble())));
-          pool.add(null);
+      for (int i = 1; i < size; i++) {
+        offsets[i] = in.getPosition() - begin;
+        int tag = in.readUnsignedByte();
+        skipConstant(in, tag);
+        if (tag == CodeConstants.CONSTANT_Long || tag == CodeConstants.CONSTANT_Double) {
           i++;
-          break;
-        case CodeConstants.CONSTANT_Class:
-        case CodeConstants.CONSTANT_String:
-        case CodeConstants.CONSTANT_MethodType:
-          pool.add(new PrimitiveConstant(tag, in.readUnsignedShort()));
-          pass[i] = 1;
-          break;
-        case CodeConstants.CONSTANT_Fieldref:
-        case CodeConstants.CONSTANT_Methodref:
-        case CodeConstants.CONSTANT_InterfaceMethodref:
-        case CodeConstants.CONSTANT_NameAndType:
-        case CodeConstants.CONSTANT_InvokeDynamic:
-          pool.add(new LinkConstant(tag, in.readUnsignedShort(), in.readUnsignedShort()));
-          if (tag == CodeConstants.CONSTANT_NameAndType) {
-            pass[i] = 1;
-          }
-          else {
-            pass[i] = 2;
-          }
-          break;
-        case CodeConstants.CONSTANT_MethodHandle:
-          pool.add(new LinkConstant(tag, in.readUnsignedByte(), in.readUnsignedShort()));
-          pass[i] = 3;
-          break;
+        }
       }
+
+      byte[] bytes = new byte[in.getPosition() - begin];
+      in.duplicate(begin).readFully(bytes);
+      data = new DataInputFullStream(bytes);
     }
+    else {
+      offsets = null;
+      data = null;
+
+      int[] pass = new int[size];
 
-    // resolving complex pool elements
-    for (int passIndex = 1; passIndex <= 3; passIndex++) {
+      // first pass: read the elements
       for (int i = 1; i < size; i++) {
-        if (pass[i] == passIndex) {
-          pool.get(i).resolveConstant(this);
+        int tag = in.readUnsignedByte();
+        pool[i] = readConstant(in, tag);
+
+        switch (tag) {
+          case CodeConstants.CONSTANT_Long:
+          case CodeConstants.CONSTANT_Double:
+            i++;
+            break;
+          case CodeConstants.CONSTANT_Class:
+          case CodeConstants.CONSTANT_String:
+          case CodeConstants.CONSTANT_MethodType:
+          case CodeConstants.CONSTANT_NameAndType:
+            pass[i] = 1;
+            break;
+          case CodeConstants.CONSTANT_Fieldref:
+          case CodeConstants.CONSTANT_Methodref:
+          case CodeConstants.CONSTANT_InterfaceMethodref:
+          case CodeConstants.CONSTANT_InvokeDynamic:
+            pass[i] = 2;
+            break;
+          case CodeConstants.CONSTANT_MethodHandle:
+            pass[i] = 3;
+        }
+      }
+
+      // resolving complex pool elements
+      for (int passIndex = 1; passIndex <= 3; passIndex++) {
+        for (int i = 1; i < size; i++) {
+          if (pass[i] == passIndex) {
+            pool[i].resolveConstant(this);
+          }
         }
       }
     }
@@ -108,41 +112,76 @@ public class ConstantPool implements NewClassNameBuilder {
     interceptor = DecompilerContext.getPoolInterceptor();
   }
 
+  private static PooledConstant readConstant(DataInputFullStream in, int tag) throws IOException {
+    switch (tag) {
+      case CodeConstants.CONSTANT_Utf8:
+        return new PrimitiveConstant(CodeConstants.CONSTANT_Utf8, in.readUTF());
+      case CodeConstants.CONSTANT_Integer:
+        return new PrimitiveConstant(CodeConstants.CONSTANT_Integer, new Integer(in.readInt()));
+      case CodeConstants.CONSTANT_Float:
+        return new PrimitiveConstant(CodeConstants.CONSTANT_Float, new Float(in.readFloat()));
+      case CodeConstants.CONSTANT_Long:
+        return new PrimitiveConstant(CodeConstants.CONSTANT_Long, new Long(in.readLong()));
+      case CodeConstants.CONSTANT_Double:
+        return new PrimitiveConstant(CodeConstants.CONSTANT_Double, new Double(in.readDouble()));
+      case CodeConstants.CONSTANT_Class:
+      case CodeConstants.CONSTANT_String:
+      case CodeConstants.CONSTANT_MethodType:
+        return new PrimitiveConstant(tag, in.readUnsignedShort());
+      case CodeConstants.CONSTANT_Fieldref:
+      case CodeConstants.CONSTANT_Methodref:
+      case CodeConstants.CONSTANT_InterfaceMethodref:
+      case CodeConstants.CONSTANT_NameAndType:
+      case CodeConstants.CONSTANT_InvokeDynamic:
+        return new LinkConstant(tag, in.readUnsignedShort(), in.readUnsignedShort());
+      case CodeConstants.CONSTANT_MethodHandle:
+        return new LinkConstant(tag, in.readUnsignedByte(), in.readUnsignedShort());
+    }
+    return null;
+  }
+
+  private static void skipConstant(DataInputFullStream in, int tag) throws IOException {
+    switch (tag) {
+      case CodeConstants.CONSTANT_Utf8:
+        in.discard(in.readUnsignedShort());
+        break;
+      case CodeConstants.CONSTANT_Integer:
+      case CodeConstants.CONSTANT_Float:
+      case CodeConstants.CONSTANT_Fieldref:
+      case CodeConstants.CONSTANT_Methodref:
+      case CodeConstants.CONSTANT_InterfaceMethodref:
+      case CodeConstants.CONSTANT_NameAndType:
+      case CodeConstants.CONSTANT_InvokeDynamic:
+        in.discard(4);
+        break;
+      case CodeConstants.CONSTANT_Long:
+      case CodeConstants.CONSTANT_Double:
+        in.discard(8);
+        break;
+      case CodeConstants.CONSTANT_Class:
+      case CodeConstants.CONSTANT_String:
+      case CodeConstants.CONSTANT_MethodType:
+        in.discard(2);
+        break;
+      case CodeConstants.CONSTANT_MethodHandle:
+        in.discard(3);
+    }
+  }
+
   public static void skipPool(DataInputFullStream in) throws IOException {
     int size = in.readUnsignedShort();
 
     for (int i = 1; i < size; i++) {
-      switch (in.readUnsignedByte()) {
-        case CodeConstants.CONSTANT_Utf8:
-          in.readUTF();
-          break;
-        case CodeConstants.CONSTANT_Integer:
-        case CodeConstants.CONSTANT_Float:
-        case CodeConstants.CONSTANT_Fieldref:
-        case CodeConstants.CONSTANT_Methodref:
-        case CodeConstants.CONSTANT_InterfaceMethodref:
-        case CodeConstants.CONSTANT_NameAndType:
-        case CodeConstants.CONSTANT_InvokeDynamic:
-          in.discard(4);
-          break;
-        case CodeConstants.CONSTANT_Long:
-        case CodeConstants.CONSTANT_Double:
-          in.discard(8);
-          i++;
-          break;
-        case CodeConstants.CONSTANT_Class:
-        case CodeConstants.CONSTANT_String:
-        case CodeConstants.CONSTANT_MethodType:
-          in.discard(2);
-          break;
-        case CodeConstants.CONSTANT_MethodHandle:
-          in.discard(3);
+      int tag = in.readUnsignedByte();
+      skipConstant(in, tag);
+      if (tag == CodeConstants.CONSTANT_Long || tag == CodeConstants.CONSTANT_Double) {
+        i++;
       }
     }
   }
 
   public int size() {
-    return pool.size();
+    return pool.length;
   }
 
   public String[] getClassElement(int elementType, String className, int nameIndex, int descriptorIndex) {
@@ -165,7 +204,27 @@ public class ConstantPool implements NewClassNameBuilder {
   }
 
   public PooledConstant getConstant(int index) {
-    return pool.get(index);
+    if (offsets == null) {
+      return pool[index];
+    }
+
+    synchronized (this) {
+      PooledConstant cn = pool[index];
+      if (cn == null && offsets[index] > 0) {
+        try {
+          data.setPosition(offsets[index]);
+          cn = readConstant(data, data.readUnsignedByte());
+        }
+        catch (IOException ex) {
+          throw new RuntimeException(ex);
+        }
+        if (cn != null) {
+          cn.resolveConstant(this);
+          pool[index] = cn;
+        }
+      }
+      return cn;
+    }
   }
 
   public PrimitiveConstant getPrimitiveConstant(int index) {
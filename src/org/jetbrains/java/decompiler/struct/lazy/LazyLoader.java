@@ -17,18 +17,22 @@ package org.jetbrains.java.decompiler.struct.lazy;
 
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 import org.jetbrains.java.decompiler.struct.StructMethod;
-import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class LazyLoader {
 
-  private final Map<String, Link> mapClassLinks = new HashMap<String, Link>();
+  private final Map<String, Link> mapClassLinks = new ConcurrentHashMap<String, Link>();
   private final IBytecodeProvider provider;
+  private final LinkedHashMap<Link, byte[]> mapClassBytes = new LinkedHashMap<Link, byte[]>(16, 0.75f, true);
+  private long cacheSize;
+  private long cachedBytes;
 
   public LazyLoader(IBytecodeProvider provider) {
     this.provider = provider;
@@ -47,13 +51,17 @@ public class LazyLoader {
   }
 
   public ConstantPool loadPool(String classname) {
+    return loadPool(classname, false);
+  }
+
+  public ConstantPool loadPool(String classname, boolean lazy) {
     try {
       DataInputFullStream in = getClassStream(classname);
       if (in == null) return null;
 
       try {
         in.discard(8);
-        return new ConstantPool(in);
+        return new ConstantPool(in, lazy);
       }
       finally {
         in.close();
@@ -64,73 +72,12 @@ public class LazyLoader {
     }
   }
 
-  public byte[] loadBytecode(StructMethod mt, int codeFullLength) {
-    String className = mt.getClassStruct().qualifiedName;
-
+  public DataInputFullStream loadBytecode(StructMethod mt, int codeOffset, int codeFullLength) {
     try {
-      DataInputFullStream in = getClassStream(className);
-      if (in == null) return null;
-
-      try {
-        in.discard(8);
-
-        ConstantPool pool = mt.getClassStruct().getPool();
-        if (pool == null) {
-          pool = new ConstantPool(in);
-        }
-        else {
-          ConstantPool.skipPool(in);
-        }
-
-        in.discard(6);
-
-        // interfaces
-        in.discard(in.readUnsignedShort() * 2);
-
-        // fields
-        int size = in.readUnsignedShort();
-        for (int i = 0; i < size; i++) {
-          in.discard(6);
-          skipAttributes(in);
-        }
-
-        // methods
-        size = in.readUnsignedShort();
-        for (int i = 0; i < size; i++) {
-          in.discard(2);
-
-          int nameIndex = in.readUnsignedShort();
-          int descriptorIndex = in.readUnsignedShort();
-
-          String[] values = pool.getClassElement(ConstantPool.METHOD, className, nameIndex, descriptorIndex);
-          if (!mt.getName().equals(values[0]) || !mt.getDescriptor().equals(values[1])) {
-            skipAttributes(in);
-            continue;
-          }
-
-          int attrSize = in.readUnsignedShort();
-          for (int j = 0; j < attrSize; j++) {
-            int attrNameIndex = in.readUnsignedShort();
-            String attrName = pool.getPrimitiveConstant(attrNameIndex).getString();
-            if (!StructGeneralAttribute.ATTRIBUTE_CODE.equals(attrName)) {
-              in.discard(in.readInt());
-              continue;
-            }
-
-            in.discard(12);
-            byte[] code = new byte[codeFullLength];
-            in.readFull(code);
-            return code;
-          }
-
-          break;
-        }
-      }
-      finally {
-        in.close();
-      }
+      byte[] bytes = getClassBytes(mt.getClassStruct().qualifiedName);
+      if (bytes == null || codeOffset < 0) return null;
 
-      return null;
+      return new DataInputFullStream(bytes, codeOffset, codeFullLength);
     }
     catch (IOException ex) {
       throw new RuntimeException(ex);
@@ -143,8 +90,50 @@ public class LazyLoader {
   }
 
   public DataInputFullStream getClassStream(String qualifiedClassName) throws IOException {
+    byte[] bytes = getClassBytes(qualifiedClassName);
+    return bytes == null ? null : new DataInputFullStream(bytes);
+  }
+
+  public byte[] getClassBytes(String qualifiedClassName) throws IOException {
     Link link = mapClassLinks.get(qualifiedClassName);
-    return link == null ? null : getClassStream(link.externalPath, link.internalPath);
+    if (link == null) {
+      return null;
+    }
+
+    synchronized (mapClassBytes) {
+      byte[] bytes = mapClassBytes.get(link);
+      if (bytes != null) {
+        return bytes;
+      }
+    }
+
+    byte[] bytes = provider.getBytecode(link.externalPath, link.internalPath);
+
+    synchronized (mapClassBytes) {
+      if (bytes.length <= cacheSize && !mapClassBytes.containsKey(link)) {
+        mapClassBytes.put(link, bytes);
+        cachedBytes += bytes.length;
+
+        // evict the least recently used classes until the cache fits its budget again
+        Iterator<byte[]> it = mapClassBytes.values().iterator();
+        while (cachedBytes > cacheSize) {
+          cachedBytes -= it.next().length;
+          it.remove();
+        }
+      }
+    }
+
+    return bytes;
+  }
+
+  public void setCacheSize(long cacheSize) {
+    synchronized (mapClassBytes) {
+      this.cacheSize = cacheSize;
+      if (cacheSize <= 0) {
+        mapClassBytes.clear();
+        cachedBytes = 0;
+      }
+    }
   }
 
   public static void skipAttributes(DataInputFullStream in) throws IOException {
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Manifest;
+
+// Forwards all calls to the wrapped saver on a single background thread, in the order they were made, so that encoding
+// and compressing a class overlaps with decompiling the next one. At most 'window' calls may be waiting at a time.
+public class BackgroundResultSaver implements IResultSaver {
+
+  private final IResultSaver saver;
+  private final int window;
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(new DecompilerThreadFactory("Java decompiler writer"));
+  private final LinkedList<Future<?>> queued = new LinkedList<Future<?>>();
+
+  public BackgroundResultSaver(IResultSaver saver, int window) {
+    this.saver = saver;
+    this.window = Math.max(1, window);
+
+    final DecompilerContext parentContext = DecompilerContext.getCurrentContext();
+    writer.submit(new Runnable() {
+      @Override
+      public void run() {
+        DecompilerContext.setCurrentContext(DecompilerContext.cloneContext(parentContext));
+      }
+    });
+  }
+
+  // waits for all queued calls and stops the writer thread
+  public void close() {
+    try {
+      while (!queued.isEmpty()) {
+        waitFor(queued.removeFirst());
+      }
+    }
+    finally {
+      writer.shutdownNow();
+    }
+  }
+
+  private void enqueue(Runnable task) {
+    queued.add(writer.submit(task));
+
+    while (!queued.isEmpty() && (queued.size() > window || queued.getFirst().isDone())) {
+      waitFor(queued.removeFirst());
+    }
+  }
+
+  private static void waitFor(Future<?> future) {
+    try {
+      future.get();
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    }
+    catch (ExecutionException ex) {
+      throw new RuntimeException(ex.getCause());
+    }
+  }
+
+  @Override
+  public void saveFolder(final String path) {
+    enqueue(new Runnable() {
+      @Override
+      public void run() {
+        saver.saveFolder(path);
+      }
+    });
+  }
+
+  @Override
+  public void copyFile(final String source, final String path, final String entryName) {
+    enqueue(new Runnable() {
+      @Override
+      public void run() {
+        saver.copyFile(source, path, entryName);
+      }
+    });
+  }
+
+  @Override
+  public void saveClassFile(final String path, final String qualifiedName, final String entryName, final String content, final int[] mapping) {
+    enqueue(new Runnable() {
+      @Override
+      public void run() {
+        saver.saveClassFile(path, qualifiedName, entryName, content, mapping);
+      }
+    });
+  }
+
+  @Override
+  public void createArchive(final String path, final String archiveName, final Manifest manifest) {
+    enqueue(new Runnable() {
+      @Override
+      public void run() {
+        saver.createArchive(path, archiveName, manifest);
+      }
+    });
+  }
+
+  @Override
+  public void saveDirEntry(final String path, final String archiveName, final String entryName) {
+    enqueue(new Runnable() {
+      @Override
+      public void run() {
+        saver.saveDirEntry(path, archiveName, entryName);
+      }
+    });
+  }
+
+  @Override
+  public void copyEntry(final String source, final String path, final String archiveName, final String entry) {
+    enqueue(new Runnable() {
+      @Override
+      public void run() {
+        saver.copyEntry(source, path, archiveName, entry);
+      }
+    });
+  }
+
+  @Override
+  public void saveClassEntry(final String path, final String archiveName, final String qualifiedName, final String entryName, final String content) {
+    enqueue(new Runnable() {
+      @Override
+      public void run() {
+        saver.saveClassEntry(path, archiveName, qualifiedName, entryName, content);
+      }
+    });
+  }
+
+  @Override
+  public void closeArchive(final String path, final String archiveName) {
+    enqueue(new Runnable() {
+      @Override
+      public void run() {
+        saver.closeArchive(path, archiveName);
+      }
+    });
+  }
+}
@@ -15,41 +15,253 @@
  */
 package org.jetbrains.java.decompiler.util;
 
-import java.io.ByteArrayInputStream;
+import java.io.DataInput;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
-public class DataInputFullStream extends DataInputStream {
+// big-endian class file reader over a byte buffer; positions are relative to the start of the buffer.
+// No longer a DataInputStream, but still a DataInput and an InputStream for code that reads it as either.
+public class DataInputFullStream extends InputStream implements DataInput {
+
+  private final ByteBuffer buffer;
+  private final int start;
+  private int mark;
 
   public DataInputFullStream(byte[] bytes) {
-    super(new ByteArrayInputStream(bytes));
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  public DataInputFullStream(byte[] bytes, int offset, int length) {
+    this(ByteBuffer.wrap(bytes, offset, length));
+  }
+
+  public DataInputFullStream(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.start = buffer.position();
+    this.mark = start;
+  }
+
+  public int getPosition() {
+    return buffer.position() - start;
+  }
+
+  public void setPosition(int position) {
+    buffer.position(start + position);
+  }
+
+  // independent reader over the same bytes, positioned relative to the start of this one
+  public DataInputFullStream duplicate(int position) {
+    ByteBuffer copy = buffer.duplicate();
+    copy.position(start);
+    DataInputFullStream in = new DataInputFullStream(copy);
+    in.setPosition(position);
+    return in;
+  }
+
+  @Override
+  public int read() {
+    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (!buffer.hasRemaining()) {
+      return -1;
+    }
+    int n = Math.min(len, buffer.remaining());
+    buffer.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public long skip(long n) {
+    return skipBytes((int)Math.min(n, Integer.MAX_VALUE));
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public void mark(int readLimit) {
+    mark = buffer.position();
+  }
+
+  @Override
+  public void reset() {
+    buffer.position(mark);
+  }
+
+  public int getUnsignedByte(int position) {
+    return buffer.get(start + position) & 0xFF;
+  }
+
+  public int getUnsignedShort(int position) {
+    return buffer.getShort(start + position) & 0xFFFF;
+  }
+
+  public int getInt(int position) {
+    return buffer.getInt(start + position);
   }
 
   public int readFull(byte[] b) throws IOException {
-    int length = b.length;
-    byte[] temp = new byte[length];
-    int pos = 0;
-
-    int bytes_read;
-    while (true) {
-      bytes_read = read(temp, 0, length - pos);
-      if (bytes_read == -1) {
-        return -1;
-      }
+    if (buffer.remaining() < b.length) {
+      return -1;
+    }
+    buffer.get(b);
+    return b.length;
+  }
+
+  public void discard(int n) throws IOException {
+    if (n < 0 || buffer.remaining() < n) {
+      throw new IOException("Skip failed");
+    }
+    buffer.position(buffer.position() + n);
+  }
+
+  @Override
+  public void readFully(byte[] b) throws IOException {
+    readFully(b, 0, b.length);
+  }
+
+  @Override
+  public void readFully(byte[] b, int off, int len) throws IOException {
+    require(len);
+    buffer.get(b, off, len);
+  }
+
+  @Override
+  public int skipBytes(int n) {
+    int skip = Math.max(0, Math.min(n, buffer.remaining()));
+    buffer.position(buffer.position() + skip);
+    return skip;
+  }
+
+  @Override
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  @Override
+  public byte readByte() throws IOException {
+    require(1);
+    return buffer.get();
+  }
+
+  @Override
+  public int readUnsignedByte() throws IOException {
+    require(1);
+    return buffer.get() & 0xFF;
+  }
+
+  @Override
+  public short readShort() throws IOException {
+    require(2);
+    return buffer.getShort();
+  }
+
+  @Override
+  public int readUnsignedShort() throws IOException {
+    require(2);
+    return buffer.getShort() & 0xFFFF;
+  }
+
+  @Override
+  public char readChar() throws IOException {
+    require(2);
+    return buffer.getChar();
+  }
 
-      System.arraycopy(temp, 0, b, pos, bytes_read);
-      pos += bytes_read;
-      if (pos == length) {
+  @Override
+  public int readInt() throws IOException {
+    require(4);
+    return buffer.getInt();
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    require(8);
+    return buffer.getLong();
+  }
+
+  @Override
+  public float readFloat() throws IOException {
+    require(4);
+    return buffer.getFloat();
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    require(8);
+    return buffer.getDouble();
+  }
+
+  // as specified by DataInput: bytes are taken as Latin-1 characters, the line ends at \n, \r or \r\n
+  @Override
+  public String readLine() throws IOException {
+    if (!buffer.hasRemaining()) {
+      return null;
+    }
+
+    StringBuilder line = new StringBuilder();
+    while (buffer.hasRemaining()) {
+      int c = buffer.get() & 0xFF;
+      if (c == '\n') {
         break;
       }
+      if (c == '\r') {
+        if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+          buffer.get();
+        }
+        break;
+      }
+      line.append((char)c);
+    }
+    return line.toString();
+  }
+
+  @Override
+  public String readUTF() throws IOException {
+    int length = readUnsignedShort();
+    require(length);
+
+    // pool strings are almost always plain ASCII, decode those without going through the generic reader
+    int position = buffer.position();
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      byte b = buffer.get(position + i);
+      if (b <= 0) {
+        buffer.position(position - 2);
+        return DataInputStream.readUTF(this);
+      }
+      chars[i] = (char)b;
     }
+    buffer.position(position + length);
 
-    return length;
+    return new String(chars);
   }
 
-  public void discard(int n) throws IOException {
-    if (super.skip(n) != n) {
-      throw new IOException("Skip failed");
+  @Override
+  public void close() { }
+
+  private void require(int n) throws EOFException {
+    if (buffer.remaining() < n) {
+      throw new EOFException();
     }
   }
 }
@@ -129,7 +129,7 @@ public class DotExporter {
     return buffer.toString();
   }
 
-  private static String toDotFormat(DirectGraph graph, Map<String, SFormsFastMapDirect> vars) {
+  private static String toDotFormat(DirectGraph graph, SFormsFastMapDirect[] vars) {
 
     StringBuffer buffer = new StringBuffer();
 
@@ -140,8 +140,8 @@ public class DotExporter {
       DirectNode block = blocks.get(i);
 
       StringBuilder label = new StringBuilder(block.id);
-      if (vars != null && vars.containsKey(block.id)) {
-        SFormsFastMapDirect map = vars.get(block.id);
+      if (vars != null && vars[block.index] != null) {
+        SFormsFastMapDirect map = vars[block.index];
 
         List<Entry<Integer, FastSparseSet<Integer>>> lst = map.entryList();
         if (lst != null) {
@@ -188,7 +188,7 @@ public class DotExporter {
   public static void toDotFile(DirectGraph dgraph, StructMethod mt, String suffix) {
     toDotFile(dgraph, mt, suffix, null);
   }
-  public static void toDotFile(DirectGraph dgraph, StructMethod mt, String suffix, Map<String, SFormsFastMapDirect> vars) {
+  public static void toDotFile(DirectGraph dgraph, StructMethod mt, String suffix, SFormsFastMapDirect[] vars) {
     if (!DUMP_DOTS)
       return;
     try{
@@ -17,31 +17,23 @@ package org.jetbrains.java.decompiler.util;
 
 import java.util.*;
 
+// Sets over a fixed universe of elements. Each element is assigned a dense ordinal in the order of the collection
+// the factory is created with; a set is a bit vector over these ordinals.
 public class FastFixedSetFactory<E> {
 
-  private final VBStyleCollection<int[], E> colValuesInternal = new VBStyleCollection<int[], E>();
+  private final List<E> elements;
+
+  private final Map<E, Integer> ordinals = new HashMap<E, Integer>();
 
   private final int dataLength;
 
   public FastFixedSetFactory(Collection<E> set) {
 
-    dataLength = set.size() / 32 + 1;
-
-    int index = 0;
-    int mask = 1;
-
-    for (E element : set) {
-
-      int block = index / 32;
-
-      if (index % 32 == 0) {
-        mask = 1;
-      }
-
-      colValuesInternal.putWithKey(new int[]{block, mask}, element);
+    elements = new ArrayList<E>(set);
+    dataLength = elements.size() / 64 + 1;
 
-      index++;
-      mask <<= 1;
+    for (int i = 0; i < elements.size(); i++) {
+      ordinals.put(elements.get(i), i);
     }
   }
 
@@ -49,55 +41,62 @@ public class FastFixedSetFactory<E> {
     return new FastFixedSet<E>(this);
   }
 
-  private int getDataLength() {
-    return dataLength;
+  // ordinal of the given element, -1 if it is not part of the universe
+  public int getOrdinal(E element) {
+    Integer ordinal = ordinals.get(element);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  public E getElement(int ordinal) {
+    return elements.get(ordinal);
   }
 
-  private VBStyleCollection<int[], E> getInternalValuesCollection() {
-    return colValuesInternal;
+  public int size() {
+    return elements.size();
+  }
+
+  private int getDataLength() {
+    return dataLength;
   }
 
   public static class FastFixedSet<E> implements Iterable<E> {
 
     private final FastFixedSetFactory<E> factory;
 
-    private final VBStyleCollection<int[], E> colValuesInternal;
-
-    private int[] data;
+    private final long[] data;
 
 
     private FastFixedSet(FastFixedSetFactory<E> factory) {
+      this(factory, new long[factory.getDataLength()]);
+    }
+
+    private FastFixedSet(FastFixedSetFactory<E> factory, long[] data) {
       this.factory = factory;
-      this.colValuesInternal = factory.getInternalValuesCollection();
-      this.data = new int[factory.getDataLength()];
+      this.data = data;
     }
 
     public FastFixedSet<E> getCopy() {
-
-      FastFixedSet<E> copy = new FastFixedSet<E>(factory);
-
-      int arrlength = data.length;
-      int[] cpdata = new int[arrlength];
-      System.arraycopy(data, 0, cpdata, 0, arrlength);
-      copy.setData(cpdata);
-
-      return copy;
+      return new FastFixedSet<E>(factory, data.clone());
     }
 
     public void setAllElements() {
 
-      int[] lastindex = colValuesInternal.get(colValuesInternal.size() - 1);
+      int last = factory.size() - 1;
+      int lastword = last >>> 6;
 
-      for (int i = lastindex[0] - 1; i >= 0; i--) {
-        data[i] = 0xFFFFFFFF;
+      for (int i = lastword - 1; i >= 0; i--) {
+        data[i] = -1L;
       }
 
-      data[lastindex[0]] = lastindex[1] | (lastindex[1] - 1);
+      data[lastword] = (2L << (last & 63)) - 1;
     }
 
     public void add(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-      data[index[0]] |= index[1];
+      addOrdinal(factory.ordinals.get(element));
+    }
+
+    public void addOrdinal(int ordinal) {
+      data[ordinal >>> 6] |= 1L << ordinal;
     }
 
     public void addAll(Collection<E> set) {
@@ -107,8 +106,11 @@ public class FastFixedSetFactory<E> {
     }
 
     public void remove(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-      data[index[0]] &= ~index[1];
+      removeOrdinal(factory.ordinals.get(element));
+    }
+
+    public void removeOrdinal(int ordinal) {
+      data[ordinal >>> 6] &= ~(1L << ordinal);
     }
 
     public void removeAll(Collection<E> set) {
@@ -118,13 +120,37 @@ public class FastFixedSetFactory<E> {
     }
 
     public boolean contains(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-      return (data[index[0]] & index[1]) != 0;
+      return containsOrdinal(factory.ordinals.get(element));
+    }
+
+    public boolean containsOrdinal(int ordinal) {
+      return (data[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    // first ordinal in the set that is not less than the given one, -1 if there is none
+    public int nextOrdinal(int ordinal) {
+      long[] intdata = data;
+
+      int index = ordinal >>> 6;
+      if (index >= intdata.length) {
+        return -1;
+      }
+
+      long word = intdata[index] & (-1L << ordinal);
+      while (true) {
+        if (word != 0) {
+          return (index << 6) + Long.numberOfTrailingZeros(word);
+        }
+        if (++index == intdata.length) {
+          return -1;
+        }
+        word = intdata[index];
+      }
     }
 
     public boolean contains(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         if ((extdata[i] & ~intdata[i]) != 0) {
@@ -136,8 +162,8 @@ public class FastFixedSetFactory<E> {
     }
 
     public void union(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         intdata[i] |= extdata[i];
@@ -145,8 +171,8 @@ public class FastFixedSetFactory<E> {
     }
 
     public void intersection(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         intdata[i] &= extdata[i];
@@ -154,8 +180,8 @@ public class FastFixedSetFactory<E> {
     }
 
     public void symdiff(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         intdata[i] ^= extdata[i];
@@ -163,8 +189,8 @@ public class FastFixedSetFactory<E> {
     }
 
     public void complement(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         intdata[i] &= ~extdata[i];
@@ -176,8 +202,8 @@ public class FastFixedSetFactory<E> {
       if (o == this) return true;
       if (o == null || !(o instanceof FastFixedSet)) return false;
 
-      int[] extdata = ((FastFixedSet)o).getData();
-      int[] intdata = data;
+      long[] extdata = ((FastFixedSet)o).getData();
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         if (intdata[i] != extdata[i]) {
@@ -189,7 +215,7 @@ public class FastFixedSetFactory<E> {
     }
 
     public boolean isEmpty() {
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         if (intdata[i] != 0) {
@@ -215,19 +241,8 @@ public class FastFixedSetFactory<E> {
 
     private <T extends Collection<E>> T toPlainCollection(T cl) {
 
-      int[] intdata = data;
-      for (int bindex = 0; bindex < intdata.length; bindex++) {
-        int block = intdata[bindex];
-        if (block != 0) {
-          int index = bindex << 5; // * 32
-          for (int i = 31; i >= 0; i--) {
-            if ((block & 1) != 0) {
-              cl.add(colValuesInternal.getKey(index));
-            }
-            index++;
-            block >>>= 1;
-          }
-        }
+      for (int ordinal = nextOrdinal(0); ordinal >= 0; ordinal = nextOrdinal(ordinal + 1)) {
+        cl.add(factory.getElement(ordinal));
       }
 
       return cl;
@@ -236,10 +251,10 @@ public class FastFixedSetFactory<E> {
     public String toBinary() {
 
       StringBuilder buffer = new StringBuilder();
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = 0; i < intdata.length; i++) {
-        buffer.append(" ").append(Integer.toBinaryString(intdata[i]));
+        buffer.append(" ").append(Long.toBinaryString(intdata[i]));
       }
 
       return buffer.toString();
@@ -249,20 +264,17 @@ public class FastFixedSetFactory<E> {
 
       StringBuilder buffer = new StringBuilder("{");
 
-      int[] intdata = data;
       boolean first = true;
 
-      for (int i = colValuesInternal.size() - 1; i >= 0; i--) {
-        int[] index = colValuesInternal.get(i);
-
-        if ((intdata[index[0]] & index[1]) != 0) {
+      for (int i = factory.size() - 1; i >= 0; i--) {
+        if (containsOrdinal(i)) {
           if (first) {
             first = false;
           }
           else {
             buffer.append(",");
           }
-          buffer.append(colValuesInternal.getKey(i));
+          buffer.append(factory.getElement(i));
         }
       }
 
@@ -271,14 +283,10 @@ public class FastFixedSetFactory<E> {
       return buffer.toString();
     }
 
-    private int[] getData() {
+    private long[] getData() {
       return data;
     }
 
-    private void setData(int[] data) {
-      this.data = data;
-    }
-
     public FastFixedSetFactory<E> getFactory() {
       return factory;
     }
@@ -286,49 +294,19 @@ public class FastFixedSetFactory<E> {
 
   public static class FastFixedSetIterator<E> implements Iterator<E> {
 
-    private final VBStyleCollection<int[], E> colValuesInternal;
-    private final int[] data;
+    private final FastFixedSet<E> set;
     private final int size;
 
     private int pointer = -1;
     private int next_pointer = -1;
 
     private FastFixedSetIterator(FastFixedSet<E> set) {
-      colValuesInternal = set.getFactory().getInternalValuesCollection();
-      data = set.getData();
-      size = colValuesInternal.size();
+      this.set = set;
+      size = set.getFactory().size();
     }
 
     private int getNextIndex(int index) {
-
-      index++;
-      int ret = index;
-      int bindex = index / 32;
-      int dindex = index % 32;
-
-      while (bindex < data.length) {
-        int block = data[bindex];
-
-        if (block != 0) {
-          block >>>= dindex;
-          while (dindex < 32) {
-            if ((block & 1) != 0) {
-              return ret;
-            }
-            block >>>= 1;
-            dindex++;
-            ret++;
-          }
-        }
-        else {
-          ret += (32 - dindex);
-        }
-
-        dindex = 0;
-        bindex++;
-      }
-
-      return -1;
+      return set.nextOrdinal(index + 1);
     }
 
     public boolean hasNext() {
@@ -348,13 +326,11 @@ public class FastFixedSetFactory<E> {
       }
 
       next_pointer = -1;
-      return pointer < size ? colValuesInternal.getKey(pointer) : null;
+      return pointer < size ? set.getFactory().getElement(pointer) : null;
     }
 
     public void remove() {
-      int[] index = colValuesInternal.get(pointer);
-      data[index[0]] &= ~index[1];
+      set.removeOrdinal(pointer);
     }
   }
 }
-
@@ -15,75 +15,55 @@
  */
 package org.jetbrains.java.decompiler.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+// Sets over a growing universe of elements. Each element is assigned a dense ordinal when it is first seen; a set is
+// a bit vector over these ordinals, with its non-empty words linked for fast traversal.
 public class FastSparseSetFactory<E> {
 
-  private final VBStyleCollection<int[], E> colValuesInternal = new VBStyleCollection<int[], E>();
+  private final List<E> elements = new ArrayList<E>();
 
-  private int lastBlock;
-
-  private int lastMask;
+  private final Map<E, Integer> ordinals = new HashMap<E, Integer>();
 
   public FastSparseSetFactory(Collection<E> set) {
-
-    int block = -1;
-    int mask = -1;
-    int index = 0;
-
     for (E element : set) {
-
-      block = index / 32;
-
-      if (index % 32 == 0) {
-        mask = 1;
-      }
-      else {
-        mask <<= 1;
-      }
-
-      colValuesInternal.putWithKey(new int[]{block, mask}, element);
-
-      index++;
+      getOrAddOrdinal(element);
     }
-
-    lastBlock = block;
-    lastMask = mask;
   }
 
-  private int[] addElement(E element) {
-
-    if (lastMask == -1 || lastMask == 0x80000000) {
-      lastMask = 1;
-      lastBlock++;
+  private int getOrAddOrdinal(E element) {
+    Integer ordinal = ordinals.get(element);
+    if (ordinal == null) {
+      ordinal = elements.size();
+      elements.add(element);
+      ordinals.put(element, ordinal);
     }
-    else {
-      lastMask <<= 1;
-    }
-
-    int[] pointer = new int[]{lastBlock, lastMask};
-    colValuesInternal.putWithKey(pointer, element);
-
-    return pointer;
+    return ordinal;
   }
 
   public FastSparseSet<E> spawnEmptySet() {
     return new FastSparseSet<E>(this);
   }
 
-  public int getLastBlock() {
-    return lastBlock;
+  // ordinal of the given element, -1 if it has not been seen yet
+  public int getOrdinal(E element) {
+    Integer ordinal = ordinals.get(element);
+    return ordinal == null ? -1 : ordinal;
   }
 
-  public int getLastMask() {
-    return lastMask;
+  public E getElement(int ordinal) {
+    return elements.get(ordinal);
   }
 
-  private VBStyleCollection<int[], E> getInternalValuesCollection() {
-    return colValuesInternal;
+  public int size() {
+    return elements.size();
   }
 
 
@@ -92,41 +72,43 @@ public class FastSparseSetFactory<E> {
 
     private final FastSparseSetFactory<E> factory;
 
-    private final VBStyleCollection<int[], E> colValuesInternal;
-
-    private int[] data;
+    private long[] data;
     private int[] next;
 
+    // data and next may be referenced by copies of this set as well, see getCopy()
+    private boolean shared;
+
     private FastSparseSet(FastSparseSetFactory<E> factory) {
       this.factory = factory;
-      this.colValuesInternal = factory.getInternalValuesCollection();
 
-      int length = factory.getLastBlock() + 1;
-      this.data = new int[length];
+      int length = (factory.size() + 63) >>> 6;
+      this.data = new long[length];
       this.next = new int[length];
     }
 
-    private FastSparseSet(FastSparseSetFactory<E> factory, int[] data, int[] next) {
+    private FastSparseSet(FastSparseSetFactory<E> factory, long[] data, int[] next) {
       this.factory = factory;
-      this.colValuesInternal = factory.getInternalValuesCollection();
 
       this.data = data;
       this.next = next;
     }
 
+    // the arrays are shared until either set is modified
     public FastSparseSet<E> getCopy() {
+      FastSparseSet<E> copy = new FastSparseSet<E>(factory, data, next);
+      copy.shared = shared = true;
+      return copy;
+    }
 
-      int arrlength = data.length;
-      int[] cpdata = new int[arrlength];
-      int[] cpnext = new int[arrlength];
-
-      System.arraycopy(data, 0, cpdata, 0, arrlength);
-      System.arraycopy(next, 0, cpnext, 0, arrlength);
-
-      return new FastSparseSet<E>(factory, cpdata, cpnext);
+    private void own() {
+      if (shared) {
+        data = data.clone();
+        next = next.clone();
+        shared = false;
+      }
     }
 
-    private int[] ensureCapacity(int index) {
+    private long[] ensureCapacity(int index) {
 
       int newlength = data.length;
       if (newlength == 0) {
@@ -137,7 +119,7 @@ public class FastSparseSetFactory<E> {
         newlength *= 2;
       }
 
-      int[] newdata = new int[newlength];
+      long[] newdata = new long[newlength];
       System.arraycopy(data, 0, newdata, 0, data.length);
       data = newdata;
 
@@ -145,41 +127,51 @@ public class FastSparseSetFactory<E> {
       System.arraycopy(next, 0, newnext, 0, next.length);
       next = newnext;
 
+      shared = false;
+
       return newdata;
     }
 
     public void add(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-
-      if (index == null) {
-        index = factory.addElement(element);
-      }
+      addOrdinal(factory.getOrAddOrdinal(element));
+    }
 
-      int block = index[0];
+    public void addOrdinal(int ordinal) {
+      int block = ordinal >>> 6;
       if (block >= data.length) {
         ensureCapacity(block);
       }
+      else {
+        own();
+      }
 
-      data[block] |= index[1];
+      data[block] |= 1L << ordinal;
 
       changeNext(next, block, next[block], block);
     }
 
     public void setAllElements() {
 
-      int lastblock = factory.getLastBlock();
-      int lastmask = factory.getLastMask();
+      int last = factory.size() - 1;
+      if (last < 0) {
+        return;
+      }
+
+      int lastblock = last >>> 6;
 
       if (lastblock >= data.length) {
         ensureCapacity(lastblock);
       }
+      else {
+        own();
+      }
 
       for (int i = lastblock - 1; i >= 0; i--) {
-        data[i] = 0xFFFFFFFF;
+        data[i] = -1L;
         next[i] = i + 1;
       }
 
-      data[lastblock] = lastmask | (lastmask - 1);
+      data[lastblock] = (2L << (last & 63)) - 1;
       next[lastblock] = 0;
     }
 
@@ -190,15 +182,14 @@ public class FastSparseSetFactory<E> {
     }
 
     public void remove(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-
-      if (index == null) {
-        index = factory.addElement(element);
-      }
+      removeOrdinal(factory.getOrAddOrdinal(element));
+    }
 
-      int block = index[0];
+    public void removeOrdinal(int ordinal) {
+      int block = ordinal >>> 6;
       if (block < data.length) {
-        data[block] &= ~index[1];
+        own();
+        data[block] &= ~(1L << ordinal);
 
         if (data[block] == 0) {
           changeNext(next, block, block, next[block]);
@@ -213,18 +204,39 @@ public class FastSparseSetFactory<E> {
     }
 
     public boolean contains(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
+      return containsOrdinal(factory.getOrAddOrdinal(element));
+    }
 
-      if (index == null) {
-        index = factory.addElement(element);
+    public boolean containsOrdinal(int ordinal) {
+      int block = ordinal >>> 6;
+      return block < data.length && ((data[block] & (1L << ordinal)) != 0);
+    }
+
+    // first ordinal in the set that is not less than the given one, -1 if there is none
+    public int nextOrdinal(int ordinal) {
+      long[] intdata = data;
+
+      int index = ordinal >>> 6;
+      if (index >= intdata.length) {
+        return -1;
       }
 
-      return index[0] < data.length && ((data[index[0]] & index[1]) != 0);
+      long word = intdata[index] & (-1L << ordinal);
+      while (true) {
+        if (word != 0) {
+          return (index << 6) + Long.numberOfTrailingZeros(word);
+        }
+        index = next[index];
+        if (index == 0) {
+          return -1;
+        }
+        word = intdata[index];
+      }
     }
 
     public boolean contains(FastSparseSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       int minlength = Math.min(extdata.length, intdata.length);
 
@@ -266,10 +278,11 @@ public class FastSparseSetFactory<E> {
     }
 
     public void union(FastSparseSet<E> set) {
+      own();
 
-      int[] extdata = set.getData();
+      long[] extdata = set.getData();
       int[] extnext = set.getNext();
-      int[] intdata = data;
+      long[] intdata = data;
       int intlength = intdata.length;
 
       int pointer = 0;
@@ -291,8 +304,10 @@ public class FastSparseSetFactory<E> {
     }
 
     public void intersection(FastSparseSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      own();
+
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       int minlength = Math.min(extdata.length, intdata.length);
 
@@ -308,8 +323,10 @@ public class FastSparseSetFactory<E> {
     }
 
     public void symdiff(FastSparseSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      own();
+
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       int minlength = Math.min(extdata.length, intdata.length);
 
@@ -331,9 +348,10 @@ public class FastSparseSetFactory<E> {
     }
 
     public void complement(FastSparseSet<E> set) {
+      own();
 
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
       int extlength = extdata.length;
 
       int pointer = 0;
@@ -357,8 +375,8 @@ public class FastSparseSetFactory<E> {
       if (o == this) return true;
       if (o == null || !(o instanceof FastSparseSet)) return false;
 
-      int[] longdata = ((FastSparseSet)o).getData();
-      int[] shortdata = data;
+      long[] longdata = ((FastSparseSet)o).getData();
+      long[] shortdata = data;
 
       if (data.length > longdata.length) {
         shortdata = longdata;
@@ -383,10 +401,10 @@ public class FastSparseSetFactory<E> {
     public int getCardinality() {
 
       boolean found = false;
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
-        int block = intdata[i];
+        long block = intdata[i];
         if (block != 0) {
           if (found) {
             return 2;
@@ -416,19 +434,8 @@ public class FastSparseSetFactory<E> {
     public Set<E> toPlainSet() {
       HashSet<E> set = new HashSet<E>();
 
-      int[] intdata = data;
-
-      int size = data.length * 32;
-      if (size > colValuesInternal.size()) {
-        size = colValuesInternal.size();
-      }
-
-      for (int i = size - 1; i >= 0; i--) {
-        int[] index = colValuesInternal.get(i);
-
-        if ((intdata[index[0]] & index[1]) != 0) {
-          set.add(colValuesInternal.getKey(i));
-        }
+      for (int ordinal = nextOrdinal(0); ordinal >= 0; ordinal = nextOrdinal(ordinal + 1)) {
+        set.add(factory.getElement(ordinal));
       }
 
       return set;
@@ -441,16 +448,16 @@ public class FastSparseSetFactory<E> {
     public String toBinary() {
 
       StringBuilder buffer = new StringBuilder();
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = 0; i < intdata.length; i++) {
-        buffer.append(" ").append(Integer.toBinaryString(intdata[i]));
+        buffer.append(" ").append(Long.toBinaryString(intdata[i]));
       }
 
       return buffer.toString();
     }
 
-    private int[] getData() {
+    private long[] getData() {
       return data;
     }
 
@@ -459,7 +466,7 @@ public class FastSparseSetFactory<E> {
     }
 
     public int[] getLoad() {
-      int[] intdata = data;
+      long[] intdata = data;
       int notempty = 0;
 
       for (int i = 0; i < intdata.length; i++) {
@@ -478,50 +485,19 @@ public class FastSparseSetFactory<E> {
 
   public static class FastSparseSetIterator<E> implements Iterator<E> {
 
-    private final VBStyleCollection<int[], E> colValuesInternal;
-    private final int[] data;
-    private final int[] next;
+    private final FastSparseSet<E> set;
     private final int size;
 
     private int pointer = -1;
     private int next_pointer = -1;
 
     private FastSparseSetIterator(FastSparseSet<E> set) {
-      colValuesInternal = set.getFactory().getInternalValuesCollection();
-      data = set.getData();
-      next = set.getNext();
-      size = colValuesInternal.size();
+      this.set = set;
+      size = set.getFactory().size();
     }
 
     private int getNextIndex(int index) {
-
-      index++;
-      int bindex = index >>> 5;
-      int dindex = index & 0x1F;
-
-      while (bindex < data.length) {
-        int block = data[bindex];
-
-        if (block != 0) {
-          block >>>= dindex;
-          while (dindex < 32) {
-            if ((block & 1) != 0) {
-              return (bindex << 5) + dindex;
-            }
-            block >>>= 1;
-            dindex++;
-          }
-        }
-
-        dindex = 0;
-        bindex = next[bindex];
-
-        if (bindex == 0) {
-          break;
-        }
-      }
-
-      return -1;
+      return set.nextOrdinal(index + 1);
     }
 
     public boolean hasNext() {
@@ -541,13 +517,11 @@ public class FastSparseSetFactory<E> {
       }
 
       next_pointer = -1;
-      return pointer < size ? colValuesInternal.getKey(pointer) : null;
+      return pointer < size ? set.getFactory().getElement(pointer) : null;
     }
 
     public void remove() {
-      int[] index = colValuesInternal.get(pointer);
-      data[index[0]] &= ~index[1];
+      set.removeOrdinal(pointer);
     }
   }
 }
-
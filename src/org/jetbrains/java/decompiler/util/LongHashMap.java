@@ -0,0 +1,116 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map with primitive long keys, see VarVersionPair.toLong(). Null values are not supported.
+ */
+public class LongHashMap<V> {
+  private static final int MIN_CAPACITY = 8;
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+
+  public LongHashMap() {
+    keys = new long[MIN_CAPACITY];
+    values = new Object[MIN_CAPACITY];
+  }
+
+  public LongHashMap(LongHashMap<V> map) {
+    keys = map.keys.clone();
+    values = map.values.clone();
+    size = map.size;
+  }
+
+  public V get(long key) {
+    int mask = keys.length - 1;
+    for (int slot = hash(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        @SuppressWarnings("unchecked") V value = (V)values[slot];
+        return value;
+      }
+    }
+    return null;
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Null values are not supported");
+    }
+
+    int mask = keys.length - 1;
+    int slot = hash(key, mask);
+    for (; values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        @SuppressWarnings("unchecked") V old = (V)values[slot];
+        values[slot] = value;
+        return old;
+      }
+    }
+
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    return null;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+
+    keys = new long[capacity];
+    values = new Object[capacity];
+
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = hash(oldKeys[i], mask);
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  static int hash(long key, int mask) {
+    // Fibonacci hashing, packed pairs differ mostly in their lowest bits
+    return (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+  }
+}
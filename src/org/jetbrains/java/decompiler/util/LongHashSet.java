@@ -0,0 +1,107 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+/**
+ * Open addressing hash set of primitive longs, see VarVersionPair.toLong().
+ */
+public class LongHashSet {
+  private static final int MIN_CAPACITY = 8;
+
+  private long[] keys;
+  private boolean[] used;
+  private int size;
+
+  public LongHashSet() {
+    keys = new long[MIN_CAPACITY];
+    used = new boolean[MIN_CAPACITY];
+  }
+
+  public boolean contains(long key) {
+    int mask = keys.length - 1;
+    for (int slot = LongHashMap.hash(key, mask); used[slot]; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean add(long key) {
+    int mask = keys.length - 1;
+    int slot = LongHashMap.hash(key, mask);
+    for (; used[slot]; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return false;
+      }
+    }
+
+    keys[slot] = key;
+    used[slot] = true;
+    if (++size * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    return true;
+  }
+
+  public void addAll(LongHashSet set) {
+    for (int i = 0; i < set.keys.length; i++) {
+      if (set.used[i]) {
+        add(set.keys[i]);
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  // elements in no particular order
+  public long[] toArray() {
+    long[] res = new long[size];
+    int index = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (used[i]) {
+        res[index++] = keys[i];
+      }
+    }
+    return res;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    boolean[] oldUsed = used;
+
+    keys = new long[capacity];
+    used = new boolean[capacity];
+
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldUsed[i]) {
+        int slot = LongHashMap.hash(oldKeys[i], mask);
+        while (used[slot]) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        used[slot] = true;
+      }
+    }
+  }
+}
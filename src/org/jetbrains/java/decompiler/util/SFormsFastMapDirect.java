@@ -31,6 +31,9 @@ public class SFormsFastMapDirect {
 
   private final int[][] next = new int[3][];
 
+  // arrays of elements and next that may be referenced by copies of this map as well, copied on the first change
+  private final boolean[] shared = new boolean[3];
+
   public SFormsFastMapDirect() {
     this(true);
   }
@@ -45,23 +48,14 @@ public class SFormsFastMapDirect {
     }
   }
 
+  // shallow copy, the value sets are the same objects as in the given map
   public SFormsFastMapDirect(SFormsFastMapDirect map) {
     for (int i = 2; i >= 0; i--) {
-      FastSparseSet<Integer>[] arr = map.elements[i];
-      int[] arrnext = map.next[i];
-
-      int length = arr.length;
-      @SuppressWarnings("unchecked") FastSparseSet<Integer>[] arrnew = new FastSparseSet[length];
-      int[] arrnextnew = new int[length];
-
-      System.arraycopy(arr, 0, arrnew, 0, length);
-      System.arraycopy(arrnext, 0, arrnextnew, 0, length);
-
-      elements[i] = arrnew;
-      next[i] = arrnextnew;
-
-      size = map.size;
+      elements[i] = map.elements[i];
+      next[i] = map.next[i];
+      shared[i] = map.shared[i] = true;
     }
+    size = map.size;
   }
 
   public SFormsFastMapDirect getCopy() {
@@ -80,12 +74,10 @@ public class SFormsFastMapDirect {
         int[] arrnext = next[i];
 
         @SuppressWarnings("unchecked") FastSparseSet<Integer>[] arrnew = new FastSparseSet[length];
-        int[] arrnextnew = new int[length];
-
-        System.arraycopy(arrnext, 0, arrnextnew, 0, length);
 
         mapelements[i] = arrnew;
-        mapnext[i] = arrnextnew;
+        mapnext[i] = arrnext;
+        map.shared[i] = shared[i] = true;
 
         int pointer = 0;
         do {
@@ -124,6 +116,11 @@ public class SFormsFastMapDirect {
   }
 
   public void removeAllFields() {
+    if (elements[2].length == 0) {
+      return;
+    }
+
+    own(2);
     FastSparseSet<Integer>[] arr = elements[2];
     int[] arrnext = next[2];
 
@@ -159,6 +156,9 @@ public class SFormsFastMapDirect {
         arr = ensureCapacity(index, ikey + 1, false);
       }
     }
+    else {
+      arr = own(index);
+    }
 
     FastSparseSet<Integer> oldval = arr[ikey];
     arr[ikey] = value;
@@ -219,6 +219,7 @@ public class SFormsFastMapDirect {
         continue;
       }
 
+      lstOwn = own(i);
       FastSparseSet<Integer>[] lstExtern = map.elements[i];
       int[] arrnext = next[i];
 
@@ -257,6 +258,7 @@ public class SFormsFastMapDirect {
         continue;
       }
 
+      lstOwn = own(i);
       FastSparseSet<Integer>[] lstExtern = map.elements[i];
       int[] arrnext = next[i];
 
@@ -296,7 +298,7 @@ public class SFormsFastMapDirect {
         continue;
       }
 
-      FastSparseSet<Integer>[] lstOwn = elements[i];
+      FastSparseSet<Integer>[] lstOwn = own(i);
       int[] arrnext = next[i];
       int[] arrnextExtern = map.next[i];
 
@@ -408,7 +410,17 @@ public class SFormsFastMapDirect {
 
     elements[index] = arrnew;
     next[index] = arrnextnew;
+    shared[index] = false;
 
     return arrnew;
   }
+
+  private FastSparseSet<Integer>[] own(int index) {
+    if (shared[index]) {
+      elements[index] = elements[index].clone();
+      next[index] = next[index].clone();
+      shared[index] = false;
+    }
+    return elements[index];
+  }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Keeps a bounded number of archives open between reads, evicting the least recently used one.
+ * An evicted archive is closed as soon as the last pending read on it completes.
+ */
+public class ZipFileCache {
+  public static final int DEFAULT_CAPACITY = 16;
+
+  private final int capacity;
+  private final LinkedHashMap<String, Handle> mapArchives = new LinkedHashMap<String, Handle>(16, 0.75f, true);
+
+  public ZipFileCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ZipFileCache(int capacity) {
+    this.capacity = Math.max(1, capacity);
+  }
+
+  public byte[] getBytes(String path, String entryName) throws IOException {
+    Handle handle = acquire(path);
+    try {
+      ZipEntry entry = handle.archive.getEntry(entryName);
+      if (entry == null) {
+        throw new IOException("Entry not found: " + entryName);
+      }
+      return InterpreterUtil.getBytes(handle.archive, entry);
+    }
+    finally {
+      release(handle);
+    }
+  }
+
+  public void close() {
+    List<Handle> evicted;
+    synchronized (this) {
+      evicted = new ArrayList<Handle>(mapArchives.values());
+      mapArchives.clear();
+      for (Handle handle : evicted) {
+        handle.evicted = true;
+      }
+    }
+
+    for (Handle handle : evicted) {
+      closeIfUnused(handle);
+    }
+  }
+
+  // the cached archive of the path or null, without counting as a use; for tests
+  synchronized ZipFile getArchive(String path) {
+    for (Map.Entry<String, Handle> entry : mapArchives.entrySet()) {
+      if (entry.getKey().equals(path)) {
+        return entry.getValue().archive;
+      }
+    }
+    return null;
+  }
+
+  private Handle acquire(String path) throws IOException {
+    synchronized (this) {
+      Handle handle = mapArchives.get(path);
+      if (handle != null) {
+        handle.users++;
+        return handle;
+      }
+    }
+
+    // opening may take a while, lookups of other archives must not wait for it
+    ZipFile archive = new ZipFile(new File(path));
+
+    List<Handle> evicted = null;
+    Handle handle;
+
+    synchronized (this) {
+      handle = mapArchives.get(path);
+      if (handle == null) {
+        handle = new Handle(archive);
+        archive = null;
+        mapArchives.put(path, handle);
+
+        Iterator<Handle> it = mapArchives.values().iterator();
+        while (mapArchives.size() > capacity) {
+          Handle eldest = it.next();
+          it.remove();
+          eldest.evicted = true;
+          if (evicted == null) {
+            evicted = new ArrayList<Handle>();
+          }
+          evicted.add(eldest);
+        }
+      }
+      handle.users++;
+    }
+
+    if (archive != null) {
+      // another thread has opened the same archive in the meantime
+      try {
+        archive.close();
+      }
+      catch (IOException ignore) { }
+    }
+
+    if (evicted != null) {
+      for (Handle eldest : evicted) {
+        closeIfUnused(eldest);
+      }
+    }
+
+    return handle;
+  }
+
+  private void release(Handle handle) {
+    synchronized (this) {
+      handle.users--;
+    }
+    closeIfUnused(handle);
+  }
+
+  private void closeIfUnused(Handle handle) {
+    synchronized (this) {
+      if (!handle.evicted || handle.users > 0 || handle.closed) {
+        return;
+      }
+      handle.closed = true;
+    }
+
+    try {
+      handle.archive.close();
+    }
+    catch (IOException ignore) { }
+  }
+
+  private static class Handle {
+    private final ZipFile archive;
+    private int users;
+    private boolean evicted;
+    private boolean closed;
+
+    private Handle(ZipFile archive) {
+      this.archive = archive;
+    }
+  }
+}
@@ -17,12 +17,14 @@ package org.jetbrains.java.decompiler;
 
 import org.hamcrest.Matchers;
 import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.*;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -69,6 +71,13 @@ public class BulkDecompilationTest {
     compareDirectories(new File(fixture.getTestDataDir(), "bulk"), unpacked);
   }
 
+  @Test
+  public void testJarParallel() throws IOException {
+    fixture.tearDown();
+    fixture.setUp(Collections.<String, Object>singletonMap(IFernflowerPreferences.THREADS, "4"));
+    testJar();
+  }
+
   private static void unpack(File archive, File targetDir) {
     try {
       ZipFile zip = new ZipFile(archive);
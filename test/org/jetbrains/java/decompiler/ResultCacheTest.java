@@ -0,0 +1,140 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler;
+
+import org.jetbrains.java.decompiler.main.Fernflower;
+import org.jetbrains.java.decompiler.main.ResultCache;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultCacheTest extends SingleClassesTestBase {
+  private File cacheDir;
+
+  @Override
+  protected Map<String, Object> getDecompilerOptions() {
+    return new HashMap<String, Object>() {{
+      put(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING, "1");
+      put(IFernflowerPreferences.DUMP_ORIGINAL_LINES, "1");
+      put(IFernflowerPreferences.RESULT_CACHE_DIR, cacheDir.getPath());
+    }};
+  }
+
+  @Override
+  public void setUp() throws IOException {
+    cacheDir = File.createTempFile("decompiler_cache_", "_dir");
+    assertTrue(cacheDir.delete());
+    super.setUp();
+  }
+
+  @Override
+  public void tearDown() {
+    super.tearDown();
+    File[] files = cacheDir.listFiles();
+    if (files != null) {
+      for (File file : files) assertTrue(file.delete());
+    }
+    assertTrue(cacheDir.delete());
+  }
+
+  @Test
+  public void testMissAndHit() throws IOException {
+    // miss: the class is decompiled and stored
+    doTest("pkg/TestClassSimpleBytecodeMapping");
+    File[] entries = cacheDir.listFiles();
+    assertTrue(entries != null && entries.length == 1);
+
+    // hit: the stored text is written unchanged
+    restartDecompiler();
+    doTest("pkg/TestClassSimpleBytecodeMapping");
+    assertEquals(1, cacheDir.listFiles().length);
+
+    // the entry is looked up by its key and not decompiled again
+    new ResultCache(cacheDir, getDecompilerOptions()).store(entries[0].getName(), "cached", null);
+    restartDecompiler();
+    ConsoleDecompiler decompiler = fixture.getDecompiler();
+    for (String name : new String[]{"", "$1", "$InnerClass", "$InnerClass2"}) {
+      decompiler.addSpace(new File(fixture.getTestDataDir(), "classes/pkg/TestClassSimpleBytecodeMapping" + name + ".class"), true);
+    }
+    decompiler.decompileContext();
+    File decompiledFile = new File(fixture.getTargetDir(), "TestClassSimpleBytecodeMapping.java");
+    assertEquals("cached", new String(InterpreterUtil.getBytes(decompiledFile), "UTF-8"));
+  }
+
+  @Test
+  public void testCounters() throws IOException {
+    File loop = new File(fixture.getTestDataDir(), "classes/pkg/TestClassLoop.class");
+    File fields = new File(fixture.getTestDataDir(), "classes/pkg/TestClassFields.class");
+
+    ResultCache cache = decompile(loop, fields);
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    // unchanged input: both classes are taken from the cache
+    cache = decompile(loop, fields);
+    assertEquals(2, cache.getHits());
+    assertEquals(0, cache.getMisses());
+
+    // one class changed (its minor version, which leaves the text as it is): only that class is decompiled again
+    byte[] bytes = InterpreterUtil.getBytes(loop);
+    bytes[5]++;
+    File changed = new File(fixture.getTempDir(), loop.getName());
+    FileOutputStream out = new FileOutputStream(changed);
+    try {
+      out.write(bytes);
+    }
+    finally {
+      out.close();
+    }
+
+    cache = decompile(changed, fields);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(3, cacheDir.listFiles().length);
+  }
+
+  private ResultCache decompile(File... files) {
+    ConsoleDecompiler decompiler = fixture.getDecompiler();
+    Fernflower fernflower = new Fernflower(decompiler, decompiler, getDecompilerOptions(), new PrintStreamLogger(System.out));
+    try {
+      for (File file : files) {
+        fernflower.getStructContext().addSpace(file, true);
+      }
+      fernflower.decompileContext();
+      return fernflower.getResultCache();
+    }
+    finally {
+      fernflower.clearContext();
+    }
+  }
+
+  private void restartDecompiler() throws IOException {
+    fixture.tearDown();
+    fixture = new DecompilerTestFixture();
+    fixture.setUp(getDecompilerOptions());
+  }
+}
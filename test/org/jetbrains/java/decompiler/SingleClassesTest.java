@@ -61,4 +61,6 @@ public class SingleClassesTest extends SingleClassesTestBase {
   @Test public void testInnerLocalPkg() { doTest("pkg/TestInnerLocalPkg"); }
   @Test public void testInnerSignature() { doTest("pkg/TestInnerSignature"); }
   @Test public void testParameterizedTypes() { doTest("pkg/TestParameterizedTypes"); }
+  @Test public void testIrreducibleLoop() { doTest("pkg/TestIrreducibleLoop"); }
+  @Test public void testMalformedSwitch() { doTest("pkg/TestMalformedSwitch"); }
 }
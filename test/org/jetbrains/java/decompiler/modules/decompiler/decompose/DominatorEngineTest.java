@@ -0,0 +1,235 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler.decompose;
+
+import org.jetbrains.java.decompiler.code.cfg.BasicBlock;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.modules.decompiler.DomHelper;
+import org.jetbrains.java.decompiler.modules.decompiler.StatEdge;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.BasicBlockStatement;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.GeneralStatement;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
+import org.jetbrains.java.decompiler.util.VBStyleCollection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/*
+ * Dominators and postdominators of small hand-built graphs. The expected values are the results of the earlier
+ * fixpoint implementations of DominatorEngine, GenericDominatorEngine and DomHelper.calcPostDominators().
+ */
+public class DominatorEngineTest {
+  private static final int[][] DIAMOND = {{0, 1}, {0, 2}, {1, 3}, {2, 3}};
+  private static final int[][] NESTED_LOOPS = {{0, 1}, {1, 2}, {2, 3}, {3, 2}, {3, 4}, {4, 1}, {4, 5}};
+  private static final int[][] IRREDUCIBLE = {{0, 1}, {0, 2}, {1, 2}, {2, 1}, {1, 3}};
+  private static final int[][] ENDLESS_LOOP = {{0, 1}, {0, 2}, {2, 3}, {3, 2}, {3, 4}, {4, 3}};
+  private static final int[][] UNREACHABLE = {{0, 1}, {1, 2}, {3, 2}};
+
+  @Before
+  public void setUp() {
+    DecompilerContext.initContext(null, new PrintStreamLogger(System.out));
+    DecompilerContext.setCounterContainer(new CounterContainer());
+  }
+
+  @After
+  public void tearDown() {
+    DecompilerContext.setCurrentContext(null);
+  }
+
+  @Test
+  public void testDiamond() {
+    checkDominators(DIAMOND, 4, -1, 0, 0, 0);
+    checkGenericDominators(DIAMOND, 4, -1, 0, 0, 0);
+    checkPostDominators(DIAMOND, 4, "[3, 0]", "[3, 1]", "[3, 2]", "[3]");
+  }
+
+  @Test
+  public void testNestedLoops() {
+    checkDominators(NESTED_LOOPS, 6, -1, 0, 1, 2, 3, 4);
+    checkGenericDominators(NESTED_LOOPS, 6, -1, 0, 1, 2, 3, 4);
+    checkPostDominators(NESTED_LOOPS, 6, "[1, 2, 3, 4, 5, 0]", "[2, 3, 4, 5, 1]", "[3, 4, 5, 2]", "[4, 5, 3]", "[5, 4]",
+                        "[5]");
+  }
+
+  @Test
+  public void testIrreducible() {
+    checkDominators(IRREDUCIBLE, 4, -1, 0, 0, 1);
+    checkGenericDominators(IRREDUCIBLE, 4, -1, 0, 0, 1);
+    checkPostDominators(IRREDUCIBLE, 4, "[1, 3, 0]", "[3, 1]", "[1, 3, 2]", "[3]");
+  }
+
+  @Test
+  public void testEndlessLoop() {
+    // 1 leaves the method, the loop 2 -> 3 -> 4 -> 3 never does
+    checkDominators(ENDLESS_LOOP, 5, -1, 0, 0, 2, 3);
+    checkGenericDominators(ENDLESS_LOOP, 5, -1, 0, 0, 2, 3);
+    checkPostDominators(ENDLESS_LOOP, 5, "[0]", "[1]", "[3, 4, 2]", "[2, 3, 4]", "[2, 3, 4]");
+  }
+
+  @Test
+  public void testUnreachableNode() {
+    Statement general = buildGraph(UNREACHABLE, 4);
+    DominatorEngine engine = new DominatorEngine(general);
+    engine.initialize();
+    checkDominance(engine, 3, -1, 0, 1);
+
+    try {
+      engine.isDominator(3, 2);
+      fail("unreachable statement accepted");
+    }
+    catch (RuntimeException ignored) { }
+
+    // postdominators are calculated only after dead code has been removed, so there is no result to compare
+  }
+
+  @Test
+  public void testGenericMergingPoint() {
+    // roots 0 and 1 meet in 2, which is dominated by neither
+    TestGraph graph = new TestGraph(new int[][]{{0, 2}, {1, 2}, {2, 3}}, 4, 0, 1);
+    GenericDominatorEngine engine = new GenericDominatorEngine(graph);
+    engine.initialize();
+
+    int[] idoms = {-1, -1, -1, 2};
+    for (int node = 0; node < idoms.length; node++) {
+      for (int dom = 0; dom < idoms.length; dom++) {
+        assertEquals(dom + " dominates " + node, dominates(idoms, node, dom),
+                     engine.isDominator(graph.nodes.get(node), graph.nodes.get(dom)));
+      }
+    }
+  }
+
+  // statement i is built with id i, statement 0 is the first one
+  private static Statement buildGraph(int[][] edges, int count) {
+    List<Statement> stats = new ArrayList<Statement>();
+    for (int i = 0; i < count; i++) {
+      stats.add(new BasicBlockStatement(new BasicBlock(i)));
+    }
+    for (int[] edge : edges) {
+      Statement source = stats.get(edge[0]);
+      source.addSuccessor(new StatEdge(StatEdge.TYPE_REGULAR, source, stats.get(edge[1])));
+    }
+    return new GeneralStatement(stats.get(0), stats, null);
+  }
+
+  // whether dom is on the idom chain of node, -1 marks the root
+  private static boolean dominates(int[] idoms, int node, int dom) {
+    for (int n = node; n >= 0; n = idoms[n]) {
+      if (n == dom) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void checkDominance(DominatorEngine engine, int count, int... idoms) {
+    for (int node = 0; node < count; node++) {
+      for (int dom = 0; dom < count; dom++) {
+        assertEquals(dom + " dominates " + node, dominates(idoms, node, dom), engine.isDominator(node, dom));
+      }
+    }
+  }
+
+  private static void checkDominators(int[][] edges, int count, int... idoms) {
+    DominatorEngine engine = new DominatorEngine(buildGraph(edges, count));
+    engine.initialize();
+    checkDominance(engine, count, idoms);
+  }
+
+  private static void checkGenericDominators(int[][] edges, int count, int... idoms) {
+    TestGraph graph = new TestGraph(edges, count, 0);
+    GenericDominatorEngine engine = new GenericDominatorEngine(graph);
+    engine.initialize();
+
+    for (int node = 0; node < count; node++) {
+      for (int dom = 0; dom < count; dom++) {
+        assertEquals(dom + " dominates " + node, dominates(idoms, node, dom),
+                     engine.isDominator(graph.nodes.get(node), graph.nodes.get(dom)));
+      }
+    }
+  }
+
+  // postdoms[i] is the list calculated for statement i
+  private static void checkPostDominators(int[][] edges, int count, String... postdoms) {
+    VBStyleCollection<List<Integer>, Integer> lists = DomHelper.calcPostDominators(buildGraph(edges, count));
+
+    assertEquals(count, lists.size());
+    for (int i = 0; i < count; i++) {
+      assertEquals("postdominators of " + i, postdoms[i], String.valueOf(lists.getWithKey(i)));
+    }
+  }
+
+  private static class TestNode implements IGraphNode {
+    private final List<TestNode> preds = new ArrayList<TestNode>();
+    private final List<TestNode> succs = new ArrayList<TestNode>();
+
+    @Override
+    public List<? extends IGraphNode> getPredecessors() {
+      return preds;
+    }
+  }
+
+  private static class TestGraph implements IGraph {
+    private final List<TestNode> nodes = new ArrayList<TestNode>();
+    private final Set<TestNode> roots = new HashSet<TestNode>();
+
+    public TestGraph(int[][] edges, int count, int... roots) {
+      for (int i = 0; i < count; i++) {
+        nodes.add(new TestNode());
+      }
+      for (int[] edge : edges) {
+        nodes.get(edge[0]).succs.add(nodes.get(edge[1]));
+        nodes.get(edge[1]).preds.add(nodes.get(edge[0]));
+      }
+      for (int root : roots) {
+        this.roots.add(nodes.get(root));
+      }
+    }
+
+    @Override
+    public List<? extends IGraphNode> getReversePostOrderList() {
+      List<TestNode> list = new ArrayList<TestNode>();
+      Set<TestNode> visited = new HashSet<TestNode>();
+      for (TestNode node : nodes) {
+        if (roots.contains(node)) {
+          addPostOrder(node, visited, list);
+        }
+      }
+      Collections.reverse(list);
+      return list;
+    }
+
+    private static void addPostOrder(TestNode node, Set<TestNode> visited, List<TestNode> list) {
+      if (visited.add(node)) {
+        for (TestNode succ : node.succs) {
+          addPostOrder(succ, visited, list);
+        }
+        list.add(node);
+      }
+    }
+
+    @Override
+    public Set<? extends IGraphNode> getRoots() {
+      return roots;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler.decompose;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FastDominatorTreeTest {
+  // predecessors by node, nodes are numbered in reverse post order
+  private static FastDominatorTree build(int[][] predecessors, int... roots) {
+    boolean[] isRoot = new boolean[predecessors.length];
+    for (int root : roots) {
+      isRoot[root] = true;
+    }
+    return new FastDominatorTree(predecessors, isRoot);
+  }
+
+  // idoms[i] is the expected immediate dominator of node i, i itself for roots
+  private static void check(FastDominatorTree tree, int... idoms) {
+    assertEquals(idoms.length, tree.size());
+
+    for (int node = 0; node < idoms.length; node++) {
+      assertEquals("idom of " + node, idoms[node], tree.getIDom(node));
+
+      for (int dom = 0; dom < idoms.length; dom++) {
+        boolean expected = false;
+        for (int n = node; ; n = idoms[n]) {
+          if (n == dom) {
+            expected = true;
+            break;
+          }
+          if (idoms[n] == n) {
+            break;
+          }
+        }
+        assertEquals(dom + " dominates " + node, expected, tree.isDominator(node, dom));
+      }
+    }
+  }
+
+  @Test
+  public void testDiamond() {
+    // 0 -> 1, 0 -> 2, 1 -> 3, 2 -> 3
+    FastDominatorTree tree = build(new int[][]{{}, {0}, {0}, {1, 2}}, 0);
+    check(tree, 0, 0, 0, 0);
+  }
+
+  @Test
+  public void testNestedLoops() {
+    // 0 -> 1 -> 2 -> 3 -> 4 -> 5, inner loop 3 -> 2, outer loop 4 -> 1
+    FastDominatorTree tree = build(new int[][]{{}, {0, 4}, {1, 3}, {2}, {3}, {4}}, 0);
+    check(tree, 0, 0, 1, 2, 3, 4);
+  }
+
+  @Test
+  public void testIrreducible() {
+    // 0 -> 1, 0 -> 2, 1 -> 2, 2 -> 1, 1 -> 3: the loop 1 <-> 2 has two entries
+    FastDominatorTree tree = build(new int[][]{{}, {0, 2}, {0, 1}, {1}}, 0);
+    check(tree, 0, 0, 0, 1);
+  }
+
+  @Test
+  public void testUnreachablePredecessor() {
+    // 0 -> 1 -> 2, the node jumping to 2 is not part of the graph
+    FastDominatorTree tree = build(new int[][]{{}, {0}, {-1, 1}}, 0);
+    check(tree, 0, 0, 1);
+  }
+
+  @Test
+  public void testMergingPoint() {
+    // two roots 0 and 1 meeting in 2, 2 -> 3: 2 is dominated by neither root and becomes a root itself
+    FastDominatorTree tree = build(new int[][]{{}, {}, {0, 1}, {2}}, 0, 1);
+    check(tree, 0, 1, 2, 2);
+  }
+
+  @Test
+  public void testNodeWithoutPredecessors() {
+    // 1 is neither a root nor reachable from one, so it starts a tree of its own and 2 is a merging point
+    FastDominatorTree tree = build(new int[][]{{}, {}, {0, 1}}, 0);
+    check(tree, 0, 1, 2);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.Fernflower;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/*
+ * Classes of the same name added from several places: the one added last is the one looked up, as it was before
+ * library classes were parsed lazily.
+ */
+public class StructContextTest {
+  private static final String CLASS_NAME = "pkg/TestClassLoop";
+
+  private DecompilerTestFixture fixture;
+  private Fernflower fernflower;
+  private File classFile;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+    classFile = new File(fixture.getTestDataDir(), "classes/" + CLASS_NAME + ".class");
+
+    IBytecodeProvider provider = new IBytecodeProvider() {
+      @Override
+      public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
+        if (internalPath == null) {
+          return InterpreterUtil.getBytes(new File(externalPath));
+        }
+        ZipFile archive = new ZipFile(externalPath);
+        try {
+          return InterpreterUtil.getBytes(archive, archive.getEntry(internalPath));
+        }
+        finally {
+          archive.close();
+        }
+      }
+    };
+    fernflower = new Fernflower(provider, null, new HashMap<String, Object>(), new PrintStreamLogger(System.out));
+  }
+
+  @After
+  public void tearDown() {
+    fernflower.clearContext();
+    fixture.tearDown();
+  }
+
+  private File createLibrary(String name) throws IOException {
+    File file = new File(fixture.getTempDir(), name);
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      out.putNextEntry(new ZipEntry(CLASS_NAME + ".class"));
+      out.write(InterpreterUtil.getBytes(classFile));
+      out.closeEntry();
+    }
+    finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private StructClass lookUp() {
+    StructClass cl = fernflower.getStructContext().getClass(CLASS_NAME);
+    assertNotNull(cl);
+    return cl;
+  }
+
+  @Test
+  public void testLaterLibraryReplacesLibrary() throws IOException {
+    File first = createLibrary("first.jar");
+    File second = createLibrary("second.jar");
+    fernflower.getStructContext().addSpace(first, false);
+    fernflower.getStructContext().addSpace(second, false);
+
+    StructClass cl = lookUp();
+    assertFalse(cl.isOwn());
+    assertEquals(second.getAbsolutePath(), cl.getLoader().getClassLink(CLASS_NAME).externalPath);
+  }
+
+  @Test
+  public void testOwnClassReplacesEarlierLibrary() throws IOException {
+    fernflower.getStructContext().addSpace(createLibrary("library.jar"), false);
+    fernflower.getStructContext().addSpace(classFile, true);
+
+    StructClass cl = lookUp();
+    assertTrue(cl.isOwn());
+    assertEquals(classFile.getAbsolutePath(), cl.getLoader().getClassLink(CLASS_NAME).externalPath);
+    assertEquals(1, fernflower.getStructContext().getOwnClasses().size());
+  }
+
+  @Test
+  public void testLibraryReplacesEarlierOwnClass() throws IOException {
+    File library = createLibrary("library.jar");
+    fernflower.getStructContext().addSpace(classFile, true);
+    fernflower.getStructContext().addSpace(library, false);
+
+    StructClass cl = lookUp();
+    assertFalse(cl.isOwn());
+    assertEquals(library.getAbsolutePath(), cl.getLoader().getClassLink(CLASS_NAME).externalPath);
+  }
+}
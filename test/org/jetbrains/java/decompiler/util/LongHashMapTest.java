@@ -0,0 +1,187 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LongHashMapTest {
+  // keys landing in the same slot of a table with the initial capacity
+  private static long[] collidingKeys(int count) {
+    long[] keys = new long[count];
+    int slot = LongHashMap.hash(VarVersionPair.toLong(1, 1), 7);
+    int found = 0;
+    for (int var = 1; found < count; var++) {
+      long key = VarVersionPair.toLong(var, 1);
+      if (LongHashMap.hash(key, 7) == slot) {
+        keys[found++] = key;
+      }
+    }
+    return keys;
+  }
+
+  private static long[] pairKeys() {
+    List<Long> keys = new ArrayList<Long>();
+    for (int var = -3; var < 40; var++) {
+      for (int version : new int[]{-2, -1, 0, 1, 2, 65535, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+        keys.add(VarVersionPair.toLong(var, version));
+      }
+    }
+    long[] res = new long[keys.size()];
+    for (int i = 0; i < res.length; i++) {
+      res[i] = keys.get(i);
+    }
+    return res;
+  }
+
+  @Test
+  public void testMapCollisions() {
+    long[] keys = collidingKeys(3);
+    LongHashMap<String> map = new LongHashMap<String>();
+    for (long key : keys) {
+      assertNull(map.put(key, String.valueOf(key)));
+    }
+
+    assertEquals(3, map.size());
+    for (long key : keys) {
+      assertEquals(String.valueOf(key), map.get(key));
+    }
+    assertEquals(String.valueOf(keys[1]), map.put(keys[1], "replaced"));
+    assertEquals("replaced", map.get(keys[1]));
+    assertEquals(3, map.size());
+    assertFalse(map.containsKey(keys[2] + 1));
+  }
+
+  @Test
+  public void testMapResize() {
+    long[] keys = pairKeys();
+    LongHashMap<Long> map = new LongHashMap<Long>();
+    for (int i = 0; i < keys.length; i++) {
+      map.put(keys[i], (long)i);
+      assertEquals(i + 1, map.size());
+    }
+
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(Long.valueOf(i), map.get(keys[i]));
+    }
+    assertNull(map.get(VarVersionPair.toLong(40, 0)));
+  }
+
+  @Test
+  public void testMapNegativeVersions() {
+    LongHashMap<String> map = new LongHashMap<String>();
+    map.put(VarVersionPair.toLong(1, -1), "a");
+    map.put(VarVersionPair.toLong(0, -1), "b");
+    map.put(VarVersionPair.toLong(-1, 1), "c");
+
+    assertEquals("a", map.get(VarVersionPair.toLong(1, -1)));
+    assertEquals("b", map.get(VarVersionPair.toLong(0, -1)));
+    assertEquals("c", map.get(VarVersionPair.toLong(-1, 1)));
+    assertNull(map.get(VarVersionPair.toLong(0, 0)));
+    assertNull(map.get(VarVersionPair.toLong(1, 0)));
+
+    VarVersionPair pair = VarVersionPair.fromLong(VarVersionPair.toLong(-7, -3));
+    assertEquals(-7, pair.var);
+    assertEquals(-3, pair.version);
+  }
+
+  @Test
+  public void testMapCopyAndClear() {
+    LongHashMap<String> map = new LongHashMap<String>();
+    map.put(1, "a");
+    LongHashMap<String> copy = new LongHashMap<String>(map);
+    copy.put(2, "b");
+
+    assertEquals(1, map.size());
+    assertNull(map.get(2));
+    assertEquals("a", copy.get(1));
+
+    copy.clear();
+    assertTrue(copy.isEmpty());
+    assertNull(copy.get(1));
+    assertEquals("a", map.get(1));
+  }
+
+  @Test
+  public void testMapNullValue() {
+    try {
+      new LongHashMap<String>().put(1, null);
+      fail("null value accepted");
+    }
+    catch (IllegalArgumentException ignored) { }
+  }
+
+  @Test
+  public void testSetCollisions() {
+    long[] keys = collidingKeys(3);
+    LongHashSet set = new LongHashSet();
+    for (long key : keys) {
+      assertTrue(set.add(key));
+    }
+    assertFalse(set.add(keys[0]));
+
+    assertEquals(3, set.size());
+    for (long key : keys) {
+      assertTrue(set.contains(key));
+    }
+    assertFalse(set.contains(keys[2] + 1));
+  }
+
+  @Test
+  public void testSetResize() {
+    long[] keys = pairKeys();
+    LongHashSet set = new LongHashSet();
+    for (long key : keys) {
+      assertTrue(set.add(key));
+    }
+    for (long key : keys) {
+      assertFalse(set.add(key));
+      assertTrue(set.contains(key));
+    }
+    assertEquals(keys.length, set.size());
+
+    long[] elements = set.toArray();
+    Arrays.sort(elements);
+    long[] expected = keys.clone();
+    Arrays.sort(expected);
+    assertTrue(Arrays.equals(expected, elements));
+  }
+
+  @Test
+  public void testSetNegativeVersions() {
+    LongHashSet set = new LongHashSet();
+    set.add(VarVersionPair.toLong(2, -1));
+    set.add(VarVersionPair.toLong(-2, 1));
+
+    assertTrue(set.contains(VarVersionPair.toLong(2, -1)));
+    assertTrue(set.contains(VarVersionPair.toLong(-2, 1)));
+    assertFalse(set.contains(VarVersionPair.toLong(1, -1)));
+    assertFalse(set.contains(VarVersionPair.toLong(2, 1)));
+
+    LongHashSet other = new LongHashSet();
+    other.add(VarVersionPair.toLong(2, -1));
+    other.add(VarVersionPair.toLong(3, -1));
+    set.addAll(other);
+    assertEquals(3, set.size());
+    assertTrue(set.contains(VarVersionPair.toLong(3, -1)));
+  }
+}
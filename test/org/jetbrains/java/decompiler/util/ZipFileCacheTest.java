@@ -0,0 +1,152 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ZipFileCacheTest {
+  private File first;
+  private File second;
+  private File third;
+
+  @Before
+  public void setUp() throws IOException {
+    first = createArchive("first");
+    second = createArchive("second");
+    third = createArchive("third");
+  }
+
+  @After
+  public void tearDown() {
+    for (File file : new File[]{first, second, third}) {
+      assertTrue(file.delete());
+    }
+  }
+
+  // an archive with a single entry "a.txt" holding the given text
+  private static File createArchive(String text) throws IOException {
+    File file = File.createTempFile("decompiler_cache_", ".zip");
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      out.putNextEntry(new ZipEntry("a.txt"));
+      out.write(text.getBytes("UTF-8"));
+      out.closeEntry();
+    }
+    finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private static String read(ZipFileCache cache, File file) throws IOException {
+    return new String(cache.getBytes(file.getPath(), "a.txt"), "UTF-8");
+  }
+
+  private static boolean isClosed(ZipFile archive) {
+    try {
+      archive.getEntry("a.txt");
+      return false;
+    }
+    catch (IllegalStateException e) {
+      return true;
+    }
+  }
+
+  @Test
+  public void testReuse() throws IOException {
+    ZipFileCache cache = new ZipFileCache(2);
+    assertEquals("first", read(cache, first));
+    ZipFile archive = cache.getArchive(first.getPath());
+    assertNotNull(archive);
+
+    assertEquals("second", read(cache, second));
+    assertEquals("first", read(cache, first));
+    assertSame(archive, cache.getArchive(first.getPath()));
+    assertFalse(isClosed(archive));
+
+    cache.close();
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    ZipFileCache cache = new ZipFileCache(2);
+    read(cache, first);
+    read(cache, second);
+    ZipFile firstArchive = cache.getArchive(first.getPath());
+    ZipFile secondArchive = cache.getArchive(second.getPath());
+
+    // the first archive is used again, so the second one is the least recently used
+    read(cache, first);
+    assertEquals("third", read(cache, third));
+
+    assertSame(firstArchive, cache.getArchive(first.getPath()));
+    assertNull(cache.getArchive(second.getPath()));
+    assertFalse(isClosed(firstArchive));
+    assertTrue(isClosed(secondArchive));
+
+    // an evicted archive is opened again on the next read
+    assertEquals("second", read(cache, second));
+    assertNotNull(cache.getArchive(second.getPath()));
+    assertNull(cache.getArchive(first.getPath()));
+    assertTrue(isClosed(firstArchive));
+
+    cache.close();
+  }
+
+  @Test
+  public void testClose() throws IOException {
+    ZipFileCache cache = new ZipFileCache();
+    read(cache, first);
+    read(cache, second);
+    ZipFile firstArchive = cache.getArchive(first.getPath());
+    ZipFile secondArchive = cache.getArchive(second.getPath());
+
+    cache.close();
+    assertTrue(isClosed(firstArchive));
+    assertTrue(isClosed(secondArchive));
+    assertNull(cache.getArchive(first.getPath()));
+
+    // the cache stays usable after close()
+    assertEquals("first", read(cache, first));
+    assertNotSame(firstArchive, cache.getArchive(first.getPath()));
+    cache.close();
+  }
+
+  @Test
+  public void testMissingEntry() throws IOException {
+    ZipFileCache cache = new ZipFileCache();
+    try {
+      cache.getBytes(first.getPath(), "b.txt");
+      fail("missing entry read");
+    }
+    catch (IOException ignored) { }
+
+    // the archive is kept open for the next read
+    assertEquals("first", read(cache, first));
+    cache.close();
+  }
+}